@@ -5,6 +5,7 @@ plugins {
     idea
     antlr
     id("com.google.protobuf") version "0.8.8"
+    id("me.champeau.gradle.jmh") version "0.4.8"
 }
 
 repositories {
@@ -106,6 +107,26 @@ task<JavaExec>("prelude") {
 }
 
 
+// Benchmarks
+
+configure<me.champeau.gradle.JMHPluginExtension> {
+    jmhVersion = "1.21"
+    resultFormat = "JSON"
+    resultsFile = file("$buildDir/reports/jmh/results.json")
+    (extra.properties["jmhInclude"] as? String)?.let { include = listOf(it) }
+}
+
+tasks.getByName("jmh").dependsOn("prelude")
+
+task<JavaExec>("generateLibrary") {
+    description = "Generates a synthetic library for benchmarks"
+    group = "Benchmark"
+    main = "$arendPackage.frontend.LibraryGenerator"
+    classpath = java.sourceSets["main"].runtimeClasspath
+    args = (extra.properties["generatorArgs"] as? String)?.split(" ") ?: listOf("--help")
+}
+
+
 // Utils
 
 fun isTrue(name: String) = (extra.properties[name] as? String)?.toBoolean() == true
@@ -0,0 +1,107 @@
+package org.arend;
+
+import org.arend.core.definition.Definition;
+import org.arend.error.GeneralError;
+import org.arend.error.ListErrorReporter;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.library.LibraryManager;
+import org.arend.library.SourceLibrary;
+import org.arend.module.ModulePath;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.scope.LexicalScope;
+import org.arend.prelude.PreludeResourceLibrary;
+import org.arend.term.group.Group;
+import org.arend.typechecking.ConcurrentTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * A library with given sources written to a temporary directory.
+ * Every invocation of {@link #load} loads it from scratch together with the prelude into a new typechecker state.
+ */
+public class BenchmarkLibrary {
+  private final Path myDirectory;
+  private final Set<ModulePath> myModules;
+  private final List<GeneralError> myErrors = new ArrayList<>();
+  private TypecheckerState myTypecheckerState;
+  private LibraryManager myLibraryManager;
+  private FileSourceLibrary myLibrary;
+
+  public BenchmarkLibrary(Map<ModulePath, String> modules) throws IOException {
+    myDirectory = Files.createTempDirectory("arend-benchmark");
+    myModules = new LinkedHashSet<>(modules.keySet());
+    for (Map.Entry<ModulePath, String> entry : modules.entrySet()) {
+      Path file = FileUtils.sourceFile(myDirectory, entry.getKey());
+      Files.createDirectories(file.getParent());
+      Files.write(file, entry.getValue().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  public Set<ModulePath> getModules() {
+    return myModules;
+  }
+
+  public TypecheckerState getTypecheckerState() {
+    return myTypecheckerState;
+  }
+
+  public LibraryManager getLibraryManager() {
+    return myLibraryManager;
+  }
+
+  public SourceLibrary getLibrary() {
+    return myLibrary;
+  }
+
+  private void checkErrors(String action) {
+    if (!myErrors.isEmpty()) {
+      throw new IllegalStateException("Cannot " + action + " the library: " + myErrors.get(0));
+    }
+  }
+
+  /**
+   * Loads the prelude and raw sources of the library without typechecking them.
+   */
+  public void load() {
+    myErrors.clear();
+    myTypecheckerState = new ConcurrentTypecheckerState();
+    myLibraryManager = new LibraryManager(name -> null, new InstanceProviderSet(), new ListErrorReporter(myErrors), new ListErrorReporter(myErrors));
+    myLibraryManager.loadLibrary(new PreludeResourceLibrary(myTypecheckerState));
+    myLibrary = new FileSourceLibrary("Benchmark", myDirectory, null, myModules, true, Collections.emptyList(), myTypecheckerState);
+    myLibraryManager.loadLibrary(myLibrary);
+    checkErrors("load");
+  }
+
+  public void typecheck(int numberOfThreads) {
+    new TypecheckingOrderingListener(myLibraryManager.getInstanceProviderSet(), myTypecheckerState, ConcreteReferableProvider.INSTANCE, new ListErrorReporter(myErrors), PositionComparator.INSTANCE).typecheckLibrary(myLibrary, numberOfThreads);
+    checkErrors("typecheck");
+  }
+
+  public Definition getDefinition(ModulePath modulePath, String name) {
+    Group group = myLibrary.getModuleGroup(modulePath);
+    Referable referable = group == null ? null : LexicalScope.opened(group).resolveName(name);
+    Definition definition = referable instanceof TCReferable ? myTypecheckerState.getTypechecked((TCReferable) referable) : null;
+    if (definition == null) {
+      throw new IllegalArgumentException("Cannot find definition " + name + " in " + modulePath);
+    }
+    return definition;
+  }
+
+  public void delete() throws IOException {
+    try (Stream<Path> paths = Files.walk(myDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package org.arend.core.expr;
+
+import org.arend.core.context.binding.TypedBinding;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.sort.Sort;
+import org.arend.library.LibraryManager;
+import org.arend.prelude.Prelude;
+import org.arend.prelude.PreludeResourceLibrary;
+import org.arend.typechecking.ConcurrentTypecheckerState;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.arend.core.expr.ExpressionFactory.Nat;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArithmeticBenchmark {
+  @Param({"1000", "1000000"})
+  public int literal;
+
+  private Expression myProduct;
+  private Expression myVarPlusLiteral;
+
+  private static Expression funCall(FunctionDefinition definition, Expression arg1, Expression arg2) {
+    List<Expression> args = new ArrayList<>(2);
+    args.add(arg1);
+    args.add(arg2);
+    return new FunCallExpression(definition, Sort.STD, args);
+  }
+
+  @Setup(Level.Trial)
+  public void loadPrelude() {
+    if (Prelude.PLUS == null) {
+      new LibraryManager(name -> null, new InstanceProviderSet(), System.err::println, System.err::println).loadLibrary(new PreludeResourceLibrary(new ConcurrentTypecheckerState()));
+    }
+
+    // literal * (literal + 1) * ... * (literal + 9) overflows an int after a few steps
+    Expression product = new SmallIntegerExpression(literal);
+    for (int i = 1; i < 10; i++) {
+      product = funCall(Prelude.MUL, product, new SmallIntegerExpression(literal + i));
+    }
+    myProduct = product;
+
+    myVarPlusLiteral = funCall(Prelude.PLUS, new ReferenceExpression(new TypedBinding("x", Nat())), new SmallIntegerExpression(literal));
+  }
+
+  @Benchmark
+  public Expression multiplyLiterals() {
+    return myProduct.normalize(NormalizeVisitor.Mode.NF);
+  }
+
+  @Benchmark
+  public Expression addLiteralToVariable() {
+    return myVarPlusLiteral.normalize(NormalizeVisitor.Mode.WHNF);
+  }
+}
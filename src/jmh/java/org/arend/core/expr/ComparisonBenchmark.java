@@ -0,0 +1,75 @@
+package org.arend.core.expr;
+
+import org.arend.BenchmarkLibrary;
+import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.typechecking.implicitargs.equations.DummyEquations;
+import org.arend.typechecking.implicitargs.equations.Equations;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.arend.core.expr.ExpressionFactory.Nat;
+import static org.arend.core.expr.NormalizationBenchmark.funCall;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ComparisonBenchmark {
+  @Param({"100", "1000"})
+  public int size;
+
+  private BenchmarkLibrary myLibrary;
+  private Expression myLength;
+  private Expression mySize;
+  private Expression myList1;
+  private Expression myList2;
+  private Expression myRange;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    myLibrary = new BenchmarkLibrary(Collections.singletonMap(NormalizationBenchmark.MODULE, NormalizationBenchmark.SOURCE));
+    myLibrary.load();
+    myLibrary.typecheck(1);
+
+    myLength = funCall(myLibrary, "length", Nat(), funCall(myLibrary, "replicate", Nat(), new SmallIntegerExpression(size), new SmallIntegerExpression(0)));
+    mySize = new SmallIntegerExpression(size);
+    // Two equal lists that do not share any subexpressions
+    myRange = funCall(myLibrary, "range", new SmallIntegerExpression(size));
+    myList1 = myRange.normalize(NormalizeVisitor.Mode.NF);
+    myList2 = funCall(myLibrary, "range", new SmallIntegerExpression(size)).normalize(NormalizeVisitor.Mode.NF);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    myLibrary.delete();
+  }
+
+  private static boolean compare(Expression expr1, Expression expr2) {
+    if (!CompareVisitor.compare(DummyEquations.getInstance(), Equations.CMP.EQ, expr1, expr2, null)) {
+      throw new IllegalStateException("Expressions are not equal");
+    }
+    return true;
+  }
+
+  // The left hand side is equal to the right hand side only after computation
+  @Benchmark
+  public boolean compareByComputation() {
+    return compare(myLength, mySize);
+  }
+
+  @Benchmark
+  public boolean compareNormalForms() {
+    return compare(myList1, myList2);
+  }
+
+  @Benchmark
+  public boolean compareWithNormalForm() {
+    return compare(myRange, myList1);
+  }
+}
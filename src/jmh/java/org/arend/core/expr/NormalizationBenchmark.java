@@ -0,0 +1,98 @@
+package org.arend.core.expr;
+
+import org.arend.BenchmarkLibrary;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.sort.Sort;
+import org.arend.module.ModulePath;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.arend.core.expr.ExpressionFactory.Nat;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NormalizationBenchmark {
+  static final ModulePath MODULE = new ModulePath("Lists");
+
+  // Unary arithmetic is defined here rather than taken from the prelude so that it is not evaluated on machine integers
+  static final String SOURCE =
+    "\\func add (x y : Nat) : Nat \\elim y\n" +
+    "  | zero => x\n" +
+    "  | suc y => suc (add x y)\n" +
+    "\\func fib (n : Nat) : Nat\n" +
+    "  | zero => 0\n" +
+    "  | suc zero => 1\n" +
+    "  | suc (suc n) => add (fib n) (fib (suc n))\n" +
+    "\\data List (A : \\Type) | nil | cons A (List A)\n" +
+    "\\func replicate {A : \\Type} (n : Nat) (a : A) : List A \\elim n\n" +
+    "  | zero => nil\n" +
+    "  | suc n => cons a (replicate n a)\n" +
+    "\\func range (n : Nat) : List Nat\n" +
+    "  | zero => nil\n" +
+    "  | suc n => cons n (range n)\n" +
+    "\\func length {A : \\Type} (xs : List A) : Nat \\elim xs\n" +
+    "  | nil => 0\n" +
+    "  | cons _ xs => suc (length xs)\n" +
+    "\\func sum (xs : List Nat) : Nat\n" +
+    "  | nil => 0\n" +
+    "  | cons x xs => add x (sum xs)\n";
+
+  @Param({"100", "1000"})
+  public int size;
+
+  @Param({"SUBSTITUTION", "CLOSURE"})
+  public NormalizeVisitor.Engine engine;
+
+  private BenchmarkLibrary myLibrary;
+  private NormalizeVisitor myVisitor;
+  private Expression myFib;
+  private Expression myLength;
+  private Expression mySum;
+
+  static Expression funCall(BenchmarkLibrary library, String name, Expression... args) {
+    return new FunCallExpression((FunctionDefinition) library.getDefinition(MODULE, name), Sort.SET0, Arrays.asList(args));
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    myLibrary = new BenchmarkLibrary(Collections.singletonMap(MODULE, SOURCE));
+    myLibrary.load();
+    myLibrary.typecheck(1);
+
+    myVisitor = NormalizeVisitor.getInstance(engine);
+
+    // fib grows exponentially, so its argument is kept small
+    myFib = funCall(myLibrary, "fib", new SmallIntegerExpression(size / 100 + 10));
+    myLength = funCall(myLibrary, "length", Nat(), funCall(myLibrary, "replicate", Nat(), new SmallIntegerExpression(size), new SmallIntegerExpression(0)));
+    mySum = funCall(myLibrary, "sum", funCall(myLibrary, "range", new SmallIntegerExpression(size)));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    myLibrary.delete();
+  }
+
+  @Benchmark
+  public Expression fib() {
+    return myFib.accept(myVisitor, NormalizeVisitor.Mode.NF);
+  }
+
+  @Benchmark
+  public Expression lengthOfReplicate() {
+    return myLength.accept(myVisitor, NormalizeVisitor.Mode.NF);
+  }
+
+  @Benchmark
+  public Expression sumOfRange() {
+    return mySum.accept(myVisitor, NormalizeVisitor.Mode.NF);
+  }
+}
@@ -0,0 +1,109 @@
+package org.arend.module.serialization;
+
+import com.google.protobuf.CodedInputStream;
+import org.arend.BenchmarkLibrary;
+import org.arend.core.definition.Definition;
+import org.arend.error.DummyErrorReporter;
+import org.arend.module.ModulePath;
+import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.module.scopeprovider.SimpleModuleScopeProvider;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.SimpleTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializationBenchmark {
+  private static final int NUMBER_OF_MODULES = 50;
+  private static final int DEFINITIONS_PER_MODULE = 10;
+
+  private BenchmarkLibrary myLibrary;
+  private ModuleScopeProvider myModuleScopeProvider;
+  private final Map<ModulePath, byte[]> myBinaries = new LinkedHashMap<>();
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    Map<ModulePath, String> modules = new LinkedHashMap<>();
+    for (int i = 0; i < NUMBER_OF_MODULES; i++) {
+      StringBuilder builder = new StringBuilder();
+      if (i > 0) {
+        builder.append("\\import M").append(i / 2).append("\n");
+      }
+      for (int j = 0; j < DEFINITIONS_PER_MODULE; j++) {
+        String suffix = i + "_" + j;
+        builder.append("\\data D").append(suffix).append(" (A : \\Type) | con").append(suffix).append(" A Nat | con").append(suffix).append("' (D").append(suffix).append(" A)\n")
+          .append("\\record R").append(suffix).append(" (X : \\Type) | x : X | y : X -> D").append(suffix).append(" X\n")
+          .append("\\func f").append(suffix).append(" {A : \\Type} (d : D").append(suffix).append(" A) : Nat \\elim d\n")
+          .append("  | con").append(suffix).append(" _ n => ").append(i > 0 ? "f" + (i / 2) + "_" + j + " (con" + (i / 2) + "_" + j + " n n)" : "n").append("\n")
+          .append("  | con").append(suffix).append("' d => suc (f").append(suffix).append(" d)\n")
+          .append("\\func g").append(suffix).append(" (r : R").append(suffix).append(" Nat) : f").append(suffix).append(" (r.y r.x) = f").append(suffix).append(" (r.y r.x) => idp\n");
+      }
+      modules.put(new ModulePath("M" + i), builder.toString());
+    }
+
+    myLibrary = new BenchmarkLibrary(modules);
+    myLibrary.load();
+    myLibrary.typecheck(1);
+    myModuleScopeProvider = myLibrary.getLibraryManager().getAvailableModuleScopeProvider(myLibrary.getLibrary());
+    myBinaries.putAll(serialize());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    myLibrary.delete();
+  }
+
+  @Benchmark
+  public Map<ModulePath, byte[]> serialize() {
+    Map<ModulePath, byte[]> result = new LinkedHashMap<>();
+    for (ModulePath modulePath : myLibrary.getModules()) {
+      ModuleProtos.Module module = new ModuleSerialization(myLibrary.getTypecheckerState(), DummyErrorReporter.INSTANCE).writeModule(myLibrary.getLibrary().getModuleGroup(modulePath), modulePath, IdReferableConverter.INSTANCE);
+      if (module == null) {
+        throw new IllegalStateException("Cannot serialize " + modulePath);
+      }
+      result.put(modulePath, module.toByteArray());
+    }
+    return result;
+  }
+
+  /**
+   * Deserializes all modules into a new typechecker state.
+   * Definitions of the prelude are taken from the state of the library.
+   */
+  @Benchmark
+  public TypecheckerState deserialize() throws IOException, DeserializationException {
+    TypecheckerState preludeState = myLibrary.getTypecheckerState();
+    TypecheckerState state = new SimpleTypecheckerState() {
+      @Override
+      public Definition getTypechecked(TCReferable def) {
+        Definition definition = super.getTypechecked(def);
+        return definition != null ? definition : preludeState.getTypechecked(def);
+      }
+    };
+
+    // Modules are deserialized in the order of their dependencies
+    SimpleModuleScopeProvider moduleScopeProvider = new SimpleModuleScopeProvider();
+    for (Map.Entry<ModulePath, byte[]> entry : myBinaries.entrySet()) {
+      CodedInputStream codedInputStream = CodedInputStream.newInstance(entry.getValue());
+      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+      ModuleDeserialization moduleDeserialization = new ModuleDeserialization(ModuleProtos.Module.parseFrom(codedInputStream), state, null);
+      ChildGroup group = moduleDeserialization.readGroup(entry.getKey());
+      moduleScopeProvider.registerModule(entry.getKey(), group);
+      moduleDeserialization.readModule(module -> moduleScopeProvider.isRegistered(module) ? moduleScopeProvider.forModule(module) : myModuleScopeProvider.forModule(module), DummyDependencyListener.INSTANCE, true);
+    }
+    return state;
+  }
+}
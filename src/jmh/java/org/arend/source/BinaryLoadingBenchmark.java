@@ -0,0 +1,95 @@
+package org.arend.source;
+
+import org.arend.frontend.ConsoleMain;
+import org.arend.frontend.library.FileSourceLibrary;
+import org.arend.library.LibraryManager;
+import org.arend.library.SourceLibrary;
+import org.arend.module.ModulePath;
+import org.arend.naming.reference.converter.ReferableConverter;
+import org.arend.prelude.PreludeResourceLibrary;
+import org.arend.typechecking.ConcurrentTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.util.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BinaryLoadingBenchmark {
+  private static final int NUMBER_OF_MODULES = 200;
+  private static final int DEFINITIONS_PER_MODULE = 20;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  private Path myDirectory;
+  private Set<ModulePath> myModules;
+
+  @Setup(Level.Trial)
+  public void generateLibrary() throws IOException {
+    myDirectory = Files.createTempDirectory("arend-loading");
+    Path sourceDir = myDirectory.resolve("src");
+    Files.createDirectories(sourceDir);
+
+    myModules = new LinkedHashSet<>();
+    for (int i = 0; i < NUMBER_OF_MODULES; i++) {
+      ModulePath module = new ModulePath("M" + i);
+      myModules.add(module);
+
+      StringBuilder builder = new StringBuilder();
+      if (i > 0) {
+        builder.append("\\import M").append(i / 2).append("\n");
+      }
+      for (int j = 0; j < DEFINITIONS_PER_MODULE; j++) {
+        builder.append("\\func f").append(i).append("_").append(j).append(" (n : Nat) : Nat\n")
+          .append("  | zero => ").append(i > 0 ? "f" + (i / 2) + "_" + j + " " + j : j).append("\n")
+          .append("  | suc n => suc (f").append(i).append("_").append(j).append(" n)\n");
+      }
+      Files.write(FileUtils.sourceFile(sourceDir, module), builder.toString().getBytes());
+    }
+
+    new ConsoleMain().run(new String[] { "-s", sourceDir.toString(), "-o", myDirectory.resolve("bin").toString() });
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteLibrary() throws IOException {
+    try (Stream<Path> paths = Files.walk(myDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public SourceLibrary loadBinaries() {
+    TypecheckerState state = new ConcurrentTypecheckerState();
+    LibraryManager libraryManager = new LibraryManager(name -> null, new InstanceProviderSet(), System.err::println, System.err::println);
+    libraryManager.loadLibrary(new PreludeResourceLibrary(state));
+
+    SourceLibrary library = new FileSourceLibrary("Benchmark", null, myDirectory.resolve("bin"), myModules, true, Collections.emptyList(), state) {
+      @Override
+      public boolean hasRawSources() {
+        return false;
+      }
+
+      @Override
+      public ReferableConverter getReferableConverter() {
+        return null;
+      }
+    };
+    library.setNumberOfLoadingThreads(threads);
+    if (!libraryManager.loadLibrary(library)) {
+      throw new IllegalStateException("Cannot load the library");
+    }
+    return library;
+  }
+}
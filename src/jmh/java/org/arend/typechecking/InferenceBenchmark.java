@@ -0,0 +1,65 @@
+package org.arend.typechecking;
+
+import org.arend.BenchmarkLibrary;
+import org.arend.module.ModulePath;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InferenceBenchmark {
+  private static final int NUMBER_OF_DEFINITIONS = 100;
+
+  // The length of lists in definitions; every element and every list adds several inference variables
+  @Param({"5", "25"})
+  public int depth;
+
+  private BenchmarkLibrary myLibrary;
+
+  @Setup(Level.Trial)
+  public void generateLibrary() throws IOException {
+    StringBuilder builder = new StringBuilder();
+    builder.append("\\data List (A : \\Type) | nil | cons A (List A)\n")
+      .append("\\func id {A : \\Type} (a : A) => a\n")
+      .append("\\func compose {A B C : \\Type} (g : B -> C) (f : A -> B) (a : A) => g (f a)\n")
+      .append("\\func map {A B : \\Type} (f : A -> B) (xs : List A) : List B \\elim xs\n")
+      .append("  | nil => nil\n")
+      .append("  | cons x xs => cons (f x) (map f xs)\n");
+    for (int i = 0; i < NUMBER_OF_DEFINITIONS; i++) {
+      builder.append("\\func test").append(i).append(" => map (compose (\\lam (x : Nat) => suc x) id) (id ");
+      for (int j = 0; j < depth; j++) {
+        builder.append("(cons (id (id ").append(i + j).append(")) ");
+      }
+      builder.append("nil");
+      for (int j = 0; j < depth; j++) {
+        builder.append(")");
+      }
+      builder.append(")\n");
+    }
+    myLibrary = new BenchmarkLibrary(Collections.singletonMap(new ModulePath("Inference"), builder.toString()));
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteLibrary() throws IOException {
+    myLibrary.delete();
+  }
+
+  // Loading is not measured since every invocation needs fresh definitions
+  @Setup(Level.Invocation)
+  public void load() {
+    myLibrary.load();
+  }
+
+  @Benchmark
+  public TypecheckerState typecheck() {
+    myLibrary.typecheck(1);
+    return myLibrary.getTypecheckerState();
+  }
+}
@@ -0,0 +1,55 @@
+package org.arend.typechecking;
+
+import org.arend.BenchmarkLibrary;
+import org.arend.frontend.LibraryGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LibraryTypecheckingBenchmark {
+  @Param({"1", "4"})
+  public int threads;
+
+  @Param({"50", "200"})
+  public int modules;
+
+  @Param({"1", "3"})
+  public int mutualRecursion;
+
+  private BenchmarkLibrary myLibrary;
+
+  @Setup(Level.Trial)
+  public void generateLibrary() throws IOException {
+    myLibrary = new BenchmarkLibrary(new LibraryGenerator()
+      .setModules(modules)
+      .setImports(3)
+      .setDefinitions(10)
+      .setMutualRecursion(mutualRecursion)
+      .setClasses(2)
+      .setInstances(2)
+      .generateModules());
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteLibrary() throws IOException {
+    myLibrary.delete();
+  }
+
+  @Setup(Level.Invocation)
+  public void load() {
+    myLibrary.load();
+  }
+
+  @Benchmark
+  public TypecheckerState typecheck() {
+    myLibrary.typecheck(threads);
+    return myLibrary.getTypecheckerState();
+  }
+}
@@ -0,0 +1,93 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.module.ModulePath;
+import org.arend.naming.reference.LocatedReferableImpl;
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.Precedence;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class TypecheckerStateBenchmark {
+  private static final int NUMBER_OF_DEFINITIONS = 10000;
+
+  @Param({"synchronized", "concurrent"})
+  public String implementation;
+
+  private TypecheckerState myState;
+  private TCReferable[] myReferables;
+  private Definition[] myDefinitions;
+
+  private static class SynchronizedTypecheckerState implements TypecheckerState {
+    private final TypecheckerState myState = new SimpleTypecheckerState();
+
+    @Override
+    public boolean isThreadSafe() {
+      return true;
+    }
+
+    @Override
+    public synchronized Definition record(TCReferable def, Definition res) {
+      return myState.record(def, res);
+    }
+
+    @Override
+    public synchronized void rewrite(TCReferable def, Definition res) {
+      myState.rewrite(def, res);
+    }
+
+    @Override
+    public synchronized Definition getTypechecked(TCReferable def) {
+      return myState.getTypechecked(def);
+    }
+
+    @Override
+    public synchronized Definition reset(TCReferable def) {
+      return myState.reset(def);
+    }
+
+    @Override
+    public synchronized void reset() {
+      myState.reset();
+    }
+  }
+
+  @Setup
+  public void setup() {
+    myState = implementation.equals("concurrent") ? new ConcurrentTypecheckerState() : new SynchronizedTypecheckerState();
+    ModulePath modulePath = new ModulePath("Bench");
+    myReferables = new TCReferable[NUMBER_OF_DEFINITIONS];
+    myDefinitions = new Definition[NUMBER_OF_DEFINITIONS];
+    for (int i = 0; i < NUMBER_OF_DEFINITIONS; i++) {
+      myReferables[i] = new LocatedReferableImpl(Precedence.DEFAULT, "d" + i, modulePath);
+      myDefinitions[i] = new FunctionDefinition(myReferables[i]);
+      myState.record(myReferables[i], myDefinitions[i]);
+    }
+  }
+
+  @Benchmark
+  public Definition lookup() {
+    return myState.getTypechecked(myReferables[ThreadLocalRandom.current().nextInt(NUMBER_OF_DEFINITIONS)]);
+  }
+
+  // Mostly lookups with occasional resets, as in the typechecker when a definition is rechecked
+  @Benchmark
+  public Definition mixed() {
+    int i = ThreadLocalRandom.current().nextInt(NUMBER_OF_DEFINITIONS);
+    if (i % 16 == 0) {
+      myState.reset(myReferables[i]);
+      return myState.record(myReferables[i], myDefinitions[i]);
+    }
+    return myState.getTypechecked(myReferables[i]);
+  }
+}
@@ -8,6 +8,7 @@ import org.arend.core.expr.ConCallExpression;
 import org.arend.core.expr.DataCallExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.ReferenceExpression;
+import org.arend.core.expr.visitor.WHNFCache;
 import org.arend.core.pattern.Pattern;
 import org.arend.core.pattern.Patterns;
 import org.arend.core.sort.Sort;
@@ -30,6 +31,7 @@ public class Constructor extends Definition implements Function {
   private List<Integer> myParametersTypecheckingOrder;
   private List<Boolean> myGoodThisParameters = Collections.emptyList();
   private List<TypeClassParameterKind> myTypeClassParameters = Collections.emptyList();
+  private int myIndex = -1;
 
   public Constructor(TCReferable referable, DataDefinition dataType) {
     super(referable, TypeCheckingStatus.HEADER_HAS_ERRORS);
@@ -40,6 +42,7 @@ public class Constructor extends Definition implements Function {
 
   public void setBody(Body conditions) {
     myConditions = conditions;
+    WHNFCache.invalidateCurrent();
   }
 
   public Patterns getPatterns() {
@@ -86,6 +89,16 @@ public class Constructor extends Definition implements Function {
     return myDataType;
   }
 
+  /**
+   * @return the position of this constructor in the list of constructors of its data type or -1 if it is not there.
+   */
+  public int getIndex() {
+    if (myIndex < 0 && myDataType != null) {
+      myIndex = myDataType.getConstructors().indexOf(this);
+    }
+    return myIndex;
+  }
+
   public DependentLink getDataTypeParameters() {
     return myDataType.status().headerIsOK() ? (myPatterns == null ? myDataType.getParameters() : myPatterns.getFirstBinding()) : EmptyDependentLink.getInstance();
   }
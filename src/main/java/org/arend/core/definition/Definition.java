@@ -5,6 +5,7 @@ import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.EmptyDependentLink;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.core.expr.visitor.WHNFCache;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.ExprSubstitution;
 import org.arend.naming.reference.TCReferable;
@@ -159,6 +160,7 @@ public abstract class Definition implements Variable {
 
   public void setStatus(TypeCheckingStatus status) {
     myStatus = status;
+    WHNFCache.invalidateCurrent();
   }
 
   @Override
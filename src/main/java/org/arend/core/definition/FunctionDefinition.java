@@ -5,6 +5,7 @@ import org.arend.core.context.param.EmptyDependentLink;
 import org.arend.core.elimtree.Body;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.FunCallExpression;
+import org.arend.core.expr.visitor.WHNFCache;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.ExprSubstitution;
 import org.arend.core.subst.LevelSubstitution;
@@ -42,6 +43,7 @@ public class FunctionDefinition extends Definition implements Function {
 
   public void setBody(Body body) {
     myBody = body;
+    WHNFCache.invalidateCurrent();
   }
 
   public boolean isLemma() {
@@ -15,6 +15,20 @@ import java.util.Map;
 
 public class BranchElimTree extends ElimTree {
   private final Map<Constructor, ElimTree> myChildren;
+  private JumpTable myJumpTable;
+
+  /**
+   * Children indexed by positions of constructors in their data type.
+   */
+  private static class JumpTable {
+    final Constructor[] constructors;
+    final ElimTree[] children;
+
+    JumpTable(Constructor[] constructors, ElimTree[] children) {
+      this.constructors = constructors;
+      this.children = children;
+    }
+  }
 
   public final static class TupleConstructor extends Constructor {
     private final int myLength;
@@ -72,9 +86,39 @@ public class BranchElimTree extends ElimTree {
   }
 
   public ElimTree getChild(Constructor constructor) {
+    JumpTable jumpTable = myJumpTable;
+    if (jumpTable == null) {
+      jumpTable = makeJumpTable();
+      myJumpTable = jumpTable;
+    }
+
+    int index = constructor.getIndex();
+    if (index >= 0 && index < jumpTable.constructors.length && jumpTable.constructors[index] == constructor) {
+      return jumpTable.children[index];
+    }
     return myChildren.get(constructor);
   }
 
+  private JumpTable makeJumpTable() {
+    int size = 0;
+    for (Constructor constructor : myChildren.keySet()) {
+      if (constructor != null) {
+        size = Math.max(size, constructor.getIndex() + 1);
+      }
+    }
+
+    Constructor[] constructors = new Constructor[size];
+    ElimTree[] children = new ElimTree[size];
+    for (Map.Entry<Constructor, ElimTree> entry : myChildren.entrySet()) {
+      int index = entry.getKey() == null ? -1 : entry.getKey().getIndex();
+      if (index >= 0 && constructors[index] == null) {
+        constructors[index] = entry.getKey();
+        children[index] = entry.getValue();
+      }
+    }
+    return new JumpTable(constructors, children);
+  }
+
   public ElimTree getTupleChild() {
     if (myChildren.size() == 1) {
       Map.Entry<Constructor, ElimTree> entry = myChildren.entrySet().iterator().next();
@@ -27,13 +27,13 @@ public class BigIntegerExpression extends IntegerExpression {
   }
 
   @Override
-  public BigIntegerExpression suc() {
-    return new BigIntegerExpression(myInteger.add(BigInteger.ONE));
+  public IntegerExpression suc() {
+    return valueOf(myInteger.add(BigInteger.ONE));
   }
 
   @Override
   public IntegerExpression pred() {
-    return new BigIntegerExpression(myInteger.subtract(BigInteger.ONE));
+    return valueOf(myInteger.subtract(BigInteger.ONE));
   }
 
   @Override
@@ -62,39 +62,39 @@ public class BigIntegerExpression extends IntegerExpression {
   }
 
   @Override
-  public BigIntegerExpression plus(IntegerExpression expr) {
-    return new BigIntegerExpression(myInteger.add(expr.getBigInteger()));
+  public IntegerExpression plus(IntegerExpression expr) {
+    return valueOf(myInteger.add(expr.getBigInteger()));
   }
 
   @Override
-  public BigIntegerExpression plus(int num) {
-    return new BigIntegerExpression(myInteger.add(BigInteger.valueOf(num)));
+  public IntegerExpression plus(int num) {
+    return valueOf(myInteger.add(BigInteger.valueOf(num)));
   }
 
   @Override
-  public BigIntegerExpression mul(IntegerExpression expr) {
-    return new BigIntegerExpression(myInteger.multiply(expr.getBigInteger()));
+  public IntegerExpression mul(IntegerExpression expr) {
+    return valueOf(myInteger.multiply(expr.getBigInteger()));
   }
 
   @Override
   public ConCallExpression minus(IntegerExpression expr) {
     BigInteger result = myInteger.subtract(expr.getBigInteger());
-    return result.signum() >= 0 ? Pos(new BigIntegerExpression(result)) : Neg(new BigIntegerExpression(result.negate()));
+    return result.signum() >= 0 ? Pos(valueOf(result)) : Neg(valueOf(result.negate()));
   }
 
   @Override
-  public BigIntegerExpression minus(int x) {
-    return new BigIntegerExpression(myInteger.subtract(BigInteger.valueOf(x)));
+  public IntegerExpression minus(int x) {
+    return valueOf(myInteger.subtract(BigInteger.valueOf(x)));
   }
 
   @Override
-  public BigIntegerExpression div(IntegerExpression expr) {
-    return expr.isZero() ? this : new BigIntegerExpression(myInteger.divide(expr.getBigInteger()));
+  public IntegerExpression div(IntegerExpression expr) {
+    return expr.isZero() ? this : valueOf(myInteger.divide(expr.getBigInteger()));
   }
 
   @Override
-  public BigIntegerExpression mod(IntegerExpression expr) {
-    return expr.isZero() ? this : new BigIntegerExpression(myInteger.remainder(expr.getBigInteger()));
+  public IntegerExpression mod(IntegerExpression expr) {
+    return expr.isZero() ? this : valueOf(myInteger.remainder(expr.getBigInteger()));
   }
 
   @Override
@@ -105,8 +105,8 @@ public class BigIntegerExpression extends IntegerExpression {
       fields.add(this);
     } else {
       BigInteger[] divMod = myInteger.divideAndRemainder(expr.getBigInteger());
-      fields.add(new BigIntegerExpression(divMod[0]));
-      fields.add(new BigIntegerExpression(divMod[1]));
+      fields.add(valueOf(divMod[0]));
+      fields.add(valueOf(divMod[1]));
     }
     return new TupleExpression(fields, Prelude.DIV_MOD_TYPE);
   }
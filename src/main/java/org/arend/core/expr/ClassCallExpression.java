@@ -164,7 +164,7 @@ public class ClassCallExpression extends DefCallExpression implements Type {
 
   @Override
   public ClassCallExpression subst(SubstVisitor substVisitor) {
-    return substVisitor.visitClassCall(this, null);
+    return substVisitor.isUnaffected(this) ? this : substVisitor.visitClassCall(this, null);
   }
 
   @Override
@@ -174,7 +174,7 @@ public class ClassCallExpression extends DefCallExpression implements Type {
 
   @Override
   public ClassCallExpression normalize(NormalizeVisitor.Mode mode) {
-    return NormalizeVisitor.INSTANCE.visitClassCall(this, mode);
+    return NormalizeVisitor.getCurrent().visitClassCall(this, mode);
   }
 
   public Sort getSort() {
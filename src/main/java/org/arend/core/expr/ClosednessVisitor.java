@@ -0,0 +1,222 @@
+package org.arend.core.expr;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.binding.EvaluatingBinding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.expr.let.LetClause;
+import org.arend.core.expr.visitor.BaseExpressionVisitor;
+import org.arend.core.sort.Sort;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Computes free bindings of an expression and caches in every subexpression
+ * whether it is closed and whether it contains level variables.
+ * Inference variables, field calls, case expressions and references to evaluating bindings
+ * are treated conservatively since substitutions may affect them in other ways.
+ * Returned sets are either null, which means that there are no free bindings, or owned by the caller.
+ */
+class ClosednessVisitor extends BaseExpressionVisitor<Void, Set<Binding>> {
+  private boolean myOpen;
+  private boolean myLevels;
+
+  Set<Binding> visit(Expression expr) {
+    int closedness = expr.getCachedClosedness();
+    if ((closedness & Expression.CLOSED) != 0) {
+      if ((closedness & Expression.LEVEL_VARIABLES) != 0) {
+        myLevels = true;
+      }
+      return null;
+    }
+
+    boolean open = myOpen;
+    boolean levels = myLevels;
+    myOpen = false;
+    myLevels = false;
+    Set<Binding> result = expr.accept(this, null);
+    expr.setClosedness(result == null && !myOpen, myLevels);
+    myOpen |= open;
+    myLevels |= levels;
+    return result;
+  }
+
+  private static Set<Binding> union(Set<Binding> set1, Set<Binding> set2) {
+    if (set1 == null) {
+      return set2;
+    }
+    if (set2 == null) {
+      return set1;
+    }
+    if (!(set1 instanceof HashSet)) {
+      if (set2 instanceof HashSet) {
+        Set<Binding> set = set1;
+        set1 = set2;
+        set2 = set;
+      } else {
+        set1 = new HashSet<>(set1);
+      }
+    }
+    set1.addAll(set2);
+    return set1;
+  }
+
+  private static Set<Binding> remove(Set<Binding> set, Binding binding) {
+    if (set == null || !set.contains(binding)) {
+      return set;
+    }
+    if (set.size() == 1) {
+      return null;
+    }
+    set.remove(binding);
+    return set;
+  }
+
+  private void visitSort(Sort sort) {
+    if (!sort.getPLevel().isClosed() || !sort.getHLevel().isClosed()) {
+      myLevels = true;
+    }
+  }
+
+  private Set<Binding> visitList(Set<Binding> result, List<? extends Expression> exprs) {
+    for (Expression expr : exprs) {
+      result = union(result, visit(expr));
+    }
+    return result;
+  }
+
+  private Set<Binding> visitParameters(DependentLink parameters, Set<Binding> result) {
+    for (DependentLink link = parameters; link.hasNext(); link = link.getNext()) {
+      link = link.getNextTyped(null);
+      result = union(result, visit(link.getTypeExpr()));
+    }
+    for (DependentLink link = parameters; link.hasNext(); link = link.getNext()) {
+      result = remove(result, link);
+    }
+    return result;
+  }
+
+  @Override
+  public Set<Binding> visitApp(AppExpression expr, Void params) {
+    return union(visit(expr.getFunction()), visit(expr.getArgument()));
+  }
+
+  @Override
+  public Set<Binding> visitDefCall(DefCallExpression expr, Void params) {
+    visitSort(expr.getSortArgument());
+    return visitList(null, expr.getDefCallArguments());
+  }
+
+  @Override
+  public Set<Binding> visitConCall(ConCallExpression expr, Void params) {
+    return visitList(visitDefCall(expr, null), expr.getDataTypeArguments());
+  }
+
+  @Override
+  public Set<Binding> visitFieldCall(FieldCallExpression expr, Void params) {
+    myOpen = true;
+    visitSort(expr.getSortArgument());
+    return visit(expr.getArgument());
+  }
+
+  @Override
+  public Set<Binding> visitClassCall(ClassCallExpression expr, Void params) {
+    visitSort(expr.getSortArgument());
+    visitSort(expr.getSort());
+    Set<Binding> result = null;
+    for (Expression impl : expr.getImplementedHere().values()) {
+      result = union(result, visit(impl));
+    }
+    return result;
+  }
+
+  @Override
+  public Set<Binding> visitReference(ReferenceExpression expr, Void params) {
+    if (expr.getBinding() instanceof EvaluatingBinding) {
+      myLevels = true;
+    }
+    return Collections.singleton(expr.getBinding());
+  }
+
+  @Override
+  public Set<Binding> visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    myOpen = true;
+    myLevels = true;
+    return null;
+  }
+
+  @Override
+  public Set<Binding> visitLam(LamExpression expr, Void params) {
+    visitSort(expr.getResultSort());
+    return visitParameters(expr.getParameters(), visit(expr.getBody()));
+  }
+
+  @Override
+  public Set<Binding> visitPi(PiExpression expr, Void params) {
+    visitSort(expr.getResultSort());
+    return visitParameters(expr.getParameters(), visit(expr.getCodomain()));
+  }
+
+  @Override
+  public Set<Binding> visitSigma(SigmaExpression expr, Void params) {
+    visitSort(expr.getSort());
+    return visitParameters(expr.getParameters(), null);
+  }
+
+  @Override
+  public Set<Binding> visitUniverse(UniverseExpression expr, Void params) {
+    visitSort(expr.getSort());
+    return null;
+  }
+
+  @Override
+  public Set<Binding> visitError(ErrorExpression expr, Void params) {
+    return expr.getExpression() == null ? null : visit(expr.getExpression());
+  }
+
+  @Override
+  public Set<Binding> visitTuple(TupleExpression expr, Void params) {
+    return visitList(visit(expr.getSigmaType()), expr.getFields());
+  }
+
+  @Override
+  public Set<Binding> visitProj(ProjExpression expr, Void params) {
+    return visit(expr.getExpression());
+  }
+
+  @Override
+  public Set<Binding> visitNew(NewExpression expr, Void params) {
+    return visit(expr.getExpression());
+  }
+
+  @Override
+  public Set<Binding> visitLet(LetExpression expr, Void params) {
+    Set<Binding> result = visit(expr.getExpression());
+    for (LetClause clause : expr.getClauses()) {
+      result = union(result, visit(clause.getExpression()));
+    }
+    for (LetClause clause : expr.getClauses()) {
+      result = remove(result, clause);
+    }
+    return result;
+  }
+
+  @Override
+  public Set<Binding> visitCase(CaseExpression expr, Void params) {
+    myOpen = true;
+    myLevels = true;
+    return null;
+  }
+
+  @Override
+  public Set<Binding> visitOfType(OfTypeExpression expr, Void params) {
+    return union(visit(expr.getExpression()), visit(expr.getTypeOf()));
+  }
+
+  @Override
+  public Set<Binding> visitInteger(IntegerExpression expr, Void params) {
+    return null;
+  }
+}
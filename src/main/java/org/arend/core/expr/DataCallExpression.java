@@ -56,7 +56,7 @@ public class DataCallExpression extends DefCallExpression implements Type {
 
   @Override
   public DataCallExpression subst(SubstVisitor substVisitor) {
-    return substVisitor.visitDataCall(this, null);
+    return substVisitor.isUnaffected(this) ? this : substVisitor.visitDataCall(this, null);
   }
 
   @Override
@@ -66,7 +66,7 @@ public class DataCallExpression extends DefCallExpression implements Type {
 
   @Override
   public DataCallExpression normalize(NormalizeVisitor.Mode mode) {
-    return NormalizeVisitor.INSTANCE.visitDataCall(this, mode);
+    return NormalizeVisitor.getCurrent().visitDataCall(this, mode);
   }
 
   public List<ConCallExpression> getMatchedConstructors() {
@@ -28,8 +28,81 @@ import java.util.List;
 import java.util.Set;
 
 public abstract class Expression implements ExpectedType {
+  static final byte CLOSEDNESS_COMPUTED = 1;
+  static final byte CLOSED = 2;
+  static final byte LEVEL_VARIABLES = 4;
+
+  private int myStructuralHash;
+  private byte myClosedness;
+
   public abstract <P, R> R accept(ExpressionVisitor<? super P, ? extends R> visitor, P params);
 
+  /**
+   * A hash code which is invariant under renaming of bound variables.
+   * Syntactically equal expressions have equal structural hash codes.
+   * The result is cached unless the expression contains inference variables.
+   */
+  public int structuralHashCode() {
+    int hash = myStructuralHash;
+    if (hash == 0) {
+      StructuralHashVisitor visitor = new StructuralHashVisitor();
+      hash = accept(visitor, null);
+      if (hash == 0) {
+        hash = 1;
+      }
+      if (visitor.isStable()) {
+        myStructuralHash = hash;
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * @return the cached structural hash code or 0 if it was not computed yet.
+   */
+  int getCachedStructuralHash() {
+    return myStructuralHash;
+  }
+
+  /**
+   * An expression is closed if it does not contain free variables, inference variables, field calls, and case expressions.
+   * Substitutions of variables do not change closed expressions, so {@link SubstVisitor} shares them instead of copying.
+   * The result is cached.
+   */
+  public boolean isClosed() {
+    return (getClosedness() & CLOSED) != 0;
+  }
+
+  /**
+   * @return true if the expression may be changed by a level substitution.
+   */
+  public boolean hasLevelVariables() {
+    return (getClosedness() & LEVEL_VARIABLES) != 0;
+  }
+
+  private int getClosedness() {
+    if (myClosedness == 0) {
+      new ClosednessVisitor().visit(this);
+    }
+    return myClosedness;
+  }
+
+  /**
+   * Drops the cached closedness of this expression.
+   * It must be called if subexpressions of this expression were replaced in place.
+   */
+  public void invalidateClosedness() {
+    myClosedness = 0;
+  }
+
+  int getCachedClosedness() {
+    return myClosedness;
+  }
+
+  void setClosedness(boolean closed, boolean hasLevelVariables) {
+    myClosedness = (byte) (CLOSEDNESS_COMPUTED | (closed ? CLOSED : 0) | (hasLevelVariables ? LEVEL_VARIABLES : 0));
+  }
+
   @Override
   public String toString() {
     StringBuilder builder = new StringBuilder();
@@ -108,7 +181,7 @@ public abstract class Expression implements ExpectedType {
   }
 
   public final Expression subst(Variable binding, Expression substExpr) {
-    return accept(new SubstVisitor(new ExprSubstitution(binding, substExpr), LevelSubstitution.EMPTY), null);
+    return new SubstVisitor(new ExprSubstitution(binding, substExpr), LevelSubstitution.EMPTY).subst(this);
   }
 
   public final Expression subst(ExprSubstitution subst) {
@@ -120,16 +193,16 @@ public abstract class Expression implements ExpectedType {
   }
 
   public Expression subst(ExprSubstitution exprSubst, LevelSubstitution levelSubst) {
-    return exprSubst.isEmpty() && levelSubst.isEmpty() ? this : accept(new SubstVisitor(exprSubst, levelSubst), null);
+    return exprSubst.isEmpty() && levelSubst.isEmpty() ? this : new SubstVisitor(exprSubst, levelSubst).subst(this);
   }
 
   public Expression subst(SubstVisitor substVisitor) {
-    return accept(substVisitor, null);
+    return substVisitor.subst(this);
   }
 
   @Override
   public Expression normalize(NormalizeVisitor.Mode mode) {
-    return accept(NormalizeVisitor.INSTANCE, mode);
+    return accept(NormalizeVisitor.getCurrent(), mode);
   }
 
   public static boolean compare(Expression expr1, Expression expr2, Equations.CMP cmp) {
@@ -0,0 +1,231 @@
+package org.arend.core.expr;
+
+import org.arend.core.context.binding.LevelVariable;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares identical copies of closed leaf-like expressions, that is,
+ * universes, integers, and calls of data types, functions, and constructors whose arguments are such expressions.
+ * Interning is opt-in: it is performed only if an interner is installed with {@link #setInstance}.
+ * The interner references expressions weakly, so it does not keep alive expressions of unloaded definitions.
+ * The same syntactic comparison, bounded in size, is used by {@link #fastEquals} for expressions that are not interned.
+ */
+public class ExpressionInterner {
+  private static volatile ExpressionInterner ourInstance;
+
+  /**
+   * The maximal number of nodes compared by {@link #fastEquals}.
+   */
+  public static final int FAST_EQUALS_BUDGET = 32;
+
+  private final Map<Key, Key> myExpressions = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Expression> myQueue = new ReferenceQueue<>();
+  private final AtomicLong myHits = new AtomicLong();
+
+  private static class Key extends WeakReference<Expression> {
+    private final int myHash;
+
+    Key(Expression expression, ReferenceQueue<Expression> queue) {
+      super(expression, queue);
+      myHash = expression.structuralHashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return myHash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key) || myHash != ((Key) obj).myHash) {
+        return false;
+      }
+      Expression expr1 = get();
+      Expression expr2 = ((Key) obj).get();
+      return expr1 != null && expr2 != null && expr1.getClass() == expr2.getClass() && syntacticEquals(expr1, expr2, Integer.MAX_VALUE) >= 0;
+    }
+  }
+
+  public static ExpressionInterner getInstance() {
+    return ourInstance;
+  }
+
+  public static void setInstance(ExpressionInterner interner) {
+    ourInstance = interner;
+  }
+
+  /**
+   * Interns an expression using the installed interner.
+   * If there is no interner, returns the expression itself.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T extends Expression> T internIfEnabled(T expr) {
+    ExpressionInterner interner = ourInstance;
+    return interner == null ? expr : (T) interner.intern(expr);
+  }
+
+  /**
+   * @return a shared expression syntactically equal to {@code expr} or {@code expr} itself if it cannot be shared.
+   */
+  public Expression intern(Expression expr) {
+    if (!isInternable(expr)) {
+      return expr;
+    }
+    removeCollected();
+    Key key = new Key(expr, myQueue);
+    while (true) {
+      Key oldKey = myExpressions.putIfAbsent(key, key);
+      if (oldKey == null) {
+        return expr;
+      }
+      Expression result = oldKey.get();
+      if (result != null) {
+        myHits.incrementAndGet();
+        return result;
+      }
+      myExpressions.remove(oldKey, oldKey);
+    }
+  }
+
+  private void removeCollected() {
+    for (Reference<? extends Expression> ref = myQueue.poll(); ref != null; ref = myQueue.poll()) {
+      myExpressions.remove(ref, ref);
+    }
+  }
+
+  public int size() {
+    removeCollected();
+    return myExpressions.size();
+  }
+
+  /**
+   * @return the number of expressions that were replaced with a shared copy.
+   */
+  public long getHits() {
+    return myHits.get();
+  }
+
+  public void clear() {
+    myExpressions.clear();
+    removeCollected();
+  }
+
+  private static boolean isInternable(Level level) {
+    LevelVariable var = level.getVar();
+    return var == null || var == LevelVariable.PVAR || var == LevelVariable.HVAR;
+  }
+
+  private static boolean isInternable(Sort sort) {
+    return isInternable(sort.getPLevel()) && isInternable(sort.getHLevel());
+  }
+
+  private static boolean isInternable(List<? extends Expression> exprs) {
+    for (Expression expr : exprs) {
+      if (!isInternable(expr)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public static boolean isInternable(Expression expr) {
+    if (expr instanceof IntegerExpression) {
+      return true;
+    }
+    if (expr instanceof UniverseExpression) {
+      return isInternable(((UniverseExpression) expr).getSort());
+    }
+    if (expr instanceof DataCallExpression || expr instanceof FunCallExpression) {
+      return isInternable(((DefCallExpression) expr).getSortArgument()) && isInternable(((DefCallExpression) expr).getDefCallArguments());
+    }
+    if (expr instanceof ConCallExpression) {
+      return isInternable(((ConCallExpression) expr).getSortArgument()) && isInternable(((ConCallExpression) expr).getDataTypeArguments()) && isInternable(((ConCallExpression) expr).getDefCallArguments());
+    }
+    return false;
+  }
+
+  private static boolean levelEquals(Level level1, Level level2) {
+    return level1 == level2 || level1.getVar() == level2.getVar() && level1.getConstant() == level2.getConstant() && level1.getMaxConstant() == level2.getMaxConstant();
+  }
+
+  private static boolean sortEquals(Sort sort1, Sort sort2) {
+    return sort1 == sort2 || levelEquals(sort1.getPLevel(), sort2.getPLevel()) && levelEquals(sort1.getHLevel(), sort2.getHLevel());
+  }
+
+  /**
+   * A cheap check which {@link org.arend.core.expr.visitor.CompareVisitor#compare} tries before the full comparison.
+   * Internable expressions are compared syntactically; the check gives up after {@link #FAST_EQUALS_BUDGET} nodes.
+   *
+   * @return true if the expressions are syntactically equal, false if they are not or the check gave up.
+   */
+  public static boolean fastEquals(Expression expr1, Expression expr2) {
+    return expr1.getClass() == expr2.getClass() && syntacticEquals(expr1, expr2, FAST_EQUALS_BUDGET) >= 0;
+  }
+
+  private static int syntacticEquals(List<? extends Expression> exprs1, List<? extends Expression> exprs2, int budget) {
+    if (exprs1.size() != exprs2.size()) {
+      return -1;
+    }
+    for (int i = 0; i < exprs1.size() && budget >= 0; i++) {
+      budget = syntacticEquals(exprs1.get(i), exprs2.get(i), budget);
+    }
+    return budget;
+  }
+
+  /**
+   * Checks syntactic equality of internable expressions.
+   * Every compared node consumes a unit of {@code budget}.
+   *
+   * @return the remaining budget or -1 if the expressions are not equal or the budget is exhausted.
+   */
+  private static int syntacticEquals(Expression expr1, Expression expr2, int budget) {
+    if (expr1 == expr2) {
+      return budget;
+    }
+    if (budget == 0) {
+      return -1;
+    }
+    budget--;
+
+    int hash1 = expr1.getCachedStructuralHash();
+    int hash2 = expr2.getCachedStructuralHash();
+    if (hash1 != 0 && hash2 != 0 && hash1 != hash2) {
+      return -1;
+    }
+
+    if (expr1 instanceof IntegerExpression) {
+      return expr2 instanceof IntegerExpression && ((IntegerExpression) expr1).isEqual((IntegerExpression) expr2) ? budget : -1;
+    }
+    if (expr1 instanceof UniverseExpression) {
+      return expr2 instanceof UniverseExpression && sortEquals(((UniverseExpression) expr1).getSort(), ((UniverseExpression) expr2).getSort()) ? budget : -1;
+    }
+    if (expr1 instanceof DataCallExpression || expr1 instanceof FunCallExpression || expr1 instanceof ConCallExpression) {
+      if (expr1.getClass() != expr2.getClass()) {
+        return -1;
+      }
+      DefCallExpression defCall1 = (DefCallExpression) expr1;
+      DefCallExpression defCall2 = (DefCallExpression) expr2;
+      if (defCall1.getDefinition() != defCall2.getDefinition() || !sortEquals(defCall1.getSortArgument(), defCall2.getSortArgument())) {
+        return -1;
+      }
+      budget = syntacticEquals(defCall1.getDefCallArguments(), defCall2.getDefCallArguments(), budget);
+      if (budget >= 0 && expr1 instanceof ConCallExpression) {
+        budget = syntacticEquals(((ConCallExpression) expr1).getDataTypeArguments(), ((ConCallExpression) expr2).getDataTypeArguments(), budget);
+      }
+      return budget;
+    }
+    return -1;
+  }
+}
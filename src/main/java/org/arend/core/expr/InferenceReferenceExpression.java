@@ -4,6 +4,7 @@ import org.arend.core.context.binding.inference.InferenceVariable;
 import org.arend.core.definition.ClassField;
 import org.arend.core.expr.visitor.ExpressionVisitor;
 import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.expr.visitor.WHNFCache;
 import org.arend.typechecking.implicitargs.equations.Equations;
 import org.arend.util.Decision;
 
@@ -51,6 +52,7 @@ public class InferenceReferenceExpression extends Expression {
 
   public void setSubstExpression(Expression substExpression) {
     mySubstExpression = substExpression;
+    WHNFCache.invalidateCurrent();
   }
 
   @Override
@@ -8,6 +8,17 @@ import org.arend.util.Decision;
 import java.math.BigInteger;
 
 public abstract class IntegerExpression extends Expression {
+  /**
+   * @return a {@link SmallIntegerExpression} if {@code integer} fits into an int, a {@link BigIntegerExpression} otherwise.
+   */
+  public static IntegerExpression valueOf(long integer) {
+    return integer >= Integer.MIN_VALUE && integer <= Integer.MAX_VALUE ? new SmallIntegerExpression((int) integer) : new BigIntegerExpression(BigInteger.valueOf(integer));
+  }
+
+  public static IntegerExpression valueOf(BigInteger integer) {
+    return integer.bitLength() < Integer.SIZE ? new SmallIntegerExpression(integer.intValue()) : new BigIntegerExpression(integer);
+  }
+
   public abstract BigInteger getBigInteger();
 
   public abstract int getSmallInteger();
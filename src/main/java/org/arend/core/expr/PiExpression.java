@@ -69,7 +69,7 @@ public class PiExpression extends Expression implements Type {
 
   @Override
   public PiExpression subst(SubstVisitor substVisitor) {
-    return substVisitor.visitPi(this, null);
+    return substVisitor.isUnaffected(this) ? this : substVisitor.visitPi(this, null);
   }
 
   @Override
@@ -79,7 +79,7 @@ public class PiExpression extends Expression implements Type {
 
   @Override
   public PiExpression normalize(NormalizeVisitor.Mode mode) {
-    return NormalizeVisitor.INSTANCE.visitPi(this, mode);
+    return NormalizeVisitor.getCurrent().visitPi(this, mode);
   }
 
   @Override
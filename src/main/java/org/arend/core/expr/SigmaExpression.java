@@ -45,7 +45,7 @@ public class SigmaExpression extends Expression implements Type {
 
   @Override
   public SigmaExpression subst(SubstVisitor substVisitor) {
-    return substVisitor.visitSigma(this, null);
+    return substVisitor.isUnaffected(this) ? this : substVisitor.visitSigma(this, null);
   }
 
   @Override
@@ -55,7 +55,7 @@ public class SigmaExpression extends Expression implements Type {
 
   @Override
   public SigmaExpression normalize(NormalizeVisitor.Mode mode) {
-    return NormalizeVisitor.INSTANCE.visitSigma(this, mode);
+    return NormalizeVisitor.getCurrent().visitSigma(this, mode);
   }
 
   @Override
@@ -17,9 +17,11 @@ import org.arend.core.sort.Sort;
 import org.arend.core.subst.ExprSubstitution;
 import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.Cancellation;
 import org.arend.typechecking.error.local.GoalError;
 import org.arend.typechecking.implicitargs.equations.DummyEquations;
 import org.arend.typechecking.implicitargs.equations.Equations;
+import org.arend.typechecking.profile.TypecheckingProfiler;
 
 import java.util.*;
 
@@ -200,9 +202,11 @@ public class CompareVisitor extends BaseExpressionVisitor<Expression, Boolean> {
   }
 
   public Boolean compare(Expression expr1, Expression expr2) {
+    Cancellation.check();
+    TypecheckingProfiler.countComparison();
     expr1 = expr1.getCanonicalExpression();
     expr2 = expr2.getCanonicalExpression();
-    if (expr1 == expr2) {
+    if (ExpressionInterner.fastEquals(expr1, expr2)) {
       return true;
     }
 
@@ -11,8 +11,8 @@ import org.arend.core.subst.ExprSubstitution;
 import org.arend.core.subst.LevelSubstitution;
 import org.arend.core.subst.SubstVisitor;
 import org.arend.prelude.Prelude;
-import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
-import org.arend.util.ComputationInterruptedException;
+import org.arend.typechecking.Cancellation;
+import org.arend.typechecking.profile.TypecheckingProfiler;
 import org.arend.util.Pair;
 
 import java.util.*;
@@ -22,13 +22,76 @@ import static org.arend.core.expr.ExpressionFactory.*;
 public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mode, Expression>  {
   public enum Mode { WHNF, NF, RNF }
 
-  public static final NormalizeVisitor INSTANCE = new NormalizeVisitor();
+  /**
+   * Determines how beta-redexes are reduced.
+   * {@link Engine#SUBSTITUTION} substitutes arguments into the body of a lambda.
+   * {@link Engine#CLOSURE} evaluates the head of the body in an environment and substitutes only subterms that remain in the result.
+   * Both engines produce the same normal forms.
+   */
+  public enum Engine { SUBSTITUTION, CLOSURE }
 
-  private NormalizeVisitor() {
+  public static final NormalizeVisitor INSTANCE = new NormalizeVisitor(Engine.SUBSTITUTION);
+  private static final NormalizeVisitor CLOSURE_INSTANCE = new NormalizeVisitor(Engine.CLOSURE);
+  private static final ThreadLocal<NormalizeVisitor> CURRENT = new ThreadLocal<>();
+
+  private final Engine myEngine;
+
+  private NormalizeVisitor(Engine engine) {
+    myEngine = engine;
+  }
+
+  public static NormalizeVisitor getInstance(Engine engine) {
+    return engine == Engine.CLOSURE ? CLOSURE_INSTANCE : INSTANCE;
+  }
+
+  /**
+   * @return the visitor activated in the current thread or {@link #INSTANCE} if there is no such visitor.
+   */
+  public static NormalizeVisitor getCurrent() {
+    NormalizeVisitor visitor = CURRENT.get();
+    return visitor == null ? INSTANCE : visitor;
+  }
+
+  /**
+   * Makes {@link Expression#normalize} use the given engine in the current thread.
+   *
+   * @return the previously activated visitor, which should be passed to {@link #deactivate}.
+   */
+  public static NormalizeVisitor activate(Engine engine) {
+    NormalizeVisitor previous = CURRENT.get();
+    CURRENT.set(getInstance(engine));
+    return previous;
+  }
+
+  public static void deactivate(NormalizeVisitor previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+
+  public Engine getEngine() {
+    return myEngine;
   }
 
   @Override
   public Expression visitApp(AppExpression expr, Mode mode) {
+    WHNFCache cache = mode == Mode.WHNF ? WHNFCache.getCurrent() : null;
+    if (cache == null) {
+      return normalizeApp(expr, mode);
+    }
+
+    Expression result = cache.get(expr);
+    if (result == null) {
+      int epoch = cache.getEpoch();
+      result = normalizeApp(expr, mode);
+      cache.put(expr, result, epoch);
+    }
+    return result;
+  }
+
+  private Expression normalizeApp(AppExpression expr, Mode mode) {
     List<Expression> args = new ArrayList<>();
     Expression function = expr;
     while (function.isInstance(AppExpression.class)) {
@@ -38,7 +101,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
     Collections.reverse(args);
 
     if (function.isInstance(LamExpression.class)) {
-      return normalizeLam(function.cast(LamExpression.class), args).accept(this, mode);
+      return (myEngine == Engine.CLOSURE ? evalLam(function.cast(LamExpression.class), args) : normalizeLam(function.cast(LamExpression.class), args)).accept(this, mode);
     }
 
     if (mode == Mode.NF) {
@@ -70,6 +133,57 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
     return result;
   }
 
+  /**
+   * Reduces the head of {@code fun} applied to {@code arguments} in the style of the Krivine machine.
+   * Bindings of lambdas are stored in an environment instead of being substituted into their bodies,
+   * so only the arguments of the spine and the final head are copied.
+   */
+  private Expression evalLam(LamExpression fun, List<? extends Expression> arguments) {
+    Deque<Expression> stack = new ArrayDeque<>(arguments.size());
+    for (int i = arguments.size() - 1; i >= 0; i--) {
+      stack.push(arguments.get(i));
+    }
+
+    // All expressions on the stack and in the environment are closed with respect to the environment
+    ExprSubstitution environment = new ExprSubstitution();
+    Expression head = fun;
+    while (true) {
+      if (head.isInstance(LamExpression.class)) {
+        LamExpression lamExpr = head.cast(LamExpression.class);
+        SingleDependentLink link = lamExpr.getParameters();
+        while (link.hasNext() && !stack.isEmpty()) {
+          environment.add(link, stack.pop());
+          link = link.getNext();
+        }
+        if (link.hasNext()) {
+          head = new LamExpression(lamExpr.getResultSort(), link, lamExpr.getBody());
+          break;
+        }
+        head = lamExpr.getBody();
+      } else if (head.isInstance(AppExpression.class)) {
+        List<Expression> args = new ArrayList<>();
+        while (head.isInstance(AppExpression.class)) {
+          args.add(head.cast(AppExpression.class).getArgument());
+          head = head.cast(AppExpression.class).getFunction();
+        }
+        for (Expression arg : args) {
+          stack.push(arg.subst(environment));
+        }
+      } else if (head.isInstance(ReferenceExpression.class) && environment.get(head.cast(ReferenceExpression.class).getBinding()) != null) {
+        head = environment.get(head.cast(ReferenceExpression.class).getBinding());
+        environment = new ExprSubstitution();
+      } else {
+        break;
+      }
+    }
+
+    Expression result = head.subst(environment);
+    while (!stack.isEmpty()) {
+      result = AppExpression.make(result, stack.pop());
+    }
+    return result;
+  }
+
   private Expression applyDefCall(DefCallExpression expr, Mode mode) {
     if (mode != Mode.NF || expr.getDefCallArguments().isEmpty()) {
       return expr;
@@ -121,6 +235,15 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
         return arg1.accept(this, mode);
       }
 
+      // Do not unfold x + n into n constructors when only the head is needed.
+      // Functions that peel suc constructors normalize the remainder again, so they unfold it on demand.
+      if (mode == Mode.WHNF) {
+        List<Expression> newDefCallArgs = new ArrayList<>(2);
+        newDefCallArgs.add(arg1);
+        newDefCallArgs.add(intExpr2.pred());
+        return Suc(intExpr2.isOne() ? arg1 : new FunCallExpression(Prelude.PLUS, expr.getSortArgument(), newDefCallArgs));
+      }
+
       if (mode == Mode.NF) {
         arg1 = arg1.accept(this, mode);
       }
@@ -136,7 +259,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
     ConCallExpression conCall2 = arg2.checkedCast(ConCallExpression.class);
     while (conCall2 != null && conCall2.getDefinition() == Prelude.SUC) {
       result = Suc(result);
-      arg2 = conCall2.getDefCallArguments().get(0);
+      arg2 = conCall2.getDefCallArguments().get(0).accept(this, Mode.WHNF);
       conCall2 = arg2.checkedCast(ConCallExpression.class);
     }
     newDefCallArgs.add(mode == Mode.NF ? arg2.accept(this, mode) : arg2);
@@ -162,7 +285,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
       ConCallExpression conCall2 = arg2.checkedCast(ConCallExpression.class);
       while (!intExpr1.isZero() && conCall2 != null && conCall2.getDefinition() == Prelude.SUC) {
         intExpr1 = intExpr1.pred();
-        arg2 = conCall2.getDefCallArguments().get(0);
+        arg2 = conCall2.getDefCallArguments().get(0).accept(this, Mode.WHNF);
         conCall2 = arg2.checkedCast(ConCallExpression.class);
       }
 
@@ -189,7 +312,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
       IntegerExpression intExpr2 = arg2.cast(IntegerExpression.class);
       while (!intExpr2.isZero() && conCall1 != null && conCall1.getDefinition() == Prelude.SUC) {
         intExpr2 = intExpr2.pred();
-        arg1 = conCall1.getDefCallArguments().get(0);
+        arg1 = conCall1.getDefCallArguments().get(0).accept(this, Mode.WHNF);
         conCall1 = arg1.checkedCast(ConCallExpression.class);
       }
 
@@ -205,9 +328,9 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
 
     ConCallExpression conCall2 = arg2.checkedCast(ConCallExpression.class);
     while (conCall1 != null && conCall1.getDefinition() == Prelude.SUC && conCall2 != null && conCall2.getDefinition() == Prelude.SUC) {
-      arg1 = conCall1.getDefCallArguments().get(0);
+      arg1 = conCall1.getDefCallArguments().get(0).accept(this, Mode.WHNF);
       conCall1 = arg1.checkedCast(ConCallExpression.class);
-      arg2 = conCall2.getDefCallArguments().get(0);
+      arg2 = conCall2.getDefCallArguments().get(0).accept(this, Mode.WHNF);
       conCall2 = arg2.checkedCast(ConCallExpression.class);
     }
 
@@ -385,23 +508,51 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
 
     Expression result = eval(elimTree, defCallArgs, getDataTypeArgumentsSubstitution(expr), levelSubstitution);
 
-    if (TypecheckingOrderingListener.CANCELLATION_INDICATOR.isCanceled()) {
-      throw new ComputationInterruptedException();
-    }
+    Cancellation.check();
+    TypecheckingProfiler.countNormalizationStep();
 
     return result == null ? applyDefCall(expr, mode) : result.accept(this, mode);
   }
 
-  private Stack<Expression> makeStack(List<? extends Expression> arguments) {
-    Stack<Expression> stack = new Stack<>();
-    for (int i = arguments.size() - 1; i >= 0; i--) {
-      stack.push(arguments.get(i));
+  /**
+   * A stack of arguments backed by an array.
+   * The top of the stack is the first argument that is not matched yet.
+   */
+  private static final class ArgumentStack {
+    private Expression[] myArguments;
+    private int mySize;
+
+    ArgumentStack(List<? extends Expression> arguments) {
+      myArguments = new Expression[Math.max(arguments.size() * 2, 8)];
+      for (int i = arguments.size() - 1; i >= 0; i--) {
+        myArguments[mySize++] = arguments.get(i);
+      }
+    }
+
+    void push(Expression argument) {
+      if (mySize == myArguments.length) {
+        myArguments = Arrays.copyOf(myArguments, mySize * 2);
+      }
+      myArguments[mySize++] = argument;
+    }
+
+    Expression pop() {
+      Expression argument = myArguments[--mySize];
+      myArguments[mySize] = null;
+      return argument;
+    }
+
+    Expression peek() {
+      return myArguments[mySize - 1];
+    }
+
+    boolean isEmpty() {
+      return mySize == 0;
     }
-    return stack;
   }
 
   public Expression eval(ElimTree elimTree, List<? extends Expression> arguments, ExprSubstitution substitution, LevelSubstitution levelSubstitution) {
-    Stack<Expression> stack = makeStack(arguments);
+    ArgumentStack stack = new ArgumentStack(arguments);
 
     while (true) {
       for (DependentLink link = elimTree.getParameters(); link.hasNext(); link = link.getNext()) {
@@ -419,7 +570,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
   }
 
   public boolean doesEvaluate(ElimTree elimTree, List<? extends Expression> arguments, boolean might) {
-    Stack<Expression> stack = makeStack(arguments);
+    ArgumentStack stack = new ArgumentStack(arguments);
 
     while (true) {
       for (DependentLink link = elimTree.getParameters(); link.hasNext(); link = link.getNext()) {
@@ -443,7 +594,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
     }
   }
 
-  private ElimTree updateStack(Stack<Expression> stack, BranchElimTree branchElimTree) {
+  private ElimTree updateStack(ArgumentStack stack, BranchElimTree branchElimTree) {
     Expression argument = stack.peek().accept(this, Mode.WHNF);
     ConCallExpression conCall = argument.checkedCast(ConCallExpression.class);
     Constructor constructor = conCall == null ? null : conCall.getDefinition();
@@ -497,6 +648,22 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizeVisitor.Mod
     return substitution;
   }
 
+  @Override
+  public Expression visitFunCall(FunCallExpression expr, Mode mode) {
+    WHNFCache cache = mode == Mode.WHNF ? WHNFCache.getCurrent() : null;
+    if (cache == null) {
+      return visitDefCall(expr, mode);
+    }
+
+    Expression result = cache.get(expr);
+    if (result == null) {
+      int epoch = cache.getEpoch();
+      result = visitDefCall(expr, mode);
+      cache.put(expr, result, epoch);
+    }
+    return result;
+  }
+
   @Override
   public Expression visitDefCall(DefCallExpression expr, Mode mode) {
     if (expr.getDefinition() instanceof FunctionDefinition && ((FunctionDefinition) expr.getDefinition()).isLemma() ||
@@ -71,9 +71,14 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public ClassCallExpression visitClassCall(ClassCallExpression expr, Void params) {
+    // Closed expressions do not contain anything to strip and may be shared, so they must not be changed in place
+    if (expr.isClosed()) {
+      return expr;
+    }
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
       entry.setValue(entry.getValue().accept(this, null));
     }
+    expr.invalidateClosedness();
     return expr;
   }
 
@@ -107,19 +112,29 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public LamExpression visitLam(LamExpression expr, Void params) {
+    if (expr.isClosed()) {
+      return expr;
+    }
     visitParameters(expr.getParameters());
     return new LamExpression(expr.getResultSort(), expr.getParameters(), expr.getBody().accept(this, null));
   }
 
   @Override
   public PiExpression visitPi(PiExpression expr, Void params) {
+    if (expr.isClosed()) {
+      return expr;
+    }
     visitParameters(expr.getParameters());
     return new PiExpression(expr.getResultSort(), expr.getParameters(), expr.getCodomain().accept(this, null));
   }
 
   @Override
   public SigmaExpression visitSigma(SigmaExpression expr, Void params) {
+    if (expr.isClosed()) {
+      return expr;
+    }
     visitParameters(expr.getParameters());
+    expr.invalidateClosedness();
     return expr;
   }
 
@@ -154,6 +169,9 @@ public class StripVisitor implements ExpressionVisitor<Void, Expression> {
 
   @Override
   public LetExpression visitLet(LetExpression expr, Void params) {
+    if (expr.isClosed()) {
+      return expr;
+    }
     for (LetClause clause : expr.getClauses()) {
       clause.setExpression(clause.getExpression().accept(this, null));
       myBoundEvaluatingBindings.add(clause);
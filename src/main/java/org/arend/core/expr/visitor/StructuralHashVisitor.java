@@ -0,0 +1,189 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.Binding;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.definition.ClassField;
+import org.arend.core.expr.*;
+import org.arend.core.expr.let.LetClause;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes a hash code of an expression that does not depend on the names of bound variables.
+ * Bound variables are hashed by their de Bruijn indices and free variables by their identity,
+ * so syntactically equal expressions have equal hash codes.
+ */
+public class StructuralHashVisitor extends BaseExpressionVisitor<Void, Integer> {
+  private final Map<Binding, Integer> myBindings = new HashMap<>();
+  private boolean myStable = true;
+
+  /**
+   * @return false if the expression contains inference variables, so its hash code may change when they are solved.
+   */
+  public boolean isStable() {
+    return myStable;
+  }
+
+  private static int combine(int hash, int value) {
+    return 31 * hash + value;
+  }
+
+  public static int hashLevel(Level level) {
+    int hash = combine(level.getConstant(), level.getMaxConstant());
+    return combine(hash, level.getVar() == null ? 0 : System.identityHashCode(level.getVar()));
+  }
+
+  public static int hashSort(Sort sort) {
+    return combine(hashLevel(sort.getPLevel()), hashLevel(sort.getHLevel()));
+  }
+
+  private int hashList(int hash, List<? extends Expression> exprs) {
+    for (Expression expr : exprs) {
+      hash = combine(hash, expr.accept(this, null));
+    }
+    return hash;
+  }
+
+  private void bind(Binding binding) {
+    myBindings.put(binding, myBindings.size());
+  }
+
+  private int hashParameters(int hash, DependentLink link) {
+    for (; link.hasNext(); link = link.getNext()) {
+      DependentLink typed = link.getNextTyped(null);
+      for (; link != typed; link = link.getNext()) {
+        bind(link);
+      }
+      hash = combine(hash, typed.getTypeExpr().accept(this, null));
+      hash = combine(hash, typed.isExplicit() ? 1 : 0);
+      bind(typed);
+    }
+    return hash;
+  }
+
+  private void unbind(DependentLink link) {
+    for (; link.hasNext(); link = link.getNext()) {
+      myBindings.remove(link);
+    }
+  }
+
+  @Override
+  public Integer visitApp(AppExpression expr, Void params) {
+    return combine(combine(1, expr.getFunction().accept(this, null)), expr.getArgument().accept(this, null));
+  }
+
+  @Override
+  public Integer visitDefCall(DefCallExpression expr, Void params) {
+    int hash = combine(combine(2, System.identityHashCode(expr.getDefinition())), hashSort(expr.getSortArgument()));
+    return hashList(hash, expr.getDefCallArguments());
+  }
+
+  @Override
+  public Integer visitConCall(ConCallExpression expr, Void params) {
+    return hashList(visitDefCall(expr, null), expr.getDataTypeArguments());
+  }
+
+  @Override
+  public Integer visitClassCall(ClassCallExpression expr, Void params) {
+    int hash = visitDefCall(expr, null);
+    for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
+      // Implementations are not ordered, so their hash codes are summed
+      hash += combine(System.identityHashCode(entry.getKey()), entry.getValue().accept(this, null));
+    }
+    return hash;
+  }
+
+  @Override
+  public Integer visitReference(ReferenceExpression expr, Void params) {
+    Integer index = myBindings.get(expr.getBinding());
+    return index != null ? combine(3, myBindings.size() - index) : combine(4, System.identityHashCode(expr.getBinding()));
+  }
+
+  @Override
+  public Integer visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    myStable = false;
+    return expr.getSubstExpression() != null ? expr.getSubstExpression().accept(this, null) : combine(5, System.identityHashCode(expr.getVariable()));
+  }
+
+  @Override
+  public Integer visitLam(LamExpression expr, Void params) {
+    int hash = hashParameters(6, expr.getParameters());
+    hash = combine(hash, expr.getBody().accept(this, null));
+    unbind(expr.getParameters());
+    return hash;
+  }
+
+  @Override
+  public Integer visitPi(PiExpression expr, Void params) {
+    int hash = hashParameters(7, expr.getParameters());
+    hash = combine(hash, expr.getCodomain().accept(this, null));
+    unbind(expr.getParameters());
+    return hash;
+  }
+
+  @Override
+  public Integer visitSigma(SigmaExpression expr, Void params) {
+    int hash = hashParameters(8, expr.getParameters());
+    unbind(expr.getParameters());
+    return hash;
+  }
+
+  @Override
+  public Integer visitUniverse(UniverseExpression expr, Void params) {
+    return combine(9, hashSort(expr.getSort()));
+  }
+
+  @Override
+  public Integer visitError(ErrorExpression expr, Void params) {
+    return expr.getExpression() == null ? 10 : combine(10, expr.getExpression().accept(this, null));
+  }
+
+  @Override
+  public Integer visitTuple(TupleExpression expr, Void params) {
+    return hashList(11, expr.getFields());
+  }
+
+  @Override
+  public Integer visitProj(ProjExpression expr, Void params) {
+    return combine(combine(12, expr.getField()), expr.getExpression().accept(this, null));
+  }
+
+  @Override
+  public Integer visitNew(NewExpression expr, Void params) {
+    return combine(13, visitClassCall(expr.getExpression(), null));
+  }
+
+  @Override
+  public Integer visitLet(LetExpression expr, Void params) {
+    int hash = combine(14, expr.isStrict() ? 1 : 0);
+    for (LetClause clause : expr.getClauses()) {
+      hash = combine(hash, clause.getExpression().accept(this, null));
+      bind(clause);
+    }
+    hash = combine(hash, expr.getExpression().accept(this, null));
+    for (LetClause clause : expr.getClauses()) {
+      myBindings.remove(clause);
+    }
+    return hash;
+  }
+
+  @Override
+  public Integer visitCase(CaseExpression expr, Void params) {
+    // Only arguments are taken into account; this is enough since syntactically equal expressions have equal hash codes anyway
+    return hashList(15, expr.getArguments());
+  }
+
+  @Override
+  public Integer visitOfType(OfTypeExpression expr, Void params) {
+    return expr.getExpression().accept(this, null);
+  }
+
+  @Override
+  public Integer visitInteger(IntegerExpression expr, Void params) {
+    return combine(16, expr instanceof SmallIntegerExpression ? expr.getSmallInteger() : expr.getBigInteger().intValue());
+  }
+}
@@ -0,0 +1,140 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.expr.Expression;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of weak head normal forms used by {@link NormalizeVisitor}.
+ * Expressions are compared by identity; an expression is stored in the slot determined by its identity hash code and evicts the previous occupant of this slot.
+ * A cache is used only on the thread that activated it (see {@link #activate}).
+ * It is cleared whenever something that may affect the result of normalization changes,
+ * that is, when an inference variable is solved, or when the body or the status of a definition is updated.
+ */
+public class WHNFCache {
+  public static final int DEFAULT_CAPACITY = 4096;
+
+  private static final ThreadLocal<WHNFCache> CURRENT = new ThreadLocal<>();
+
+  private final Expression[] myKeys;
+  private final Expression[] myValues;
+  private final int myMask;
+  private int myEpoch;
+  private long myHits;
+  private long myMisses;
+
+  public static class Statistics {
+    private final int myCapacity;
+    private final AtomicLong myHits = new AtomicLong();
+    private final AtomicLong myMisses = new AtomicLong();
+
+    public Statistics(int capacity) {
+      myCapacity = capacity;
+    }
+
+    public int getCapacity() {
+      return myCapacity;
+    }
+
+    public long getHits() {
+      return myHits.get();
+    }
+
+    public long getMisses() {
+      return myMisses.get();
+    }
+
+    @Override
+    public String toString() {
+      long hits = getHits();
+      long total = hits + getMisses();
+      return "hits: " + hits + ", misses: " + (total - hits) + (total == 0 ? "" : " (" + (hits * 100 / total) + "% hit rate)");
+    }
+  }
+
+  public WHNFCache(int capacity) {
+    int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    myKeys = new Expression[size];
+    myValues = new Expression[size];
+    myMask = size - 1;
+  }
+
+  public static WHNFCache getCurrent() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Makes a cache active on the current thread.
+   *
+   * @param cache a cache or null if the normalization should not be cached.
+   * @return the previously active cache which should be restored with {@link #deactivate}.
+   */
+  public static WHNFCache activate(WHNFCache cache) {
+    WHNFCache previous = CURRENT.get();
+    CURRENT.set(cache);
+    return previous;
+  }
+
+  /**
+   * Restores a previously active cache and adds the counters of the current cache to {@code statistics}.
+   */
+  public static void deactivate(WHNFCache previous, Statistics statistics) {
+    WHNFCache cache = CURRENT.get();
+    if (cache != null && statistics != null) {
+      statistics.myHits.addAndGet(cache.myHits);
+      statistics.myMisses.addAndGet(cache.myMisses);
+    }
+    if (previous != null) {
+      // The current session might have changed definitions that the previous one has cached
+      previous.clear();
+    }
+    CURRENT.set(previous);
+  }
+
+  public static void invalidateCurrent() {
+    WHNFCache cache = CURRENT.get();
+    if (cache != null) {
+      cache.clear();
+    }
+  }
+
+  public void clear() {
+    Arrays.fill(myKeys, null);
+    Arrays.fill(myValues, null);
+    myEpoch++;
+  }
+
+  public int getEpoch() {
+    return myEpoch;
+  }
+
+  public Expression get(Expression expr) {
+    int index = System.identityHashCode(expr) & myMask;
+    if (myKeys[index] == expr) {
+      myHits++;
+      return myValues[index];
+    }
+    myMisses++;
+    return null;
+  }
+
+  /**
+   * Stores the normal form of an expression unless the cache was cleared after {@code epoch}.
+   */
+  public void put(Expression expr, Expression whnf, int epoch) {
+    if (epoch == myEpoch) {
+      int index = System.identityHashCode(expr) & myMask;
+      myKeys[index] = expr;
+      myValues[index] = whnf;
+    }
+  }
+
+  public long getHits() {
+    return myHits;
+  }
+
+  public long getMisses() {
+    return myMisses;
+  }
+}
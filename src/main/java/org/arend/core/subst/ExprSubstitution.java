@@ -3,89 +3,196 @@ package org.arend.core.subst;
 import org.arend.core.context.binding.Variable;
 import org.arend.core.expr.Expression;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
+/**
+ * A substitution of expressions for variables.
+ * Small substitutions, which are the most common ones, are stored in arrays and are switched to a hash map when they grow.
+ */
 public class ExprSubstitution {
+  private static final int ARRAY_CAPACITY = 4;
+
+  private Variable[] myKeys;
+  private Expression[] myValues;
+  private int mySize;
   private Map<Variable, Expression> mySubstExprs;
 
   public ExprSubstitution() {
-    mySubstExprs = Collections.emptyMap();
   }
 
   public ExprSubstitution(ExprSubstitution substitution) {
-    mySubstExprs = substitution.mySubstExprs.isEmpty() ? Collections.emptyMap() : new HashMap<>(substitution.mySubstExprs);
+    addAll(substitution);
   }
 
   public ExprSubstitution(Variable from, Expression to) {
-    mySubstExprs = new HashMap<>();
     add(from, to);
   }
 
+  private Map<Variable, Expression> toMap() {
+    if (mySubstExprs != null) {
+      return mySubstExprs;
+    }
+    if (mySize == 0) {
+      return Collections.emptyMap();
+    }
+    Map<Variable, Expression> result = new LinkedHashMap<>();
+    for (int i = 0; i < mySize; i++) {
+      result.put(myKeys[i], myValues[i]);
+    }
+    return result;
+  }
+
+  /**
+   * @return the set of variables of this substitution; if the substitution is small, it is a copy.
+   */
   public Set<Variable> getKeys() {
-    return mySubstExprs.keySet();
+    return toMap().keySet();
   }
 
+  /**
+   * @return the set of entries of this substitution; if the substitution is small, it is a copy.
+   */
   public Set<Map.Entry<Variable, Expression>> getEntries() {
-    return mySubstExprs.entrySet();
+    return toMap().entrySet();
+  }
+
+  /**
+   * Removes variables of this substitution from the given collection without copying them.
+   */
+  public void removeKeysFrom(Collection<? extends Variable> variables) {
+    if (mySubstExprs != null) {
+      //noinspection SuspiciousMethodCalls
+      variables.removeAll(mySubstExprs.keySet());
+    } else {
+      for (int i = 0; i < mySize; i++) {
+        variables.remove(myKeys[i]);
+      }
+    }
   }
 
   public boolean isEmpty() {
-    return mySubstExprs.isEmpty();
+    return mySubstExprs != null ? mySubstExprs.isEmpty() : mySize == 0;
+  }
+
+  private int indexOf(Variable variable) {
+    for (int i = 0; i < mySize; i++) {
+      if (myKeys[i] == variable) {
+        return i;
+      }
+    }
+    return -1;
   }
 
   public Expression get(Variable binding)  {
-    return mySubstExprs.get(binding);
+    if (mySubstExprs != null) {
+      return mySubstExprs.get(binding);
+    }
+    int index = indexOf(binding);
+    return index >= 0 ? myValues[index] : null;
   }
 
   public void clear() {
-    if (!mySubstExprs.isEmpty()) {
-      mySubstExprs.clear();
+    if (mySubstExprs != null) {
+      mySubstExprs = null;
+    } else {
+      for (int i = 0; i < mySize; i++) {
+        myKeys[i] = null;
+        myValues[i] = null;
+      }
     }
+    mySize = 0;
   }
 
   public void remove(Variable variable) {
-    if (!mySubstExprs.isEmpty()) {
+    if (mySubstExprs != null) {
       mySubstExprs.remove(variable);
+      return;
+    }
+
+    int index = indexOf(variable);
+    if (index >= 0) {
+      mySize--;
+      System.arraycopy(myKeys, index + 1, myKeys, index, mySize - index);
+      System.arraycopy(myValues, index + 1, myValues, index, mySize - index);
+      myKeys[mySize] = null;
+      myValues[mySize] = null;
     }
   }
 
   public void add(Variable binding, Expression expression) {
-    if (mySubstExprs.isEmpty()) {
+    if (mySubstExprs != null) {
+      mySubstExprs.put(binding, expression);
+      return;
+    }
+
+    int index = indexOf(binding);
+    if (index >= 0) {
+      myValues[index] = expression;
+      return;
+    }
+
+    if (myKeys == null) {
+      myKeys = new Variable[ARRAY_CAPACITY];
+      myValues = new Expression[ARRAY_CAPACITY];
+    }
+    if (mySize < ARRAY_CAPACITY) {
+      myKeys[mySize] = binding;
+      myValues[mySize] = expression;
+      mySize++;
+    } else {
       mySubstExprs = new HashMap<>();
+      for (int i = 0; i < mySize; i++) {
+        mySubstExprs.put(myKeys[i], myValues[i]);
+      }
+      mySubstExprs.put(binding, expression);
+      myKeys = null;
+      myValues = null;
+      mySize = 0;
     }
-    mySubstExprs.put(binding, expression);
   }
 
+  /**
+   * Adds a new entry and substitutes it in existing ones.
+   * All existing entries are processed by the same visitor and closed expressions are not traversed at all.
+   */
   public void addSubst(Variable binding, Expression expression) {
-    if (mySubstExprs.isEmpty()) {
-      mySubstExprs = new HashMap<>();
-    } else {
-      for (Map.Entry<Variable, Expression> entry : mySubstExprs.entrySet()) {
-        entry.setValue(entry.getValue().subst(binding, expression));
-      }
+    if (!isEmpty()) {
+      substValues(new SubstVisitor(new ExprSubstitution(binding, expression), LevelSubstitution.EMPTY));
     }
-    mySubstExprs.put(binding, expression);
+    add(binding, expression);
   }
 
   public void addAll(ExprSubstitution substitution) {
-    if (!substitution.mySubstExprs.isEmpty()) {
-      if (mySubstExprs.isEmpty()) {
-        mySubstExprs = new HashMap<>();
+    if (substitution.mySubstExprs != null) {
+      for (Map.Entry<Variable, Expression> entry : substitution.mySubstExprs.entrySet()) {
+        add(entry.getKey(), entry.getValue());
+      }
+    } else {
+      for (int i = 0; i < substitution.mySize; i++) {
+        add(substitution.myKeys[i], substitution.myValues[i]);
       }
-      mySubstExprs.putAll(substitution.mySubstExprs);
     }
   }
 
   public void subst(ExprSubstitution subst) {
-    for (Map.Entry<Variable, Expression> entry : mySubstExprs.entrySet()) {
-      entry.setValue(entry.getValue().subst(subst));
+    if (!isEmpty() && !subst.isEmpty()) {
+      substValues(new SubstVisitor(subst, LevelSubstitution.EMPTY));
+    }
+  }
+
+  private void substValues(SubstVisitor visitor) {
+    if (mySubstExprs != null) {
+      for (Map.Entry<Variable, Expression> entry : mySubstExprs.entrySet()) {
+        entry.setValue(visitor.subst(entry.getValue()));
+      }
+    } else {
+      for (int i = 0; i < mySize; i++) {
+        myValues[i] = visitor.subst(myValues[i]);
+      }
     }
   }
 
   public String toString() {
-    return mySubstExprs.toString();
+    return toMap().toString();
   }
-}
\ No newline at end of file
+}
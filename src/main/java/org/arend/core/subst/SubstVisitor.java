@@ -20,10 +20,16 @@ import java.util.Map;
 public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   private final ExprSubstitution myExprSubstitution;
   private final LevelSubstitution myLevelSubstitution;
+  private final boolean myCopy;
 
+  /**
+   * If both substitutions are empty, the visitor copies an expression.
+   * Otherwise, subexpressions that are not affected by the substitutions are shared by the result.
+   */
   public SubstVisitor(ExprSubstitution exprSubstitution, LevelSubstitution levelSubstitution) {
     myExprSubstitution = exprSubstitution;
     myLevelSubstitution = levelSubstitution;
+    myCopy = exprSubstitution.isEmpty() && levelSubstitution.isEmpty();
   }
 
   public ExprSubstitution getExprSubstitution() {
@@ -38,16 +44,27 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
     return myExprSubstitution.isEmpty() && myLevelSubstitution.isEmpty();
   }
 
+  /**
+   * @return true if {@code expr} does not change under the substitution, so it can be shared.
+   */
+  public boolean isUnaffected(Expression expr) {
+    return !myCopy && (myExprSubstitution.isEmpty() || expr.isClosed()) && (myLevelSubstitution.isEmpty() || !expr.hasLevelVariables());
+  }
+
+  public Expression subst(Expression expr) {
+    return isUnaffected(expr) ? expr : expr.accept(this, null);
+  }
+
   @Override
   public Expression visitApp(AppExpression expr, Void params) {
-    return AppExpression.make(expr.getFunction().accept(this, null), expr.getArgument().accept(this, null));
+    return AppExpression.make(subst(expr.getFunction()), subst(expr.getArgument()));
   }
 
   @Override
   public Expression visitDefCall(DefCallExpression expr, Void params) {
     List<Expression> args = new ArrayList<>(expr.getDefCallArguments().size());
     for (Expression arg : expr.getDefCallArguments()) {
-      args.add(arg.accept(this, null));
+      args.add(subst(arg));
     }
     return expr.getDefinition().getDefCall(expr.getSortArgument().subst(myLevelSubstitution), args);
   }
@@ -61,12 +78,12 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   public Expression visitConCall(ConCallExpression expr, Void params) {
     List<Expression> dataTypeArgs = new ArrayList<>(expr.getDataTypeArguments().size());
     for (Expression parameter : expr.getDataTypeArguments()) {
-      dataTypeArgs.add(parameter.accept(this, null));
+      dataTypeArgs.add(subst(parameter));
     }
 
     List<Expression> args = new ArrayList<>(expr.getDefCallArguments().size());
     for (Expression arg : expr.getDefCallArguments()) {
-      args.add(arg.accept(this, null));
+      args.add(subst(arg));
     }
 
     return ConCallExpression.make(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution), dataTypeArgs, args);
@@ -76,7 +93,7 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   public ClassCallExpression visitClassCall(ClassCallExpression expr, Void params) {
     Map<ClassField, Expression> fieldSet = new HashMap<>();
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
-      fieldSet.put(entry.getKey(), entry.getValue().accept(this, null));
+      fieldSet.put(entry.getKey(), subst(entry.getValue()));
     }
     return new ClassCallExpression(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution), fieldSet, expr.getSort().subst(myLevelSubstitution), expr.hasUniverses());
   }
@@ -85,9 +102,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   public Expression visitFieldCall(FieldCallExpression expr, Void params) {
     Expression result = myExprSubstitution.get(expr.getDefinition());
     if (result != null) {
-      return AppExpression.make(result, expr.getArgument().accept(this, null));
+      return AppExpression.make(result, subst(expr.getArgument()));
     } else {
-      return FieldCallExpression.make(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution), expr.getArgument().accept(this, null));
+      return FieldCallExpression.make(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution), subst(expr.getArgument()));
     }
   }
 
@@ -106,21 +123,22 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   @Override
   public Expression visitInferenceReference(InferenceReferenceExpression expr, Void params) {
     if (expr.getSubstExpression() != null) {
-      return expr.getSubstExpression().accept(this, null);
+      return subst(expr.getSubstExpression());
     }
     Expression result = myExprSubstitution.get(expr.getVariable());
     if (result != null) {
       return result;
     }
-    //noinspection SuspiciousMethodCalls
-    expr.getVariable().getBounds().removeAll(myExprSubstitution.getKeys());
+    if (!expr.getVariable().getBounds().isEmpty()) {
+      myExprSubstitution.removeKeysFrom(expr.getVariable().getBounds());
+    }
     return expr;
   }
 
   @Override
   public LamExpression visitLam(LamExpression expr, Void params) {
     SingleDependentLink parameters = DependentLink.Helper.subst(expr.getParameters(), this);
-    LamExpression result = new LamExpression(expr.getResultSort().subst(myLevelSubstitution), parameters, expr.getBody().accept(this, null));
+    LamExpression result = new LamExpression(expr.getResultSort().subst(myLevelSubstitution), parameters, subst(expr.getBody()));
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
     return result;
   }
@@ -128,7 +146,7 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   @Override
   public PiExpression visitPi(PiExpression expr, Void params) {
     SingleDependentLink parameters = DependentLink.Helper.subst(expr.getParameters(), this);
-    PiExpression result = new PiExpression(expr.getResultSort().subst(myLevelSubstitution), parameters, expr.getCodomain().accept(this, null));
+    PiExpression result = new PiExpression(expr.getResultSort().subst(myLevelSubstitution), parameters, subst(expr.getCodomain()));
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
     return result;
   }
@@ -147,21 +165,21 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitError(ErrorExpression expr, Void params) {
-    return expr.getExpression() == null ? expr : new ErrorExpression(expr.getExpression().accept(this, null), expr.getError());
+    return expr.getExpression() == null ? expr : new ErrorExpression(subst(expr.getExpression()), expr.getError());
   }
 
   @Override
   public TupleExpression visitTuple(TupleExpression expr, Void params) {
     List<Expression> fields = new ArrayList<>(expr.getFields().size());
     for (Expression field : expr.getFields()) {
-      fields.add(field.accept(this, null));
+      fields.add(subst(field));
     }
     return new TupleExpression(fields, visitSigma(expr.getSigmaType(), null));
   }
 
   @Override
   public Expression visitProj(ProjExpression expr, Void params) {
-    return ProjExpression.make(expr.getExpression().accept(this, null), expr.getField());
+    return ProjExpression.make(subst(expr.getExpression()), expr.getField());
   }
 
   @Override
@@ -173,11 +191,11 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   public LetExpression visitLet(LetExpression letExpression, Void params) {
     List<LetClause> clauses = new ArrayList<>(letExpression.getClauses().size());
     for (LetClause clause : letExpression.getClauses()) {
-      LetClause newClause = new LetClause(clause.getName(), clause.getPattern(), clause.getExpression().accept(this, null));
+      LetClause newClause = new LetClause(clause.getName(), clause.getPattern(), subst(clause.getExpression()));
       clauses.add(newClause);
       myExprSubstitution.add(clause, new ReferenceExpression(newClause));
     }
-    LetExpression result = new LetExpression(letExpression.isStrict(), clauses, letExpression.getExpression().accept(this, null));
+    LetExpression result = new LetExpression(letExpression.isStrict(), clauses, subst(letExpression.getExpression()));
     letExpression.getClauses().forEach(myExprSubstitution::remove);
     return result;
   }
@@ -186,12 +204,12 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   public Expression visitCase(CaseExpression expr, Void params) {
     List<Expression> arguments = new ArrayList<>(expr.getArguments().size());
     for (Expression arg : expr.getArguments()) {
-      arguments.add(arg.accept(this, null));
+      arguments.add(subst(arg));
     }
 
     DependentLink parameters = DependentLink.Helper.subst(expr.getParameters(), this);
-    Expression type = expr.getResultType().accept(this, null);
-    Expression typeLevel = expr.getResultTypeLevel() == null ? null : expr.getResultTypeLevel().accept(this, null);
+    Expression type = subst(expr.getResultType());
+    Expression typeLevel = expr.getResultTypeLevel() == null ? null : subst(expr.getResultTypeLevel());
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
     return new CaseExpression(parameters, type, typeLevel, substElimTree(expr.getElimTree()), arguments);
   }
@@ -199,7 +217,7 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   public ElimTree substElimTree(ElimTree elimTree) {
     DependentLink vars = DependentLink.Helper.subst(elimTree.getParameters(), this);
     if (elimTree instanceof LeafElimTree) {
-      elimTree = new LeafElimTree(vars, ((LeafElimTree) elimTree).getExpression().accept(this, null));
+      elimTree = new LeafElimTree(vars, subst(((LeafElimTree) elimTree).getExpression()));
     } else {
       Map<Constructor, ElimTree> children = new HashMap<>();
       for (Map.Entry<Constructor, ElimTree> entry : ((BranchElimTree) elimTree).getChildren()) {
@@ -213,7 +231,7 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitOfType(OfTypeExpression expr, Void params) {
-    return new OfTypeExpression(expr.getExpression().accept(this, null), expr.getTypeOf().accept(this, null));
+    return new OfTypeExpression(subst(expr.getExpression()), subst(expr.getTypeOf()));
   }
 
   @Override
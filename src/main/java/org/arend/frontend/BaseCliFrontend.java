@@ -2,9 +2,13 @@ package org.arend.frontend;
 
 import org.apache.commons.cli.*;
 import org.arend.core.definition.Definition;
+import org.arend.core.expr.ExpressionInterner;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.expr.visitor.WHNFCache;
 import org.arend.error.Error;
 import org.arend.error.GeneralError;
 import org.arend.error.ListErrorReporter;
+import org.arend.frontend.library.BuildCache;
 import org.arend.frontend.library.FileSourceLibrary;
 import org.arend.library.*;
 import org.arend.library.error.LibraryError;
@@ -12,13 +16,27 @@ import org.arend.module.ModulePath;
 import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.TCReferable;
 import org.arend.prelude.PreludeResourceLibrary;
-import org.arend.typechecking.SimpleTypecheckerState;
+import org.arend.typechecking.ConcurrentTypecheckerState;
+import org.arend.typechecking.LazyTypecheckerState;
 import org.arend.typechecking.TypecheckerState;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.arend.typechecking.order.dependency.SynchronizedDependencyListener;
 import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.typechecking.profile.TypecheckingProfiler;
 import org.arend.util.FileUtils;
 
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -26,30 +44,74 @@ import java.nio.file.Paths;
 import java.util.*;
 
 public abstract class BaseCliFrontend {
+  // Output
+  // The daemon replaces these streams with the stream of a client while it processes its request
+  private volatile PrintStream myOut = System.out;
+  private volatile PrintStream myErr = System.err;
+
   // Typechecking
-  private final TypecheckerState myTypecheckerState = new SimpleTypecheckerState();
+  private final TypecheckerState myTypecheckerState = new LazyTypecheckerState(new ConcurrentTypecheckerState());
   private final ListErrorReporter myErrorReporter = new ListErrorReporter();
   private final Map<ModulePath, Error.Level> myModuleResults = new LinkedHashMap<>();
 
   // Libraries
-  private final FileLibraryResolver myLibraryResolver = new FileLibraryResolver(new ArrayList<>(), myTypecheckerState, System.err::println);
+  private final FileLibraryResolver myLibraryResolver = new FileLibraryResolver(new ArrayList<>(), myTypecheckerState, error -> myErr.println(error));
   private final LibraryManager myLibraryManager = new MyLibraryManager();
+  private boolean myPersistIndexed;
+  private boolean myMapBinaryFiles;
+  private int myNumberOfThreads = 1;
+  private BuildCache myBuildCache;
+
+  // Requests
+  private boolean myScanSourceDir;
+  private Path mySourceDir;
+  private Path myOutDir;
+  private List<LibraryDependency> myLibraryDependencies = Collections.emptyList();
+  private FileSourceLibrary myDefaultLibrary;
+  private boolean myRecompile;
+  private boolean myStreamPersist;
+  private boolean myBackgroundPersist;
+  private boolean myWHNFCache;
+  private NormalizeVisitor.Engine myNormalizationEngine = NormalizeVisitor.Engine.SUBSTITUTION;
+  private long myStepLimit;
+  private TypecheckingProfiler myProfiler;
+  private String myProfileFile;
+
+  // Daemon
+  public static final String DAEMON_READY = "[INFO] Ready";
+  public static final String DAEMON_EXIT = "exit";
+  private DependencyListener myDependencyListener;
 
   private class MyLibraryManager extends LibraryManager {
     MyLibraryManager() {
-      super(myLibraryResolver, new InstanceProviderSet(), myErrorReporter, System.err::println);
+      super(myLibraryResolver, new InstanceProviderSet(), myErrorReporter, error -> myErr.println(error));
     }
 
     @Override
     protected void beforeLibraryLoading(Library library) {
-      System.out.println("[INFO] Loading library " + library.getName());
+      if (library instanceof SourceLibrary) {
+        if (myPersistIndexed) {
+          ((SourceLibrary) library).addFlag(SourceLibrary.Flag.PERSIST_INDEXED);
+        }
+        if (myMapBinaryFiles) {
+          ((SourceLibrary) library).addFlag(SourceLibrary.Flag.MAP_BINARY_FILES);
+        }
+        ((SourceLibrary) library).setNumberOfLoadingThreads(myNumberOfThreads);
+      }
+      if (library instanceof FileSourceLibrary) {
+        ((FileSourceLibrary) library).setBuildCache(myBuildCache);
+        if (myDependencyListener != null) {
+          ((FileSourceLibrary) library).setDependencyListener(myDependencyListener);
+        }
+      }
+      myOut.println("[INFO] Loading library " + library.getName());
     }
 
     @Override
     protected void afterLibraryLoading(Library library, boolean successful) {
       flushErrors();
-      System.err.flush();
-      System.out.println("[INFO] " + (successful ? "Loaded " : "Failed loading ") + "library " + library.getName());
+      myErr.flush();
+      myOut.println("[INFO] " + (successful ? "Loaded " : "Failed loading ") + "library " + library.getName());
     }
   }
 
@@ -63,18 +125,34 @@ public abstract class BaseCliFrontend {
 
 
   private class MyTypechecking extends TypecheckingOrderingListener {
-    MyTypechecking() {
-      super(myLibraryManager.getInstanceProviderSet(), myTypecheckerState, ConcreteReferableProvider.INSTANCE, myErrorReporter, PositionComparator.INSTANCE);
+    private final boolean myParallel;
+    private final StreamingModulePersister myPersister;
+
+    MyTypechecking(boolean parallel, @Nullable StreamingModulePersister persister) {
+      // In the parallel mode, errors are reported from the main thread in a deterministic order, so we flush them right away
+      super(myLibraryManager.getInstanceProviderSet(), myTypecheckerState, ConcreteReferableProvider.INSTANCE, parallel ? error -> { myErrorReporter.report(error); flushErrors(); } : myErrorReporter, myDependencyListener == null ? DummyDependencyListener.INSTANCE : myDependencyListener, PositionComparator.INSTANCE);
+      myParallel = parallel;
+      myPersister = persister;
     }
 
     @Override
     public void typecheckingBodyFinished(TCReferable referable, Definition definition) {
-      flushErrors();
+      if (!myParallel) {
+        flushErrors();
+      }
+      if (myPersister != null) {
+        myPersister.definitionTypechecked(referable);
+      }
     }
 
     @Override
     public void typecheckingUnitFinished(TCReferable referable, Definition definition) {
-      flushErrors();
+      if (!myParallel) {
+        flushErrors();
+      }
+      if (myPersister != null) {
+        myPersister.definitionTypechecked(referable);
+      }
     }
   }
 
@@ -87,6 +165,23 @@ public abstract class BaseCliFrontend {
       cmdOptions.addOption(Option.builder("s").longOpt("source").hasArg().argName("srcdir").desc("project source directory").build());
       cmdOptions.addOption(Option.builder("o").longOpt("output").hasArg().argName("outdir").desc("project output directory").build());
       cmdOptions.addOption(Option.builder().longOpt("recompile").desc("recompile files").build());
+      cmdOptions.addOption(Option.builder().longOpt("stream-persist").desc("persist every module as soon as it is typechecked").build());
+      cmdOptions.addOption(Option.builder().longOpt("background-persist").desc("persist every module as soon as it is typechecked on a separate thread").build());
+      cmdOptions.addOption(Option.builder().longOpt("whnf-cache").desc("cache weak head normal forms during typechecking").build());
+      cmdOptions.addOption(Option.builder().longOpt("cache").hasArg().argName("dir").desc("directory of the build cache").build());
+      cmdOptions.addOption(Option.builder().longOpt("indexed").desc("persist modules in the indexed format which is loaded lazily").build());
+      cmdOptions.addOption(Option.builder().longOpt("mmap").desc("memory-map binary files in the indexed format instead of reading them (mapped files may stay locked on Windows)").build());
+      cmdOptions.addOption(Option.builder().longOpt("intern").desc("share identical closed expressions loaded from binary files").build());
+      cmdOptions.addOption(Option.builder().longOpt("normalization").hasArg().argName("engine").desc("normalization engine: substitution (default) or closure").build());
+      cmdOptions.addOption(Option.builder().longOpt("step-limit").hasArg().argName("num").desc("maximal number of computation steps per definition").build());
+      cmdOptions.addOption(Option.builder().longOpt("profile").desc("print definitions which take the most time to typecheck and statistics of the module scope cache").build());
+      cmdOptions.addOption(Option.builder().longOpt("profile-file").hasArg().argName("file").desc("save typechecking statistics of all definitions to a JSON or CSV file").build());
+      cmdOptions.addOption(Option.builder().longOpt("daemon").desc("keep running and typecheck modules and libraries read from the standard input, one request per line").build());
+      cmdOptions.addOption(Option.builder().longOpt("port").hasArg().argName("num").desc("run as a daemon which reads requests from local connections to the given port").build());
+      cmdOptions.addOption(Option.builder().longOpt("watch").desc("typecheck modules again whenever source files of requested libraries change (dependencies are not watched)").build());
+      cmdOptions.addOption(Option.builder().longOpt("generate").hasArg().argName("dir").desc("generate a synthetic library in the given directory and exit").build());
+      cmdOptions.addOption(Option.builder("G").hasArgs().valueSeparator('=').argName("param=value").desc("parameter of the generated library: modules, imports, definitions, depth, mutual, classes, instances, or seed").build());
+      cmdOptions.addOption(Option.builder("t").longOpt("threads").hasArg().argName("num").desc("number of threads used for loading and typechecking").build());
       addCommandOptions(cmdOptions);
       CommandLine cmdLine = new DefaultParser().parse(cmdOptions, args);
 
@@ -97,7 +192,7 @@ public abstract class BaseCliFrontend {
         return cmdLine;
       }
     } catch (ParseException e) {
-      System.err.println(e.getMessage());
+      myErr.println(e.getMessage());
       return null;
     }
   }
@@ -110,6 +205,62 @@ public abstract class BaseCliFrontend {
       return null;
     }
 
+    String generateDirStr = cmdLine.getOptionValue("generate");
+    if (generateDirStr != null) {
+      generateLibrary(Paths.get(generateDirStr), cmdLine.getOptionProperties("G"));
+      return cmdLine;
+    }
+
+    myPersistIndexed = cmdLine.hasOption("indexed");
+    myMapBinaryFiles = cmdLine.hasOption("mmap");
+    String cacheDirStr = cmdLine.getOptionValue("cache");
+    if (cacheDirStr != null) {
+      myBuildCache = new BuildCache(Paths.get(cacheDirStr));
+    }
+    myNumberOfThreads = 1;
+    String threadsStr = cmdLine.getOptionValue("t");
+    if (threadsStr != null) {
+      try {
+        myNumberOfThreads = Integer.parseInt(threadsStr);
+      } catch (NumberFormatException e) {
+        myNumberOfThreads = 0;
+      }
+      if (myNumberOfThreads <= 0) {
+        myErr.println("[ERROR] " + threadsStr + " is not a valid number of threads");
+        myNumberOfThreads = 1;
+      }
+    }
+    long stepLimit = 0;
+    String stepLimitStr = cmdLine.getOptionValue("step-limit");
+    if (stepLimitStr != null) {
+      try {
+        stepLimit = Long.parseLong(stepLimitStr);
+      } catch (NumberFormatException e) {
+        stepLimit = -1;
+      }
+      if (stepLimit <= 0) {
+        myErr.println("[ERROR] " + stepLimitStr + " is not a valid number of steps");
+        stepLimit = 0;
+      }
+    }
+    if (cmdLine.hasOption("intern")) {
+      ExpressionInterner.setInstance(new ExpressionInterner());
+    }
+
+    String engineStr = cmdLine.getOptionValue("normalization");
+    if (engineStr != null) {
+      try {
+        myNormalizationEngine = NormalizeVisitor.Engine.valueOf(engineStr.toUpperCase());
+      } catch (IllegalArgumentException e) {
+        myErr.println("[ERROR] Unknown normalization engine: " + engineStr);
+      }
+    }
+
+    myProfiler = cmdLine.hasOption("profile") || cmdLine.hasOption("profile-file") ? new TypecheckingProfiler() : null;
+    if (cmdLine.hasOption("daemon") || cmdLine.hasOption("port") || cmdLine.hasOption("watch")) {
+      myDependencyListener = new SynchronizedDependencyListener(new DependencyCollector(myTypecheckerState));
+    }
+
     if (!myLibraryManager.loadLibrary(new PreludeResourceLibrary(myTypecheckerState))) {
       return null;
     }
@@ -122,7 +273,7 @@ public abstract class BaseCliFrontend {
         if (Files.isDirectory(libDir)) {
           myLibraryResolver.addLibraryDirectory(libDir);
         } else {
-          System.err.println("[ERROR] " + libDir + " is not a directory");
+          myErr.println("[ERROR] " + libDir + " is not a directory");
         }
       }
     }
@@ -135,26 +286,67 @@ public abstract class BaseCliFrontend {
         if (FileUtils.isLibraryName(libString)) {
           libraryDependencies.add(new LibraryDependency(libString));
         } else {
-          System.err.println(LibraryError.illegalName(libString));
+          myErr.println(LibraryError.illegalName(libString));
         }
       }
     }
 
     // Get source and output directories
     String sourceDirStr = cmdLine.getOptionValue("s");
-    Path sourceDir = sourceDirStr == null ? FileUtils.getCurrentDirectory() : Paths.get(sourceDirStr);
+    myScanSourceDir = sourceDirStr != null;
+    mySourceDir = sourceDirStr == null ? FileUtils.getCurrentDirectory() : Paths.get(sourceDirStr);
 
     String binaryDirStr = cmdLine.getOptionValue("o");
-    Path outDir = binaryDirStr != null ? Paths.get(binaryDirStr) : sourceDir.resolve(".bin");
+    myOutDir = binaryDirStr != null ? Paths.get(binaryDirStr) : mySourceDir.resolve(".bin");
+    myLibraryDependencies = libraryDependencies;
+
+    myRecompile = cmdLine.hasOption("recompile");
+    myBackgroundPersist = cmdLine.hasOption("background-persist");
+    myStreamPersist = myBackgroundPersist || cmdLine.hasOption("stream-persist");
+    myWHNFCache = cmdLine.hasOption("whnf-cache");
+    myStepLimit = stepLimit;
+    myProfileFile = cmdLine.getOptionValue("profile-file");
+
+    if (cmdLine.hasOption("watch")) {
+      runWatch(cmdLine.getArgList());
+    } else if (myDependencyListener != null) {
+      runDaemon(cmdLine);
+    } else {
+      processRequest(cmdLine.getArgList());
+    }
+    return cmdLine;
+  }
+
+  private void generateLibrary(Path directory, Properties parameters) {
+    LibraryGenerator generator = new LibraryGenerator();
+    for (String parameter : parameters.stringPropertyNames()) {
+      if (!generator.setParameter(parameter, parameters.getProperty(parameter))) {
+        myErr.println("[ERROR] Invalid generator parameter: " + parameter + "=" + parameters.getProperty(parameter));
+      }
+    }
 
+    String name = LibraryGenerator.getDefaultName(directory);
+    if (!FileUtils.isLibraryName(name)) {
+      myErr.println(LibraryError.illegalName(name));
+      return;
+    }
+
+    try {
+      generator.generate(directory, name);
+      myOut.println("[INFO] Generated library " + name + " in " + directory);
+    } catch (IOException e) {
+      myErr.println("[ERROR] Cannot generate library: " + e.getLocalizedMessage());
+    }
+  }
+
+  private List<UnmodifiableSourceLibrary> getRequestedLibraries(Collection<String> argFiles) {
     // Collect modules and libraries for which typechecking was requested
-    Collection<String> argFiles = cmdLine.getArgList();
     Set<ModulePath> requestedModules;
     List<UnmodifiableSourceLibrary> requestedLibraries = new ArrayList<>();
     if (argFiles.isEmpty()) {
-      if (sourceDirStr != null) {
+      if (myScanSourceDir) {
         requestedModules = new LinkedHashSet<>();
-        FileUtils.getModules(sourceDir, FileUtils.EXTENSION, requestedModules, myLibraryManager.getLibraryErrorReporter());
+        FileUtils.getModules(mySourceDir, FileUtils.EXTENSION, requestedModules, myLibraryManager.getLibraryErrorReporter());
       } else {
         requestedModules = Collections.emptySet();
       }
@@ -184,69 +376,279 @@ public abstract class BaseCliFrontend {
       }
     }
     if (!requestedModules.isEmpty()) {
-      try {
-        Files.createDirectories(outDir);
-      } catch (IOException e) {
-        e.printStackTrace();
-        outDir = null;
-      }
-      requestedLibraries.add(new FileSourceLibrary("\\default", sourceDir, outDir, requestedModules, argFiles.isEmpty(), libraryDependencies, myTypecheckerState));
+      requestedLibraries.add(getDefaultLibrary(requestedModules, argFiles.isEmpty()));
     }
+    return requestedLibraries;
+  }
+
+  private FileSourceLibrary getDefaultLibrary(Set<ModulePath> modules, boolean isComplete) {
+    // The daemon keeps the library if the same modules are requested again
+    if (myDefaultLibrary != null && myDefaultLibrary.isComplete() == isComplete && myDefaultLibrary.getModules().equals(modules)) {
+      return myDefaultLibrary;
+    }
+    if (myDefaultLibrary != null && myLibraryManager.isRegistered(myDefaultLibrary)) {
+      myLibraryManager.unloadLibrary(myDefaultLibrary);
+    }
+
+    Path outDir = myOutDir;
+    try {
+      Files.createDirectories(outDir);
+    } catch (IOException e) {
+      e.printStackTrace(myErr);
+      outDir = null;
+    }
+    myDefaultLibrary = new FileSourceLibrary("\\default", mySourceDir, outDir, modules, isComplete, myLibraryDependencies, myTypecheckerState);
+    return myDefaultLibrary;
+  }
+
+  /**
+   * @return requested libraries.
+   */
+  private List<UnmodifiableSourceLibrary> processRequest(Collection<String> argFiles) {
+    List<UnmodifiableSourceLibrary> requestedLibraries = getRequestedLibraries(argFiles);
 
     // Load and typecheck libraries
     if (requestedLibraries.isEmpty()) {
-      System.out.println("Nothing to load");
-      return cmdLine;
+      myOut.println("Nothing to load");
+      return requestedLibraries;
+    }
+
+    if (myProfiler != null) {
+      myProfiler.clear();
     }
 
-    boolean recompile = cmdLine.hasOption("recompile");
     for (UnmodifiableSourceLibrary library : requestedLibraries) {
-      myModuleResults.clear();
-      if (recompile) {
-        library.addFlag(SourceLibrary.Flag.RECOMPILE);
+      typecheckLibrary(library);
+    }
+
+    if (myBuildCache != null) {
+      myOut.println("[INFO] Build cache: " + myBuildCache.getHits() + " hits, " + myBuildCache.getMisses() + " misses");
+    }
+
+    if (myProfiler != null) {
+      myOut.println("[INFO] Module scope cache " + myLibraryManager.getModuleScopeCacheStatistics());
+      ProfileReport report = new ProfileReport(myProfiler.getProfiles());
+      myOut.println("[INFO] Most expensive definitions:");
+      report.print(myOut, ProfileReport.DEFAULT_TOP);
+      if (myProfileFile != null) {
+        try {
+          report.save(Paths.get(myProfileFile));
+          myOut.println("[INFO] Saved profile to " + myProfileFile);
+        } catch (IOException e) {
+          myErr.println("[ERROR] Cannot save profile: " + e.getLocalizedMessage());
+        }
       }
-      if (!myLibraryManager.loadLibrary(library)) {
-        continue;
+    }
+
+    return requestedLibraries;
+  }
+
+  private void typecheckLibrary(UnmodifiableSourceLibrary library) {
+    myModuleResults.clear();
+    if (myRecompile) {
+      library.addFlag(SourceLibrary.Flag.RECOMPILE);
+    }
+    if (myDependencyListener != null && myLibraryManager.isRegistered(library)) {
+      reloadModifiedModules(library);
+    }
+    if (!myLibraryManager.loadLibrary(library)) {
+      return;
+    }
+
+    if (!library.needsTypechecking()) {
+      if (myDependencyListener != null) {
+        myOut.println("[INFO] Library " + library.getName() + " is up to date");
       }
+      return;
+    }
+
+    myOut.println("--- Typechecking " + library.getName() + " ---");
+    Collection<? extends ModulePath> modules = library.getUpdatedModules();
+    // The persister may report errors from another thread, so it gets the stream of the current request
+    StreamingModulePersister persister = myStreamPersist && library.supportsPersisting() ? new StreamingModulePersister(library, ConcreteReferableProvider.INSTANCE, myErr::println, myBackgroundPersist) : null;
+    MyTypechecking typechecking = new MyTypechecking(myNumberOfThreads > 1, persister);
+    if (myWHNFCache) {
+      typechecking.enableWHNFCache(WHNFCache.DEFAULT_CAPACITY);
+    }
+    typechecking.setComputationLimit(myStepLimit);
+    typechecking.setNormalizationEngine(myNormalizationEngine);
+    typechecking.setProfiler(myProfiler);
+    typechecking.typecheckLibrary(library, myNumberOfThreads);
+    flushErrors();
+    if (typechecking.getWHNFCacheStatistics() != null) {
+      myOut.println("[INFO] WHNF cache " + typechecking.getWHNFCacheStatistics());
+    }
 
-      if (!library.needsTypechecking()) {
-        continue;
+    // Output nice per-module typechecking results
+    int numWithErrors = 0;
+    int numWithGoals = 0;
+    for (ModulePath module : modules) {
+      Error.Level result = myModuleResults.get(module);
+      if (result == null && library.getModuleGroup(module) == null) {
+        result = Error.Level.ERROR;
       }
+      reportTypeCheckResult(module, result);
+      if (result == Error.Level.ERROR) numWithErrors++;
+      if (result == Error.Level.GOAL) numWithGoals++;
+    }
+
+    if (numWithErrors > 0) {
+      myOut.println("Number of modules with errors: " + numWithErrors);
+    }
+    if (numWithGoals > 0) {
+      myOut.println("Number of modules with goals: " + numWithGoals);
+    }
+    myOut.println("--- Done ---");
+
+    // Persist updated modules
+    if (persister != null) {
+      persister.finish();
+    } else if (library.supportsPersisting()) {
+      library.persistUpdateModules(myErr::println);
+      library.clearUpdateModules();
+    }
+  }
 
-      System.out.println("--- Typechecking " + library.getName() + " ---");
-      Collection<? extends ModulePath> modules = library.getUpdatedModules();
-      new MyTypechecking().typecheckLibrary(library);
+  /**
+   * Reloads modules of a loaded library which were modified since the last request together with modules that depend on them.
+   * If modules were added to or removed from the library, it is unloaded, so that it is loaded again from scratch.
+   */
+  private void reloadModifiedModules(UnmodifiableSourceLibrary library) {
+    if (!(library instanceof FileSourceLibrary)) {
+      return;
+    }
+
+    Set<ModulePath> modifiedModules = ((FileSourceLibrary) library).getModifiedModules();
+    if (modifiedModules == null) {
+      myOut.println("[INFO] Modules of library " + library.getName() + " were added or removed, reloading it");
+      myLibraryManager.unloadLibrary(library);
+    } else if (!modifiedModules.isEmpty()) {
+      Set<ModulePath> reloadedModules = library.reloadModules(myLibraryManager, modifiedModules);
       flushErrors();
+      myOut.println("[INFO] Reloaded " + reloadedModules.size() + " module" + (reloadedModules.size() == 1 ? "" : "s") + " of library " + library.getName());
+    }
+  }
 
-      // Output nice per-module typechecking results
-      int numWithErrors = 0;
-      int numWithGoals = 0;
-      for (ModulePath module : modules) {
-        Error.Level result = myModuleResults.get(module);
-        if (result == null && library.getModuleGroup(module) == null) {
-          result = Error.Level.ERROR;
+  /**
+   * Typechecks requested modules and libraries again whenever their source files change.
+   * Only modified modules and modules that depend on them are reloaded and typechecked (see {@link #reloadModifiedModules}).
+   */
+  private void runWatch(Collection<String> request) {
+    try (SourceWatcher watcher = new SourceWatcher()) {
+      do {
+        List<UnmodifiableSourceLibrary> libraries;
+        try {
+          libraries = processRequest(request);
+        } catch (Exception e) {
+          // Watching continues, so that the error can be fixed
+          myErr.println("[ERROR] Request failed: " + e);
+          libraries = Collections.emptyList();
         }
-        reportTypeCheckResult(module, result);
-        if (result == Error.Level.ERROR) numWithErrors++;
-        if (result == Error.Level.GOAL) numWithGoals++;
-      }
 
-      if (numWithErrors > 0) {
-        System.out.println("Number of modules with errors: " + numWithErrors);
-      }
-      if (numWithGoals > 0) {
-        System.out.println("Number of modules with goals: " + numWithGoals);
+        for (UnmodifiableSourceLibrary library : libraries) {
+          if (library instanceof FileSourceLibrary && ((FileSourceLibrary) library).getSourceBasePath() != null) {
+            try {
+              watcher.register(((FileSourceLibrary) library).getSourceBasePath());
+            } catch (IOException e) {
+              myErr.println("[ERROR] Cannot watch library " + library.getName() + ": " + e.getLocalizedMessage());
+            }
+          }
+        }
+        flushErrors();
+        myOut.println("[INFO] Watching for changes");
+      } while (watcher.waitForChanges());
+    } catch (IOException e) {
+      myErr.println("[ERROR] Cannot watch source files: " + e.getLocalizedMessage());
+    }
+  }
+
+  private void runDaemon(CommandLine cmdLine) {
+    List<String> request = cmdLine.getArgList();
+    processRequest(request);
+
+    String portStr = cmdLine.getOptionValue("port");
+    if (portStr == null) {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+      while (true) {
+        myOut.println(DAEMON_READY);
+        myOut.flush();
+        String line;
+        try {
+          line = reader.readLine();
+        } catch (IOException e) {
+          myErr.println("[ERROR] Cannot read request: " + e.getLocalizedMessage());
+          return;
+        }
+        if (line == null || line.trim().equals(DAEMON_EXIT)) {
+          return;
+        }
+        request = handleRequest(line, request);
       }
-      System.out.println("--- Done ---");
+    }
 
-      // Persist updated modules
-      if (library.supportsPersisting()) {
-        library.persistUpdateModules(System.err::println);
-        library.clearUpdateModules();
+    int port;
+    try {
+      port = Integer.parseInt(portStr);
+    } catch (NumberFormatException e) {
+      port = -1;
+    }
+    if (port < 0 || port > 65535) {
+      myErr.println("[ERROR] " + portStr + " is not a valid port");
+      return;
+    }
+
+    try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+      myOut.println("[INFO] Listening on port " + serverSocket.getLocalPort());
+      while (true) {
+        try (Socket socket = serverSocket.accept()) {
+          String line = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+          if (line == null) {
+            continue;
+          }
+          if (line.trim().equals(DAEMON_EXIT)) {
+            return;
+          }
+
+          // The output of the request is sent to the client
+          PrintStream stream = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+          PrintStream out = myOut;
+          PrintStream err = myErr;
+          myOut = stream;
+          myErr = stream;
+          try {
+            request = handleRequest(line, request);
+          } finally {
+            myOut = out;
+            myErr = err;
+            stream.flush();
+          }
+        } catch (IOException e) {
+          myErr.println("[ERROR] " + e.getLocalizedMessage());
+        }
       }
+    } catch (IOException e) {
+      myErr.println("[ERROR] Cannot listen on port " + portStr + ": " + e.getLocalizedMessage());
     }
+  }
 
-    return cmdLine;
+  /**
+   * Processes a request of the daemon which consists of modules and libraries separated by spaces.
+   * An empty request repeats the previous one.
+   *
+   * @return the arguments of the processed request.
+   */
+  private List<String> handleRequest(String line, List<String> previousRequest) {
+    String trimmed = line.trim();
+    List<String> request = trimmed.isEmpty() ? previousRequest : Arrays.asList(trimmed.split("\\s+"));
+    try {
+      processRequest(request);
+    } catch (Exception e) {
+      // The daemon keeps running even if some request fails
+      myErr.println("[ERROR] Request failed: " + e);
+    }
+    flushErrors();
+    myErr.flush();
+    return request;
   }
 
   private void flushErrors() {
@@ -258,10 +660,10 @@ public abstract class BaseCliFrontend {
       });
 
       if (error.isSevere()) {
-        System.err.println(error);
-        System.err.flush();
+        myErr.println(error);
+        myErr.flush();
       } else {
-        System.out.println(error);
+        myOut.println(error);
       }
     }
     myErrorReporter.getErrorList().clear();
@@ -275,7 +677,7 @@ public abstract class BaseCliFrontend {
   }
 
   private void reportTypeCheckResult(ModulePath modulePath, Error.Level result) {
-    System.out.println("[" + resultChar(result) + "]" + " " + modulePath);
+    myOut.println("[" + resultChar(result) + "]" + " " + modulePath);
   }
 
   private static char resultChar(Error.Level result) {
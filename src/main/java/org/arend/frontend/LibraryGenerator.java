@@ -0,0 +1,287 @@
+package org.arend.frontend;
+
+import org.apache.commons.cli.*;
+import org.arend.library.LibraryConfig;
+import org.arend.module.ModulePath;
+import org.arend.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Generates synthetic libraries for testing how the loading and the typechecking scale.
+ * Module {@code Mi} imports some of the modules {@code M0}, ... {@code M(i-1)} and contains:
+ * <ul>
+ *   <li>functions {@code fi_j} which call each other and functions of imported modules;</li>
+ *   <li>a class {@code Ci} with subclasses {@code Ci_k};</li>
+ *   <li>instances of the subclasses for data types {@code Ti_k_l} and functions {@code usei_k_l} which use them.</li>
+ * </ul>
+ * The result depends only on the parameters and the seed.
+ */
+public class LibraryGenerator {
+  private int myModules = 10;
+  private int myImports = 2;
+  private int myDefinitions = 10;
+  private int myDepth = 2;
+  private int myMutualRecursion = 1;
+  private int myClasses = 0;
+  private int myInstances = 1;
+  private long mySeed = 0;
+
+  private static final List<String> PARAMETERS = Arrays.asList("modules", "imports", "definitions", "depth", "mutual", "classes", "instances", "seed");
+
+  /**
+   * @param modules the number of modules.
+   */
+  public LibraryGenerator setModules(int modules) {
+    myModules = modules;
+    return this;
+  }
+
+  /**
+   * @param imports the maximal number of modules imported by a module.
+   */
+  public LibraryGenerator setImports(int imports) {
+    myImports = imports;
+    return this;
+  }
+
+  /**
+   * @param definitions the number of functions in a module.
+   */
+  public LibraryGenerator setDefinitions(int definitions) {
+    myDefinitions = definitions;
+    return this;
+  }
+
+  /**
+   * @param depth the number of nested calls of other functions in the body of a function.
+   */
+  public LibraryGenerator setDepth(int depth) {
+    myDepth = depth;
+    return this;
+  }
+
+  /**
+   * @param mutualRecursion the number of functions in a group of mutually recursive functions.
+   */
+  public LibraryGenerator setMutualRecursion(int mutualRecursion) {
+    myMutualRecursion = Math.max(mutualRecursion, 1);
+    return this;
+  }
+
+  /**
+   * @param classes the number of subclasses of the class of a module; if it is 0, the module does not contain classes.
+   */
+  public LibraryGenerator setClasses(int classes) {
+    myClasses = classes;
+    return this;
+  }
+
+  /**
+   * @param instances the number of instances of every subclass.
+   */
+  public LibraryGenerator setInstances(int instances) {
+    myInstances = instances;
+    return this;
+  }
+
+  public LibraryGenerator setSeed(long seed) {
+    mySeed = seed;
+    return this;
+  }
+
+  /**
+   * Sets a parameter by the name of its command line option.
+   *
+   * @return false if the parameter is unknown or its value is not a non-negative integer.
+   */
+  public boolean setParameter(String name, String value) {
+    int intValue;
+    try {
+      intValue = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+    if (intValue < 0) {
+      return false;
+    }
+
+    switch (name) {
+      case "modules": setModules(intValue); return true;
+      case "imports": setImports(intValue); return true;
+      case "definitions": setDefinitions(intValue); return true;
+      case "depth": setDepth(intValue); return true;
+      case "mutual": setMutualRecursion(intValue); return true;
+      case "classes": setClasses(intValue); return true;
+      case "instances": setInstances(intValue); return true;
+      case "seed": setSeed(intValue); return true;
+      default: return false;
+    }
+  }
+
+  public static String getDefaultName(Path directory) {
+    Path fileName = directory.toAbsolutePath().getFileName();
+    return fileName == null ? "Generated" : fileName.toString();
+  }
+
+  public static ModulePath getModulePath(int module) {
+    return new ModulePath("M" + module);
+  }
+
+  /**
+   * @return the texts of generated modules in the order in which they depend on each other.
+   */
+  public Map<ModulePath, String> generateModules() {
+    Random random = new Random(mySeed);
+    Map<ModulePath, String> result = new LinkedHashMap<>();
+    for (int i = 0; i < myModules; i++) {
+      result.put(getModulePath(i), generateModule(i, random));
+    }
+    return result;
+  }
+
+  private String generateModule(int module, Random random) {
+    StringBuilder builder = new StringBuilder();
+
+    List<String> functions = new ArrayList<>();
+    List<Integer> modules = new ArrayList<>();
+    for (int i = 0; i < module; i++) {
+      modules.add(i);
+    }
+    Collections.shuffle(modules, random);
+    for (int imported : modules.subList(0, Math.min(myImports, module))) {
+      builder.append("\\import M").append(imported).append("\n");
+      for (int j = 0; j < myDefinitions; j++) {
+        functions.add("f" + imported + "_" + j);
+      }
+    }
+
+    for (int group = 0; group < myDefinitions; group += myMutualRecursion) {
+      int groupSize = Math.min(myMutualRecursion, myDefinitions - group);
+      for (int j = group; j < group + groupSize; j++) {
+        String name = "f" + module + "_" + j;
+        String recursiveCall = "f" + module + "_" + (group + (j - group + 1) % groupSize) + " n";
+        if (builder.length() > 0) {
+          builder.append("\n");
+        }
+        builder.append("\\func ").append(name).append(" (n : Nat) : Nat\n")
+          .append("  | zero => ").append(j).append("\n")
+          .append("  | suc n => suc (").append(generateCalls(functions, recursiveCall, random)).append(")\n");
+      }
+      for (int j = group; j < group + groupSize; j++) {
+        functions.add("f" + module + "_" + j);
+      }
+    }
+
+    if (myClasses > 0) {
+      if (builder.length() > 0) {
+        builder.append("\n");
+      }
+      builder.append("\\class C").append(module).append(" (E : \\Set) | op").append(module).append(" : E -> E -> E\n");
+      for (int k = 0; k < myClasses; k++) {
+        String subclass = "C" + module + "_" + k;
+        builder.append("\n\\class ").append(subclass).append(" \\extends C").append(module).append(" | unit").append(module).append("_").append(k).append(" : E\n");
+        for (int l = 0; l < myInstances; l++) {
+          String suffix = module + "_" + k + "_" + l;
+          builder.append("\\data T").append(suffix).append(" | t").append(suffix).append(" Nat\n")
+            .append("\\instance I").append(suffix).append(" : ").append(subclass).append(" T").append(suffix)
+            .append(" | op").append(module).append(" => \\lam x _ => x | unit").append(module).append("_").append(k).append(" => t").append(suffix).append(" ").append(l).append("\n")
+            .append("\\func use").append(suffix).append(" (x : T").append(suffix).append(") : T").append(suffix).append(" => op").append(module).append(" x unit").append(module).append("_").append(k).append("\n");
+        }
+      }
+    }
+
+    return builder.toString();
+  }
+
+  private String generateCalls(List<String> functions, String expr, Random random) {
+    if (functions.isEmpty()) {
+      return expr;
+    }
+    for (int d = 0; d < myDepth; d++) {
+      expr = functions.get(random.nextInt(functions.size())) + " (" + expr + ")";
+    }
+    return expr;
+  }
+
+  /**
+   * Writes a library to a directory.
+   * Sources are written to subdirectory {@code src} and the header of the library to {@link FileUtils#LIBRARY_CONFIG_FILE}.
+   *
+   * @param directory the directory of the library.
+   * @param name      the name of the library.
+   */
+  public void generate(Path directory, String name) throws IOException {
+    Path sourceDir = directory.resolve("src");
+    List<String> moduleNames = new ArrayList<>();
+    for (Map.Entry<ModulePath, String> entry : generateModules().entrySet()) {
+      Path file = FileUtils.sourceFile(sourceDir, entry.getKey());
+      Files.createDirectories(file.getParent());
+      Files.write(file, entry.getValue().getBytes(StandardCharsets.UTF_8));
+      moduleNames.add(entry.getKey().toString());
+    }
+
+    LibraryConfig config = new LibraryConfig();
+    config.setName(name);
+    config.setSourcesDir("src");
+    config.setBinariesDir(".bin");
+    config.setModules(moduleNames);
+    Files.write(directory.resolve(FileUtils.LIBRARY_CONFIG_FILE), (config.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static void main(String[] args) {
+    Options cmdOptions = new Options();
+    cmdOptions.addOption("h", "help", false, "print this message");
+    cmdOptions.addOption(Option.builder("n").longOpt("name").hasArg().argName("name").desc("the name of the library").build());
+    cmdOptions.addOption(Option.builder().longOpt("modules").hasArg().argName("num").desc("the number of modules").build());
+    cmdOptions.addOption(Option.builder().longOpt("imports").hasArg().argName("num").desc("the maximal number of imports in a module").build());
+    cmdOptions.addOption(Option.builder().longOpt("definitions").hasArg().argName("num").desc("the number of functions in a module").build());
+    cmdOptions.addOption(Option.builder().longOpt("depth").hasArg().argName("num").desc("the number of nested calls in the body of a function").build());
+    cmdOptions.addOption(Option.builder().longOpt("mutual").hasArg().argName("num").desc("the size of groups of mutually recursive functions").build());
+    cmdOptions.addOption(Option.builder().longOpt("classes").hasArg().argName("num").desc("the number of subclasses in a module").build());
+    cmdOptions.addOption(Option.builder().longOpt("instances").hasArg().argName("num").desc("the number of instances of every subclass").build());
+    cmdOptions.addOption(Option.builder().longOpt("seed").hasArg().argName("num").desc("the seed of the random generator").build());
+
+    CommandLine cmdLine;
+    try {
+      cmdLine = new DefaultParser().parse(cmdOptions, args);
+    } catch (ParseException e) {
+      System.err.println(e.getMessage());
+      return;
+    }
+    if (cmdLine.hasOption("h") || cmdLine.getArgList().size() != 1) {
+      new HelpFormatter().printHelp("LibraryGenerator [OPTIONS] DIRECTORY", cmdOptions);
+      return;
+    }
+
+    LibraryGenerator generator = new LibraryGenerator();
+    for (String parameter : PARAMETERS) {
+      String value = cmdLine.getOptionValue(parameter);
+      if (value != null && !generator.setParameter(parameter, value)) {
+        System.err.println("[ERROR] " + value + " is not a valid value of option " + parameter);
+      }
+    }
+
+    Path directory = Paths.get(cmdLine.getArgList().get(0));
+    String name = cmdLine.getOptionValue("n");
+    if (name == null) {
+      name = getDefaultName(directory);
+    }
+    if (!FileUtils.isLibraryName(name)) {
+      System.err.println("[ERROR] " + name + " is not a valid library name");
+      return;
+    }
+
+    try {
+      generator.generate(directory, name);
+      System.out.println("[INFO] Generated library " + name + " in " + directory);
+    } catch (IOException e) {
+      System.err.println("[ERROR] Cannot generate library: " + e.getLocalizedMessage());
+    }
+  }
+}
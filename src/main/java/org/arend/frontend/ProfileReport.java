@@ -0,0 +1,106 @@
+package org.arend.frontend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.arend.module.ModulePath;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.typechecking.profile.DefinitionProfile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Prints and saves statistics collected by {@link org.arend.typechecking.profile.TypecheckingProfiler}.
+ */
+public class ProfileReport {
+  public static final int DEFAULT_TOP = 20;
+
+  private final List<DefinitionProfile> myProfiles;
+
+  public ProfileReport(List<DefinitionProfile> profiles) {
+    myProfiles = profiles;
+  }
+
+  private static String getName(TCReferable referable) {
+    if (referable instanceof LocatedReferable) {
+      List<String> names = new ArrayList<>();
+      ModulePath location = LocatedReferable.Helper.getLocation((LocatedReferable) referable, names);
+      if (location != null && !names.isEmpty()) {
+        return location + "." + String.join(".", names);
+      }
+    }
+    return referable.textRepresentation();
+  }
+
+  private static long toMillis(long nanos) {
+    return nanos / 1000000;
+  }
+
+  /**
+   * Prints the given number of the most expensive definitions.
+   */
+  public void print(PrintStream stream, int top) {
+    stream.println(String.format("%10s %10s %12s %12s %10s %12s  %s", "time ms", "term ms", "norm steps", "comparisons", "equations", "alloc KB", "definition"));
+    for (DefinitionProfile profile : myProfiles.subList(0, Math.min(top, myProfiles.size()))) {
+      stream.println(String.format("%10d %10d %12d %12d %10d %12s  %s",
+        toMillis(profile.getTime()),
+        toMillis(profile.getTerminationTime()),
+        profile.getNormalizationSteps(),
+        profile.getComparisons(),
+        profile.getEquations(),
+        profile.getAllocatedBytes() < 0 ? "-" : String.valueOf(profile.getAllocatedBytes() / 1024),
+        getName(profile.getReferable())));
+    }
+  }
+
+  private List<Map<String, Object>> toMaps() {
+    List<Map<String, Object>> result = new ArrayList<>(myProfiles.size());
+    for (DefinitionProfile profile : myProfiles) {
+      Map<String, Object> map = new LinkedHashMap<>();
+      map.put("definition", getName(profile.getReferable()));
+      map.put("timeNanos", profile.getTime());
+      map.put("terminationTimeNanos", profile.getTerminationTime());
+      map.put("normalizationSteps", profile.getNormalizationSteps());
+      map.put("comparisons", profile.getComparisons());
+      map.put("equations", profile.getEquations());
+      map.put("allocatedBytes", profile.getAllocatedBytes());
+      result.add(map);
+    }
+    return result;
+  }
+
+  private static String escapeCSV(String value) {
+    return value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+  }
+
+  /**
+   * Saves statistics of all definitions.
+   * The format is CSV if the name of the file ends with {@code .csv} and JSON otherwise.
+   */
+  public void save(Path file) throws IOException {
+    List<Map<String, Object>> maps = toMaps();
+    if (file.getFileName() != null && file.getFileName().toString().toLowerCase().endsWith(".csv")) {
+      StringBuilder builder = new StringBuilder();
+      builder.append("definition,timeNanos,terminationTimeNanos,normalizationSteps,comparisons,equations,allocatedBytes\n");
+      for (Map<String, Object> map : maps) {
+        boolean first = true;
+        for (Object value : map.values()) {
+          if (!first) {
+            builder.append(',');
+          }
+          first = false;
+          builder.append(escapeCSV(value.toString()));
+        }
+        builder.append('\n');
+      }
+      Files.write(file, builder.toString().getBytes(StandardCharsets.UTF_8));
+    } else {
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), maps);
+    }
+  }
+}
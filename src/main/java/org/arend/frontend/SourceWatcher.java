@@ -0,0 +1,137 @@
+package org.arend.frontend;
+
+import org.arend.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for changes of source files in directories of libraries.
+ * Subdirectories which cannot contain modules (such as output directories starting with a dot) are not watched.
+ */
+public class SourceWatcher implements AutoCloseable {
+  /**
+   * Editors often save a file in several steps, so we wait until there are no changes for this number of milliseconds.
+   */
+  public static final long QUIET_PERIOD = 200;
+
+  private final WatchService myWatchService;
+  private final Set<Path> myDirectories = new HashSet<>();
+
+  public SourceWatcher() throws IOException {
+    myWatchService = FileSystems.getDefault().newWatchService();
+  }
+
+  /**
+   * Watches a source directory and its subdirectories.
+   * Directories that are already watched are not registered again.
+   */
+  public void register(Path sourceDir) throws IOException {
+    Files.walkFileTree(sourceDir, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        if (!dir.equals(sourceDir) && !FileUtils.isModuleName(dir.getFileName().toString())) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        if (myDirectories.add(dir)) {
+          dir.register(myWatchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private boolean isRelevant(WatchKey key) {
+    boolean result = false;
+    Path dir = (Path) key.watchable();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        result = true;
+        continue;
+      }
+
+      Path path = dir.resolve((Path) event.context());
+      String name = path.getFileName().toString();
+      if (name.endsWith(FileUtils.EXTENSION)) {
+        result = true;
+      } else if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+        // A new directory might contain modules, so it is registered by the next call to register
+        if (FileUtils.isModuleName(name) && Files.isDirectory(path)) {
+          result = true;
+        }
+      } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+        if (myDirectories.remove(path)) {
+          result = true;
+        }
+      }
+    }
+    if (!key.reset()) {
+      myDirectories.remove(dir);
+    }
+    return result;
+  }
+
+  private void waitForQuietPeriod() throws InterruptedException {
+    WatchKey key;
+    while ((key = myWatchService.poll(QUIET_PERIOD, TimeUnit.MILLISECONDS)) != null) {
+      isRelevant(key);
+    }
+  }
+
+  /**
+   * Blocks until some source file is created, modified, or deleted.
+   *
+   * @return true if there are changes, false if the thread was interrupted.
+   */
+  public boolean waitForChanges() {
+    try {
+      while (!isRelevant(myWatchService.take())) {
+        // Wait for the next change
+      }
+      waitForQuietPeriod();
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ClosedWatchServiceException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Waits at most {@code timeout} milliseconds until some source file is created, modified, or deleted.
+   *
+   * @return true if there are changes, false if there are no changes or the thread was interrupted.
+   */
+  public boolean waitForChanges(long timeout) {
+    long deadline = System.currentTimeMillis() + timeout;
+    try {
+      while (true) {
+        long remaining = deadline - System.currentTimeMillis();
+        WatchKey key = remaining > 0 ? myWatchService.poll(remaining, TimeUnit.MILLISECONDS) : null;
+        if (key == null) {
+          return false;
+        }
+        if (isRelevant(key)) {
+          break;
+        }
+      }
+      waitForQuietPeriod();
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ClosedWatchServiceException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    myWatchService.close();
+  }
+}
@@ -0,0 +1,97 @@
+package org.arend.frontend.library;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * A local directory which stores binary modules under keys computed from their contents.
+ * A key of a module is a hash of its source, the sources of all modules it (transitively) imports,
+ * and the keys of modules imported from dependencies, so a cached binary module can be reused whenever the same sources are compiled again,
+ * even if timestamps of files changed.
+ */
+public class BuildCache {
+  private final Path myDirectory;
+  private long myHits;
+  private long myMisses;
+
+  public BuildCache(Path directory) {
+    myDirectory = directory;
+  }
+
+  public Path getDirectory() {
+    return myDirectory;
+  }
+
+  private Path getFile(String key) {
+    return myDirectory.resolve(key.substring(0, 2)).resolve(key.substring(2) + ".arc");
+  }
+
+  /**
+   * Copies a cached binary module to {@code binaryFile}.
+   * The modification time of the copy is set to the current time, so that it is newer than the source.
+   *
+   * @return true if the cache contains a module with the given key, false otherwise.
+   */
+  public boolean restore(@Nullable String key, Path binaryFile) {
+    if (key == null) {
+      return false;
+    }
+
+    Path cachedFile = getFile(key);
+    if (!Files.exists(cachedFile)) {
+      myMisses++;
+      return false;
+    }
+
+    try {
+      Files.createDirectories(binaryFile.getParent());
+      Files.copy(cachedFile, binaryFile, StandardCopyOption.REPLACE_EXISTING);
+      Files.setLastModifiedTime(binaryFile, FileTime.fromMillis(System.currentTimeMillis()));
+      myHits++;
+      return true;
+    } catch (IOException e) {
+      myMisses++;
+      return false;
+    }
+  }
+
+  /**
+   * Stores a binary module in the cache.
+   * The file is copied to a temporary file first and then moved, so concurrent builds never see partially written modules.
+   */
+  public void store(@Nullable String key, Path binaryFile) {
+    if (key == null || !Files.exists(binaryFile)) {
+      return;
+    }
+
+    Path cachedFile = getFile(key);
+    if (Files.exists(cachedFile)) {
+      return;
+    }
+
+    try {
+      Files.createDirectories(cachedFile.getParent());
+      Path tmpFile = Files.createTempFile(cachedFile.getParent(), "module", ".tmp");
+      try {
+        Files.copy(binaryFile, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmpFile, cachedFile, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    } catch (IOException ignored) {
+      // The cache is only an optimization
+    }
+  }
+
+  public long getHits() {
+    return myHits;
+  }
+
+  public long getMisses() {
+    return myMisses;
+  }
+}
@@ -1,5 +1,6 @@
 package org.arend.frontend.library;
 
+import org.arend.error.DummyErrorReporter;
 import org.arend.error.ErrorReporter;
 import org.arend.library.LibraryConfig;
 import org.arend.library.LibraryDependency;
@@ -14,6 +15,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class FileLoadableHeaderLibrary extends FileSourceLibrary {
   private final LibraryConfig myConfig;
@@ -69,4 +71,18 @@ public class FileLoadableHeaderLibrary extends FileSourceLibrary {
 
     return new LibraryHeader(myModules, myDependencies);
   }
+
+  @Nullable
+  @Override
+  public Set<ModulePath> getModifiedModules() {
+    // If modules are not listed in the header, new files in the source directory are also modules of the library
+    if (myConfig.getModules() == null && mySourceBasePath != null) {
+      Set<ModulePath> modules = new LinkedHashSet<>();
+      FileUtils.getModules(mySourceBasePath, FileUtils.EXTENSION, modules, DummyErrorReporter.INSTANCE);
+      if (!modules.equals(myModules)) {
+        return null;
+      }
+    }
+    return super.getModifiedModules();
+  }
 }
@@ -2,21 +2,35 @@ package org.arend.frontend.library;
 
 import org.arend.error.ErrorReporter;
 import org.arend.frontend.source.FileRawSource;
+import org.arend.library.Library;
 import org.arend.library.LibraryDependency;
 import org.arend.library.LibraryHeader;
+import org.arend.library.LibraryManager;
 import org.arend.library.UnmodifiableSourceLibrary;
 import org.arend.module.ModulePath;
+import org.arend.module.serialization.ModuleSerialization;
+import org.arend.naming.reference.converter.ReferableConverter;
+import org.arend.prelude.Prelude;
 import org.arend.source.BinarySource;
-import org.arend.source.FileBinarySource;
-import org.arend.source.GZIPStreamBinarySource;
+import org.arend.source.MappedFileBinarySource;
 import org.arend.source.Source;
+import org.arend.term.NamespaceCommand;
+import org.arend.term.group.ChildGroup;
+import org.arend.term.group.Group;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.arend.util.FileUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
-import java.util.Set;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
 public class FileSourceLibrary extends UnmodifiableSourceLibrary {
   protected Path mySourceBasePath;
@@ -24,6 +38,11 @@ public class FileSourceLibrary extends UnmodifiableSourceLibrary {
   protected Set<ModulePath> myModules;
   protected List<LibraryDependency> myDependencies;
   protected boolean myComplete;
+  private BuildCache myBuildCache;
+  private LibraryManager myLibraryManager;
+  private DependencyListener myDependencyListener = DummyDependencyListener.INSTANCE;
+  private final Map<ModulePath, byte[]> mySourceHashes = new HashMap<>();
+  private final Map<ModulePath, Long> mySourceTimeStamps = new HashMap<>();
 
   /**
    * Creates a new {@code UnmodifiableFileSourceLibrary}
@@ -45,6 +64,14 @@ public class FileSourceLibrary extends UnmodifiableSourceLibrary {
     myDependencies = dependencies;
   }
 
+  public Set<ModulePath> getModules() {
+    return myModules;
+  }
+
+  public boolean isComplete() {
+    return myComplete;
+  }
+
   public Path getSourceBasePath() {
     return mySourceBasePath;
   }
@@ -53,6 +80,217 @@ public class FileSourceLibrary extends UnmodifiableSourceLibrary {
     return myBinaryBasePath;
   }
 
+  /**
+   * Sets a cache from which binary modules are restored if they are missing or outdated and to which they are stored after persisting.
+   */
+  public void setBuildCache(@Nullable BuildCache buildCache) {
+    myBuildCache = buildCache;
+  }
+
+  /**
+   * Sets a listener which records dependencies of definitions loaded from binary sources.
+   */
+  public void setDependencyListener(DependencyListener dependencyListener) {
+    myDependencyListener = dependencyListener;
+  }
+
+  @Nonnull
+  @Override
+  public DependencyListener getDependencyListener() {
+    return myDependencyListener;
+  }
+
+  @Override
+  public void onGroupLoaded(ModulePath modulePath, @Nullable ChildGroup group, boolean isRaw) {
+    super.onGroupLoaded(modulePath, group, isRaw);
+    if (isRaw) {
+      if (group == null) {
+        mySourceTimeStamps.remove(modulePath);
+      } else {
+        Source source = getRawSource(modulePath);
+        if (source != null) {
+          mySourceTimeStamps.put(modulePath, source.getTimeStamp());
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean unload() {
+    mySourceTimeStamps.clear();
+    mySourceHashes.clear();
+    myLibraryManager = null;
+    return super.unload();
+  }
+
+  /**
+   * Finds modules of a loaded library whose raw sources were modified or could not be loaded.
+   *
+   * @return the set of modified modules or null if the set of modules of the library has changed, so that it should be loaded again.
+   */
+  @Nullable
+  public Set<ModulePath> getModifiedModules() {
+    Set<ModulePath> result = new LinkedHashSet<>();
+    for (ModulePath module : myModules) {
+      Source source = getRawSource(module);
+      if (source == null || !source.isAvailable()) {
+        return null;
+      }
+      Long timeStamp = mySourceTimeStamps.get(module);
+      if (timeStamp == null || timeStamp != source.getTimeStamp()) {
+        result.add(module);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Set<ModulePath> reloadModules(LibraryManager libraryManager, Collection<? extends ModulePath> modules) {
+    // Modified modules are persisted under keys computed from their new sources
+    mySourceHashes.keySet().removeAll(modules);
+    return super.reloadModules(libraryManager, modules);
+  }
+
+  @Override
+  public boolean load(LibraryManager libraryManager) {
+    myLibraryManager = libraryManager;
+    return super.load(libraryManager);
+  }
+
+  /**
+   * Computes a hash of a module of this library.
+   * It is the hash of the raw source if the library has sources and the hash of the binary source otherwise.
+   */
+  @Nullable
+  private byte[] getModuleHash(ModulePath modulePath) throws IOException, NoSuchAlgorithmException {
+    byte[] hash = mySourceHashes.get(modulePath);
+    if (hash == null) {
+      Path file = mySourceBasePath != null ? FileUtils.sourceFile(mySourceBasePath, modulePath) : myBinaryBasePath != null ? FileUtils.binaryFile(myBinaryBasePath, modulePath) : null;
+      if (file == null) {
+        return null;
+      }
+      hash = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file));
+      mySourceHashes.put(modulePath, hash);
+    }
+    return hash;
+  }
+
+  /**
+   * Finds the key of a module imported from a dependency of this library.
+   *
+   * @return the key of the module or null if it cannot be computed.
+   */
+  @Nullable
+  private String getExternalCacheKey(ModulePath modulePath) {
+    if (modulePath.equals(Prelude.MODULE_PATH)) {
+      // Prelude is a part of the compiler, so it is covered by the version of the format
+      return modulePath.toString();
+    }
+    if (myLibraryManager == null) {
+      return null;
+    }
+    for (LibraryDependency dependency : myDependencies) {
+      Library library = myLibraryManager.getRegisteredLibrary(dependency.name);
+      if (library != null && library.getModuleGroup(modulePath) != null) {
+        return library instanceof FileSourceLibrary ? ((FileSourceLibrary) library).getCacheKey(modulePath) : null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Computes the key of a module in a build cache.
+   * It is a hash of the sources of the module and all modules of this library it (transitively) imports
+   * together with the keys of modules imported from dependencies, so it changes whenever one of them changes.
+   *
+   * @return the key of the module or null if it cannot be computed.
+   */
+  @Nullable
+  private String getCacheKey(ModulePath modulePath) {
+    Set<ModulePath> modules = new TreeSet<>();
+    Set<ModulePath> externalModules = new TreeSet<>();
+    Deque<ModulePath> toVisit = new ArrayDeque<>();
+    toVisit.push(modulePath);
+    while (!toVisit.isEmpty()) {
+      ModulePath module = toVisit.pop();
+      if (!modules.add(module)) {
+        continue;
+      }
+
+      Group group = getModuleGroup(module);
+      if (group == null) {
+        return null;
+      }
+      for (NamespaceCommand command : group.getNamespaceCommands()) {
+        if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
+          ModulePath importedModule = new ModulePath(command.getPath());
+          if (containsModule(importedModule)) {
+            toVisit.push(importedModule);
+          } else {
+            externalModules.add(importedModule);
+          }
+        }
+      }
+    }
+
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(Integer.toString(ModuleSerialization.VERSION).getBytes(StandardCharsets.UTF_8));
+      digest.update(modulePath.toString().getBytes(StandardCharsets.UTF_8));
+      for (ModulePath module : modules) {
+        byte[] hash = getModuleHash(module);
+        if (hash == null) {
+          return null;
+        }
+        digest.update(module.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update(hash);
+      }
+      for (ModulePath module : externalModules) {
+        String key = getExternalCacheKey(module);
+        if (key == null) {
+          return null;
+        }
+        digest.update(module.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update(key.getBytes(StandardCharsets.UTF_8));
+      }
+
+      StringBuilder builder = new StringBuilder();
+      for (byte b : digest.digest()) {
+        builder.append(String.format("%02x", b));
+      }
+      return builder.toString();
+    } catch (IOException | NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
+  @Override
+  protected void beforeBinaryLoading(Collection<? extends ModulePath> modules) {
+    mySourceHashes.clear();
+    if (myBuildCache == null || mySourceBasePath == null || myBinaryBasePath == null) {
+      return;
+    }
+
+    for (ModulePath module : modules) {
+      Source rawSource = getRawSource(module);
+      Source binarySource = getBinarySource(module);
+      if (rawSource != null && rawSource.isAvailable() && binarySource != null && (!binarySource.isAvailable() || binarySource.getTimeStamp() < rawSource.getTimeStamp())) {
+        myBuildCache.restore(getCacheKey(module), FileUtils.binaryFile(myBinaryBasePath, module));
+      }
+    }
+  }
+
+  @Override
+  public boolean persistModule(ModulePath modulePath, ReferableConverter referableConverter, ErrorReporter errorReporter) {
+    if (!super.persistModule(modulePath, referableConverter, errorReporter)) {
+      return false;
+    }
+    if (myBuildCache != null && mySourceBasePath != null) {
+      myBuildCache.store(getCacheKey(modulePath), FileUtils.binaryFile(myBinaryBasePath, modulePath));
+    }
+    return true;
+  }
+
   @Nullable
   @Override
   public final Source getRawSource(ModulePath modulePath) {
@@ -62,7 +300,7 @@ public class FileSourceLibrary extends UnmodifiableSourceLibrary {
   @Nullable
   @Override
   public BinarySource getBinarySource(ModulePath modulePath) {
-    return myBinaryBasePath == null ? null : new GZIPStreamBinarySource(new FileBinarySource(myBinaryBasePath, modulePath));
+    return myBinaryBasePath == null ? null : new MappedFileBinarySource(myBinaryBasePath, modulePath, hasFlag(Flag.PERSIST_INDEXED), hasFlag(Flag.MAP_BINARY_FILES));
   }
 
   @Nullable
@@ -4,6 +4,7 @@ import org.antlr.v4.runtime.*;
 import org.arend.error.CompositeErrorReporter;
 import org.arend.error.CountingErrorReporter;
 import org.arend.error.ErrorReporter;
+import org.arend.error.ListErrorReporter;
 import org.arend.frontend.ConcreteReferableProvider;
 import org.arend.frontend.parser.*;
 import org.arend.library.SourceLibrary;
@@ -28,6 +29,9 @@ public abstract class StreamRawSource implements Source {
   private final ModulePath myModulePath;
   private FileGroup myGroup;
   private byte myPass = 0;
+  private boolean myDecoded;
+  private ListErrorReporter myDecodingErrors;
+  private IOException myDecodingException;
 
   protected StreamRawSource(ModulePath modulePath) {
     myModulePath = modulePath;
@@ -47,36 +51,73 @@ public abstract class StreamRawSource implements Source {
   @Nonnull
   protected abstract InputStream getInputStream() throws IOException;
 
+  /**
+   * Parses the source.
+   *
+   * @return the group of the module or null if there are syntax errors.
+   */
+  private FileGroup readGroup(ErrorReporter errorReporter) throws IOException {
+    ModulePath modulePath = getModulePath();
+    CountingErrorReporter countingErrorReporter = new CountingErrorReporter();
+    final CompositeErrorReporter compositeErrorReporter = new CompositeErrorReporter(errorReporter, countingErrorReporter);
+
+    BaseErrorListener errorListener = new BaseErrorListener() {
+      @Override
+      public void syntaxError(Recognizer<?, ?> recognizer, Object o, int line, int pos, String msg, RecognitionException e) {
+        compositeErrorReporter.report(new ParserError(new Position(modulePath, line, pos), msg));
+      }
+    };
+
+    ArendLexer lexer = new ArendLexer(CharStreams.fromStream(getInputStream()));
+    lexer.removeErrorListeners();
+    lexer.addErrorListener(errorListener);
+
+    ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
+    parser.removeErrorListeners();
+    parser.addErrorListener(errorListener);
+
+    ArendParser.StatementsContext tree = parser.statements();
+    if (countingErrorReporter.getErrorsNumber() > 0) {
+      return null;
+    }
+
+    return new BuildVisitor(modulePath, errorReporter).visitStatements(tree);
+  }
+
+  @Override
+  public void decode() {
+    myDecoded = true;
+    myDecodingErrors = new ListErrorReporter();
+    try {
+      myGroup = readGroup(myDecodingErrors);
+    } catch (IOException e) {
+      myDecodingException = e;
+    }
+  }
+
   @Override
   public boolean preload(SourceLoader sourceLoader) {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
     ErrorReporter errorReporter = sourceLoader.getTypecheckingErrorReporter();
-    CountingErrorReporter countingErrorReporter = new CountingErrorReporter();
-    final CompositeErrorReporter compositeErrorReporter = new CompositeErrorReporter(errorReporter, countingErrorReporter);
 
     try {
-      BaseErrorListener errorListener = new BaseErrorListener() {
-        @Override
-        public void syntaxError(Recognizer<?, ?> recognizer, Object o, int line, int pos, String msg, RecognitionException e) {
-          compositeErrorReporter.report(new ParserError(new Position(modulePath, line, pos), msg));
+      if (myDecoded) {
+        IOException decodingException = myDecodingException;
+        myDecodingErrors.reportTo(errorReporter);
+        myDecoded = false;
+        myDecodingErrors = null;
+        myDecodingException = null;
+        if (decodingException != null) {
+          throw decodingException;
         }
-      };
-
-      ArendLexer lexer = new ArendLexer(CharStreams.fromStream(getInputStream()));
-      lexer.removeErrorListeners();
-      lexer.addErrorListener(errorListener);
-
-      ArendParser parser = new ArendParser(new CommonTokenStream(lexer));
-      parser.removeErrorListeners();
-      parser.addErrorListener(errorListener);
-
-      ArendParser.StatementsContext tree = parser.statements();
-      if (countingErrorReporter.getErrorsNumber() > 0) {
+      } else {
+        myGroup = readGroup(errorReporter);
+      }
+      if (myGroup == null) {
         return false;
       }
 
-      myGroup = new BuildVisitor(modulePath, errorReporter).visitStatements(tree);
       library.onGroupLoaded(modulePath, myGroup, true);
 
       for (NamespaceCommand command : myGroup.getNamespaceCommands()) {
@@ -3,6 +3,7 @@ package org.arend.library;
 import org.arend.error.ErrorReporter;
 import org.arend.library.error.LibraryError;
 import org.arend.library.resolver.LibraryResolver;
+import org.arend.module.ModulePath;
 import org.arend.module.scopeprovider.CachingModuleScopeProvider;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.naming.scope.Scope;
@@ -12,6 +13,7 @@ import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 /**
@@ -25,6 +27,7 @@ public class LibraryManager {
   private final Map<Library, Set<Library>> myReverseDependencies = new LinkedHashMap<>();
   private final Set<Library> myLoadingLibraries = new HashSet<>();
   private final Set<Library> myFailedLibraries = new HashSet<>();
+  private final Map<Library, CachingModuleScopeProvider> myModuleScopeProviders = new ConcurrentHashMap<>();
 
   /**
    * Constructs new {@code LibraryManager}.
@@ -44,12 +47,17 @@ public class LibraryManager {
   /**
    * Gets a module scope provider that can be used to get scopes of modules in a library and its dependencies.
    * This method may be invoked only after the library is successfully loaded.
+   * The provider is shared between invocations and is invalidated when the library or one of its dependencies is loaded or unloaded.
    *
    * @param library the library.
    *
    * @return a scope provider for modules in the specified library and its dependencies.
    */
   public @Nonnull ModuleScopeProvider getAvailableModuleScopeProvider(Library library) {
+    return myModuleScopeProviders.computeIfAbsent(library, this::createModuleScopeProvider);
+  }
+
+  private CachingModuleScopeProvider createModuleScopeProvider(Library library) {
     Collection<? extends LibraryDependency> dependencies = library.getDependencies();
     ModuleScopeProvider libraryModuleScopeProvider = library.getModuleScopeProvider();
     return new CachingModuleScopeProvider(modulePath -> {
@@ -74,6 +82,59 @@ public class LibraryManager {
     });
   }
 
+  /**
+   * Invalidates the cached scope of a module of a library.
+   * The scope is also invalidated in providers of libraries that depend on this one.
+   *
+   * @param library     the library containing the module.
+   * @param modulePath  the module.
+   */
+  public void resetModuleScope(Library library, ModulePath modulePath) {
+    CachingModuleScopeProvider provider = myModuleScopeProviders.get(library);
+    if (provider != null) {
+      provider.reset(modulePath);
+    }
+    Set<Library> dependencies = myReverseDependencies.get(library);
+    if (dependencies != null) {
+      for (Library dependency : dependencies) {
+        provider = myModuleScopeProviders.get(dependency);
+        if (provider != null) {
+          provider.reset(modulePath);
+        }
+      }
+    }
+  }
+
+  private void invalidateModuleScopeProviders(Library library, @Nullable Set<Library> dependencies) {
+    if (library.getName().equals(Prelude.LIBRARY_NAME)) {
+      myModuleScopeProviders.clear();
+      return;
+    }
+    myModuleScopeProviders.remove(library);
+    if (dependencies != null) {
+      for (Library dependency : dependencies) {
+        myModuleScopeProviders.remove(dependency);
+      }
+    }
+  }
+
+  /**
+   * Gets the statistics of module scope providers of all loaded libraries.
+   *
+   * @return a string with the number of cached scopes, hits, misses, and evictions.
+   */
+  public String getModuleScopeCacheStatistics() {
+    long size = 0, hits = 0, misses = 0, evictions = 0;
+    for (CachingModuleScopeProvider provider : myModuleScopeProviders.values()) {
+      size += provider.size();
+      hits += provider.getHits();
+      misses += provider.getMisses();
+      evictions += provider.getEvictions();
+    }
+    long total = hits + misses;
+    return "scopes: " + size + ", hits: " + hits + ", misses: " + misses + ", evictions: " + evictions + (total == 0 ? "" : " (" + (hits * 100 / total) + "% hit rate)");
+  }
+
   public InstanceProviderSet getInstanceProviderSet() {
     return myInstanceProviderSet;
   }
@@ -175,6 +236,7 @@ public class LibraryManager {
     }
 
     myLoadingLibraries.add(library);
+    invalidateModuleScopeProviders(library, null);
     beforeLibraryLoading(library);
     boolean result = false;
 
@@ -249,6 +311,7 @@ public class LibraryManager {
     }
 
     Set<Library> dependencies = library.unload() ? myReverseDependencies.remove(library) : myReverseDependencies.get(library);
+    invalidateModuleScopeProviders(library, dependencies);
     if (dependencies != null) {
       for (Library dependency : dependencies) {
         dependency.reset();
@@ -266,5 +329,6 @@ public class LibraryManager {
     }
 
     myReverseDependencies.keySet().removeIf(Library::unload);
+    myModuleScopeProviders.clear();
   }
 }
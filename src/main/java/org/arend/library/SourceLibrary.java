@@ -2,6 +2,8 @@ package org.arend.library;
 
 import org.arend.error.ErrorReporter;
 import org.arend.module.ModulePath;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.source.BinarySource;
@@ -9,21 +11,24 @@ import org.arend.source.Source;
 import org.arend.source.SourceLoader;
 import org.arend.source.error.PersistingError;
 import org.arend.term.group.ChildGroup;
+import org.arend.term.group.Group;
+import org.arend.typechecking.LazyTypecheckerState;
 import org.arend.typechecking.TypecheckerState;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.typechecking.order.dependency.DummyDependencyListener;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.EnumSet;
+import java.util.*;
 
 /**
  * Represents a library which can load modules in the binary format (see {@link #getBinarySource})
  * as well as ordinary modules (see {@link #getRawSource}).
  */
 public abstract class SourceLibrary extends BaseLibrary {
-  public enum Flag { RECOMPILE }
+  public enum Flag { RECOMPILE, PERSIST_INDEXED, MAP_BINARY_FILES }
   private final EnumSet<Flag> myFlags = EnumSet.noneOf(Flag.class);
+  private int myNumberOfLoadingThreads = 1;
 
   /**
    * Creates a new {@code SourceLibrary}
@@ -48,6 +53,20 @@ public abstract class SourceLibrary extends BaseLibrary {
     myFlags.remove(flag);
   }
 
+  /**
+   * Checks if a flag is set.
+   */
+  public boolean hasFlag(Flag flag) {
+    return myFlags.contains(flag);
+  }
+
+  /**
+   * Sets the number of threads that are used to parse raw modules and to decode binary modules.
+   */
+  public void setNumberOfLoadingThreads(int numberOfThreads) {
+    myNumberOfLoadingThreads = numberOfThreads;
+  }
+
   /**
    * Gets the raw source (that is, the source containing not typechecked data) for a given module path.
    *
@@ -99,6 +118,16 @@ public abstract class SourceLibrary extends BaseLibrary {
 
   }
 
+  /**
+   * Invoked by a binary source if definitions of a module cannot be filled in after {@link #onBinaryLoaded} was invoked for it.
+   * This may happen if definitions are loaded lazily.
+   *
+   * @param modulePath  the path to the module.
+   */
+  public void onBinaryLoadingFailed(ModulePath modulePath) {
+
+  }
+
   /**
    * Checks if this library has any raw sources.
    * Note that currently libraries without raw sources do not work properly with class synonyms.
@@ -150,6 +179,7 @@ public abstract class SourceLibrary extends BaseLibrary {
 
     SourceLoader sourceLoader = new SourceLoader(this, libraryManager);
     if (hasRawSources()) {
+      sourceLoader.decodeRawSources(header.modules, myNumberOfLoadingThreads);
       for (ModulePath module : header.modules) {
         sourceLoader.preloadRaw(module);
       }
@@ -157,6 +187,8 @@ public abstract class SourceLibrary extends BaseLibrary {
     }
 
     if (!myFlags.contains(Flag.RECOMPILE)) {
+      beforeBinaryLoading(header.modules);
+      sourceLoader.decodeBinaries(header.modules, myNumberOfLoadingThreads);
       for (ModulePath module : header.modules) {
         sourceLoader.loadBinary(module);
       }
@@ -165,6 +197,75 @@ public abstract class SourceLibrary extends BaseLibrary {
     return super.load(libraryManager);
   }
 
+  /**
+   * Reloads raw sources of modules of a loaded library together with modules that depend on them.
+   * Dependent modules are found by {@link #getDependencyListener}, so it should record dependencies of all definitions of this library.
+   * Definitions of reloaded modules are reset, so that they are typechecked again.
+   * Dependencies on definitions of other libraries are not taken into account.
+   *
+   * @param libraryManager  the library manager in which this library is registered.
+   * @param modules         modules to reload.
+   *
+   * @return the set of reloaded modules.
+   */
+  public Set<ModulePath> reloadModules(LibraryManager libraryManager, Collection<? extends ModulePath> modules) {
+    TypecheckerState state = getTypecheckerState();
+    if (state instanceof LazyTypecheckerState) {
+      // Dependencies of deferred definitions are not known until they are loaded
+      ((LazyTypecheckerState) state).loadAll();
+    }
+
+    DependencyListener dependencyListener = getDependencyListener();
+    Set<ModulePath> result = new LinkedHashSet<>(modules);
+    Deque<ModulePath> toVisit = new ArrayDeque<>(modules);
+    while (!toVisit.isEmpty()) {
+      Group group = getModuleGroup(toVisit.pop());
+      if (group == null) {
+        continue;
+      }
+
+      Set<TCReferable> updated = new HashSet<>();
+      updateDefinitions(group, dependencyListener, updated);
+      for (TCReferable definition : updated) {
+        ModulePath module = definition.getLocation();
+        if (module != null && getModuleGroup(module) != null && result.add(module)) {
+          toVisit.push(module);
+        }
+      }
+    }
+
+    for (ModulePath module : result) {
+      Group group = getModuleGroup(module);
+      if (group != null) {
+        resetGroup(group);
+      }
+    }
+    new SourceLoader(this, libraryManager).reloadRaw(result);
+    return result;
+  }
+
+  private static void updateDefinitions(Group group, DependencyListener dependencyListener, Set<TCReferable> updated) {
+    LocatedReferable referable = group.getReferable();
+    if (referable instanceof TCReferable) {
+      updated.addAll(dependencyListener.update((TCReferable) referable));
+    }
+    for (Group subgroup : group.getSubgroups()) {
+      updateDefinitions(subgroup, dependencyListener, updated);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      updateDefinitions(subgroup, dependencyListener, updated);
+    }
+  }
+
+  /**
+   * Is invoked after raw sources are loaded and before binary sources are loaded.
+   *
+   * @param modules the modules of this library.
+   */
+  protected void beforeBinaryLoading(Collection<? extends ModulePath> modules) {
+
+  }
+
   @Override
   public boolean containsModule(ModulePath modulePath) {
     Source source = getRawSource(modulePath);
@@ -0,0 +1,136 @@
+package org.arend.library;
+
+import org.arend.error.ErrorReporter;
+import org.arend.module.ModulePath;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.term.concrete.Concrete;
+import org.arend.term.group.Group;
+import org.arend.typechecking.typecheckable.provider.ConcreteProvider;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists updated modules of a library one by one as soon as all of their definitions are typechecked
+ * rather than after typechecking of the whole library.
+ * Thus, modules that were typechecked before the build is interrupted do not have to be typechecked again.
+ *
+ * {@link #definitionTypechecked} should be invoked after each definition is typechecked; it may be invoked concurrently.
+ * After the library is typechecked, {@link #finish} persists the remaining modules.
+ */
+public class StreamingModulePersister {
+  private final UnmodifiableSourceLibrary myLibrary;
+  private final ErrorReporter myErrorReporter;
+  private final Map<ModulePath, Set<TCReferable>> myRemainingDefinitions = new ConcurrentHashMap<>();
+  private final Set<ModulePath> myPersistedModules = ConcurrentHashMap.newKeySet();
+  private final ExecutorService myWriter;
+  private boolean myOK = true;
+
+  /**
+   * Creates a persister for modules which are updated in the given library.
+   * It must be created before modules are typechecked.
+   *
+   * @param library           the library.
+   * @param concreteProvider  the provider of definitions which will be typechecked.
+   * @param errorReporter     an error reporter for errors related to persisting; it may be invoked from the writer thread.
+   * @param background        true if modules should be persisted on a separate thread, false if they should be persisted right away.
+   */
+  public StreamingModulePersister(UnmodifiableSourceLibrary library, ConcreteProvider concreteProvider, ErrorReporter errorReporter, boolean background) {
+    myLibrary = library;
+    myErrorReporter = errorReporter;
+    myWriter = background ? Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "arend-persister");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+
+    for (ModulePath module : library.getUpdatedModules()) {
+      Group group = library.getModuleGroup(module);
+      if (group != null) {
+        Set<TCReferable> definitions = ConcurrentHashMap.newKeySet();
+        collectDefinitions(group, concreteProvider, definitions);
+        if (!definitions.isEmpty()) {
+          myRemainingDefinitions.put(module, definitions);
+        }
+      }
+    }
+  }
+
+  private static void collectDefinitions(Group group, ConcreteProvider concreteProvider, Set<TCReferable> definitions) {
+    Concrete.ReferableDefinition def = concreteProvider.getConcrete(group.getReferable());
+    if (def instanceof Concrete.Definition) {
+      definitions.add(def.getData());
+    }
+    for (Group subgroup : group.getSubgroups()) {
+      collectDefinitions(subgroup, concreteProvider, definitions);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      collectDefinitions(subgroup, concreteProvider, definitions);
+    }
+  }
+
+  /**
+   * Marks a definition as typechecked.
+   * If it was the last definition of its module, the module is persisted.
+   */
+  public void definitionTypechecked(TCReferable definition) {
+    ModulePath module = definition.getLocation();
+    Set<TCReferable> definitions = module == null ? null : myRemainingDefinitions.get(module);
+    // Only one thread can remove the set from the map, so every module is persisted at most once
+    if (definitions != null && definitions.remove(definition) && definitions.isEmpty() && myRemainingDefinitions.remove(module, definitions)) {
+      if (myWriter != null) {
+        myWriter.execute(() -> persist(module));
+      } else {
+        persist(module);
+      }
+    }
+  }
+
+  // Modules are persisted one at a time since libraries are not required to be thread-safe
+  private synchronized void persist(ModulePath module) {
+    myPersistedModules.add(module);
+    if (!myLibrary.persistModule(module, IdReferableConverter.INSTANCE, myErrorReporter)) {
+      myOK = false;
+    }
+  }
+
+  /**
+   * Waits until the writer thread persists the modules which are already typechecked
+   * and persists updated modules that were not persisted yet (for example, because some of their definitions were not typechecked).
+   * Updated modules of the library are cleared afterwards.
+   *
+   * @return true if all modules were persisted successfully, false otherwise.
+   */
+  public boolean finish() {
+    if (myWriter != null) {
+      myWriter.shutdown();
+      try {
+        myWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        // Modules which are not persisted yet are persisted below
+        myWriter.shutdownNow();
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    for (ModulePath module : myLibrary.getUpdatedModules()) {
+      if (!myPersistedModules.contains(module)) {
+        persist(module);
+      }
+    }
+    myLibrary.clearUpdateModules();
+    myRemainingDefinitions.clear();
+    return myOK;
+  }
+
+  /**
+   * @return the number of modules persisted so far.
+   */
+  public int getNumberOfPersistedModules() {
+    return myPersistedModules.size();
+  }
+}
@@ -66,6 +66,13 @@ public abstract class UnmodifiableSourceLibrary extends SourceLibrary {
     }
   }
 
+  @Override
+  public void onBinaryLoadingFailed(ModulePath modulePath) {
+    if (myGroups.containsKey(modulePath)) {
+      myUpdatedModules.add(modulePath);
+    }
+  }
+
   @Nonnull
   @Override
   public Collection<? extends ModulePath> getLoadedModules() {
@@ -6,43 +6,86 @@ import org.arend.naming.scope.Scope;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Caches scopes of modules returned by another provider.
+ * The cache is thread-safe and holds at most a given number of scopes, evicting the least recently used ones.
+ * Missing modules are not cached since they may be registered later.
+ */
 public class CachingModuleScopeProvider implements ModuleScopeProvider {
+  public static final int DEFAULT_CAPACITY = 4096;
+
   private final ModuleScopeProvider myModuleScopeProvider;
-  private final Map<ModulePath, Scope> myScopes = new HashMap<>();
+  private final Map<ModulePath, Scope> myScopes;
+  private long myHits;
+  private long myMisses;
+  private long myEvictions;
 
-  private final static Scope NULL_SCOPE = new Scope() {};
+  public CachingModuleScopeProvider(ModuleScopeProvider moduleScopeProvider, int capacity) {
+    myModuleScopeProvider = moduleScopeProvider;
+    myScopes = new LinkedHashMap<ModulePath, Scope>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<ModulePath, Scope> eldest) {
+        if (size() > capacity) {
+          myEvictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
 
   public CachingModuleScopeProvider(ModuleScopeProvider moduleScopeProvider) {
-    myModuleScopeProvider = moduleScopeProvider;
+    this(moduleScopeProvider, DEFAULT_CAPACITY);
   }
 
-  public void reset(ModulePath modulePath) {
+  public synchronized void reset(ModulePath modulePath) {
     myScopes.remove(modulePath);
   }
 
-  public void reset() {
+  public synchronized void reset() {
     myScopes.clear();
   }
 
   @Nullable
   @Override
   public Scope forModule(@Nonnull ModulePath module) {
-    Scope scope = myScopes.get(module);
-    if (scope == NULL_SCOPE) {
+    synchronized (this) {
+      Scope scope = myScopes.get(module);
+      if (scope != null) {
+        myHits++;
+        return scope;
+      }
+      myMisses++;
+    }
+
+    // The scope is computed without the lock; if several threads compute it simultaneously, the first one wins
+    Scope scope = myModuleScopeProvider.forModule(module);
+    if (scope == null) {
       return null;
     }
-    if (scope != null) {
-      return scope;
+    scope = CachingScope.make(scope);
+    synchronized (this) {
+      Scope oldScope = myScopes.putIfAbsent(module, scope);
+      return oldScope != null ? oldScope : scope;
     }
+  }
 
-    scope = myModuleScopeProvider.forModule(module);
-    if (scope != null) {
-      scope = CachingScope.make(scope);
-    }
-    myScopes.put(module, scope == null ? NULL_SCOPE : scope);
-    return scope;
+  public synchronized int size() {
+    return myScopes.size();
+  }
+
+  public synchronized long getHits() {
+    return myHits;
+  }
+
+  public synchronized long getMisses() {
+    return myMisses;
+  }
+
+  public synchronized long getEvictions() {
+    return myEvictions;
   }
 }
@@ -24,14 +24,20 @@ import java.util.*;
 public class DefinitionDeserialization {
   private final CallTargetProvider myCallTargetProvider;
   private final DependencyListener myDependencyListener;
+  private final SharedExpressionReader mySharedExpressions;
 
-  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener) {
+  DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, SharedExpressionReader sharedExpressions) {
     myCallTargetProvider = callTargetProvider;
     myDependencyListener = dependencyListener;
+    mySharedExpressions = sharedExpressions;
+  }
+
+  public DefinitionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener) {
+    this(callTargetProvider, dependencyListener, null);
   }
 
   public void fillInDefinition(DefinitionProtos.Definition defProto, Definition def, boolean typecheckDefinitionsWithErrors) throws DeserializationException {
-    final ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, myDependencyListener, def.getReferable());
+    final ExpressionDeserialization defDeserializer = new ExpressionDeserialization(myCallTargetProvider, myDependencyListener, def.getReferable(), mySharedExpressions);
 
     switch (defProto.getDefinitionDataCase()) {
       case CLASS:
@@ -0,0 +1,70 @@
+package org.arend.module.serialization;
+
+import org.arend.core.definition.Definition;
+
+import javax.annotation.Nullable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Digests of the serialized header and of the whole serialized definition.
+ * Call targets are encoded by the given {@link CallTargetIndexProvider},
+ * so it should assign the same index to the same definition every time for fingerprints to be comparable.
+ */
+public class DefinitionFingerprint {
+  private final byte[] myHeader;
+  private final byte[] myDefinition;
+
+  private DefinitionFingerprint(byte[] header, byte[] definition) {
+    myHeader = header;
+    myDefinition = definition;
+  }
+
+  /**
+   * @return the fingerprint of {@code definition} or null if it cannot be serialized.
+   */
+  @Nullable
+  public static DefinitionFingerprint compute(Definition definition, CallTargetIndexProvider callTargetIndexProvider) {
+    DefinitionProtos.Definition proto;
+    try {
+      proto = new DefinitionSerialization(callTargetIndexProvider).writeDefinition(definition);
+    } catch (RuntimeException e) {
+      return null;
+    }
+
+    DefinitionProtos.Definition header = proto;
+    if (proto.hasFunction()) {
+      header = proto.toBuilder()
+        .setStatus(definition.status().headerIsOK() ? DefinitionProtos.Definition.Status.NO_ERRORS : DefinitionProtos.Definition.Status.HEADER_HAS_ERRORS)
+        .setFunction(proto.getFunction().toBuilder().clearBody())
+        .build();
+    }
+    return new DefinitionFingerprint(digest(header), digest(proto));
+  }
+
+  private static byte[] digest(DefinitionProtos.Definition proto) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(proto.toByteArray());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public boolean headerEquals(DefinitionFingerprint other) {
+    return Arrays.equals(myHeader, other.myHeader);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    DefinitionFingerprint that = (DefinitionFingerprint) o;
+    return Arrays.equals(myHeader, that.myHeader) && Arrays.equals(myDefinition, that.myDefinition);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(myDefinition);
+  }
+}
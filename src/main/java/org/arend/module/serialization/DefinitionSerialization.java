@@ -24,9 +24,15 @@ import java.util.Map;
 
 public class DefinitionSerialization {
   private final CallTargetIndexProvider myCallTargetIndexProvider;
+  private final SharedExpressionWriter mySharedExpressions;
 
-  public DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider) {
+  DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, SharedExpressionWriter sharedExpressions) {
     myCallTargetIndexProvider = callTargetIndexProvider;
+    mySharedExpressions = sharedExpressions;
+  }
+
+  public DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider) {
+    this(callTargetIndexProvider, null);
   }
 
   DefinitionProtos.Definition writeDefinition(Definition definition) {
@@ -59,7 +65,7 @@ public class DefinitionSerialization {
     out.setHasTypeClassReference(definition.getReferable().getTypeClassReference() != null);
     out.setHasUniverses(definition.hasUniverses());
 
-    final ExpressionSerialization defSerializer = new ExpressionSerialization(myCallTargetIndexProvider);
+    final ExpressionSerialization defSerializer = new ExpressionSerialization(myCallTargetIndexProvider, mySharedExpressions);
 
     if (definition instanceof ClassDefinition) {
       // type cannot possibly have errors
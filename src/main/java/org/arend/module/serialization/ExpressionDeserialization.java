@@ -30,12 +30,14 @@ class ExpressionDeserialization {
 
   private final DependencyListener myDependencyListener;
   private final TCReferable myDefinition;
+  private final SharedExpressionReader mySharedExpressions;
   private boolean myHeader = true;
 
-  ExpressionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, TCReferable definition) {
+  ExpressionDeserialization(CallTargetProvider callTargetProvider, DependencyListener dependencyListener, TCReferable definition, SharedExpressionReader sharedExpressions) {
     myCallTargetProvider = callTargetProvider;
     myDependencyListener = dependencyListener;
     myDefinition = definition;
+    mySharedExpressions = sharedExpressions;
   }
 
   public void setIsHeader(boolean isHeader) {
@@ -229,6 +231,11 @@ class ExpressionDeserialization {
         return readSmallInteger(proto.getSmallInteger());
       case BIG_INTEGER:
         return readBigInteger(proto.getBigInteger());
+      case SHARED:
+        if (mySharedExpressions == null) {
+          throw new DeserializationException("Shared expressions are not available");
+        }
+        return mySharedExpressions.read(proto.getShared().getIndex(), myDependencyListener, myDefinition, myHeader);
       default:
         throw new DeserializationException("Unknown Expression kind: " + proto.getKindCase());
     }
@@ -250,20 +257,20 @@ class ExpressionDeserialization {
   private FunCallExpression readFunCall(ExpressionProtos.Expression.FunCall proto) throws DeserializationException {
     FunctionDefinition functionDefinition = myCallTargetProvider.getCallTarget(proto.getFunRef(), FunctionDefinition.class);
     myDependencyListener.dependsOn(myDefinition, myHeader, functionDefinition.getReferable());
-    return new FunCallExpression(functionDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList()));
+    return ExpressionInterner.internIfEnabled(new FunCallExpression(functionDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList())));
   }
 
   private Expression readConCall(ExpressionProtos.Expression.ConCall proto) throws DeserializationException {
     Constructor constructor = myCallTargetProvider.getCallTarget(proto.getConstructorRef(), Constructor.class);
     myDependencyListener.dependsOn(myDefinition, myHeader, constructor.getDataType().getReferable());
-    return ConCallExpression.make(constructor, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())),
-        readExprList(proto.getDatatypeArgumentList()), readExprList(proto.getArgumentList()));
+    return ExpressionInterner.internIfEnabled(ConCallExpression.make(constructor, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())),
+        readExprList(proto.getDatatypeArgumentList()), readExprList(proto.getArgumentList())));
   }
 
   private DataCallExpression readDataCall(ExpressionProtos.Expression.DataCall proto) throws DeserializationException {
     DataDefinition dataDefinition = myCallTargetProvider.getCallTarget(proto.getDataRef(), DataDefinition.class);
     myDependencyListener.dependsOn(myDefinition, myHeader, dataDefinition.getReferable());
-    return new DataCallExpression(dataDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList()));
+    return ExpressionInterner.internIfEnabled(new DataCallExpression(dataDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList())));
   }
 
   private ClassCallExpression readClassCall(ExpressionProtos.Expression.ClassCall proto) throws DeserializationException {
@@ -290,7 +297,7 @@ class ExpressionDeserialization {
   }
 
   private UniverseExpression readUniverse(ExpressionProtos.Expression.Universe proto) throws DeserializationException {
-    return new UniverseExpression(readSort(proto.getSort()));
+    return ExpressionInterner.internIfEnabled(new UniverseExpression(readSort(proto.getSort())));
   }
 
   private ErrorExpression readError(ExpressionProtos.Expression.Error proto) throws DeserializationException {
@@ -375,7 +382,7 @@ class ExpressionDeserialization {
   }
 
   private SmallIntegerExpression readSmallInteger(ExpressionProtos.Expression.SmallInteger proto) {
-    return new SmallIntegerExpression(proto.getValue());
+    return ExpressionInterner.internIfEnabled(new SmallIntegerExpression(proto.getValue()));
   }
 
   private BigIntegerExpression readBigInteger(ExpressionProtos.Expression.BigInteger proto) {
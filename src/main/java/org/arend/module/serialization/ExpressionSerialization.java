@@ -29,9 +29,12 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   private final CallTargetIndexProvider myCallTargetIndexProvider;
   private final List<Binding> myBindings = new ArrayList<>();  // de Bruijn indices
   private final Map<Binding, Integer> myBindingsMap = new HashMap<>();
+  private final SharedExpressionWriter mySharedExpressions;
+  private int myBindingUses;  // the number of registered and referred bindings, so that we know which expressions are closed
 
-  ExpressionSerialization(CallTargetIndexProvider callTargetIndexProvider) {
+  ExpressionSerialization(CallTargetIndexProvider callTargetIndexProvider, SharedExpressionWriter sharedExpressions) {
     myCallTargetIndexProvider = callTargetIndexProvider;
+    mySharedExpressions = sharedExpressions;
   }
 
 
@@ -59,6 +62,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   @SuppressWarnings("UnusedReturnValue")
   private int registerBinding(Binding binding) {
     int index = myBindings.size();
+    myBindingUses++;
     myBindings.add(binding);
     myBindingsMap.put(binding, index);
     return index;
@@ -77,6 +81,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     if (binding == null) {
       return 0;
     } else {
+      myBindingUses++;
       Integer ref = myBindingsMap.get(binding);
       return ref + 1;  // zero is reserved for null
     }
@@ -160,7 +165,10 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   // Types, Expressions and ElimTrees
 
   ExpressionProtos.Expression writeExpr(Expression expr) {
-    return expr.accept(this, null);
+    int bindingUses = myBindingUses;
+    ExpressionProtos.Expression result = expr.accept(this, null);
+    // Only closed expressions can be shared since bindings are encoded by their positions in the context
+    return mySharedExpressions != null && bindingUses == myBindingUses ? mySharedExpressions.share(result) : result;
   }
 
   ExpressionProtos.ElimTree writeElimTree(ElimTree elimTree) {
@@ -169,7 +177,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
 
     if (elimTree instanceof LeafElimTree) {
       ExpressionProtos.ElimTree.Leaf.Builder leafBuilder = ExpressionProtos.ElimTree.Leaf.newBuilder();
-      leafBuilder.setExpr(((LeafElimTree) elimTree).getExpression().accept(this, null));
+      leafBuilder.setExpr(writeExpr(((LeafElimTree) elimTree).getExpression()));
       builder.setLeaf(leafBuilder);
     } else {
       BranchElimTree branchElimTree = (BranchElimTree) elimTree;
@@ -199,8 +207,8 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   @Override
   public ExpressionProtos.Expression visitApp(AppExpression expr, Void params) {
     ExpressionProtos.Expression.App.Builder builder = ExpressionProtos.Expression.App.newBuilder();
-    builder.setFunction(expr.getFunction().accept(this, null));
-    builder.setArgument(expr.getArgument().accept(this, null));
+    builder.setFunction(writeExpr(expr.getFunction()));
+    builder.setArgument(writeExpr(expr.getArgument()));
     return ExpressionProtos.Expression.newBuilder().setApp(builder).build();
   }
 
@@ -211,7 +219,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     builder.setPLevel(writeLevel(expr.getSortArgument().getPLevel()));
     builder.setHLevel(writeLevel(expr.getSortArgument().getHLevel()));
     for (Expression arg : expr.getDefCallArguments()) {
-      builder.addArgument(arg.accept(this, null));
+      builder.addArgument(writeExpr(arg));
     }
     return ExpressionProtos.Expression.newBuilder().setFunCall(builder).build();
   }
@@ -223,10 +231,10 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     builder.setPLevel(writeLevel(expr.getSortArgument().getPLevel()));
     builder.setHLevel(writeLevel(expr.getSortArgument().getHLevel()));
     for (Expression arg : expr.getDataTypeArguments()) {
-      builder.addDatatypeArgument(arg.accept(this, null));
+      builder.addDatatypeArgument(writeExpr(arg));
     }
     for (Expression arg : expr.getDefCallArguments()) {
-      builder.addArgument(arg.accept(this, null));
+      builder.addArgument(writeExpr(arg));
     }
     return ExpressionProtos.Expression.newBuilder().setConCall(builder).build();
   }
@@ -238,7 +246,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     builder.setPLevel(writeLevel(expr.getSortArgument().getPLevel()));
     builder.setHLevel(writeLevel(expr.getSortArgument().getHLevel()));
     for (Expression arg : expr.getDefCallArguments()) {
-      builder.addArgument(arg.accept(this, null));
+      builder.addArgument(writeExpr(arg));
     }
     return ExpressionProtos.Expression.newBuilder().setDataCall(builder).build();
   }
@@ -278,7 +286,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     ExpressionProtos.Expression.Lam.Builder builder = ExpressionProtos.Expression.Lam.newBuilder();
     builder.setResultSort(writeSort(expr.getResultSort()));
     builder.setParam(writeSingleParameter(expr.getParameters()));
-    builder.setBody(expr.getBody().accept(this, null));
+    builder.setBody(writeExpr(expr.getBody()));
     return ExpressionProtos.Expression.newBuilder().setLam(builder).build();
   }
 
@@ -287,7 +295,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     ExpressionProtos.Expression.Pi.Builder builder = ExpressionProtos.Expression.Pi.newBuilder();
     builder.setResultSort(LevelProtos.Sort.newBuilder(writeSort(expr.getResultSort())));
     builder.setParam(writeSingleParameter(expr.getParameters()));
-    builder.setCodomain(expr.getCodomain().accept(this, null));
+    builder.setCodomain(writeExpr(expr.getCodomain()));
     return ExpressionProtos.Expression.newBuilder().setPi(builder).build();
   }
 
@@ -302,7 +310,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   public ExpressionProtos.Expression visitError(ErrorExpression expr, Void params) {
     ExpressionProtos.Expression.Error.Builder builder = ExpressionProtos.Expression.Error.newBuilder();
     if (expr.getExpression() != null && expr.getError() != null && expr.getError().level == Error.Level.GOAL) {
-      builder.setExpression(expr.getExpression().accept(this, null));
+      builder.setExpression(writeExpr(expr.getExpression()));
     }
     return ExpressionProtos.Expression.newBuilder().setError(builder).build();
   }
@@ -311,7 +319,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   public ExpressionProtos.Expression visitTuple(TupleExpression expr, Void params) {
     ExpressionProtos.Expression.Tuple.Builder builder = ExpressionProtos.Expression.Tuple.newBuilder();
     for (Expression field : expr.getFields()) {
-      builder.addField(field.accept(this, null));
+      builder.addField(writeExpr(field));
     }
     builder.setType(writeSigma(expr.getSigmaType()));
     return ExpressionProtos.Expression.newBuilder().setTuple(builder).build();
@@ -333,7 +341,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
   @Override
   public ExpressionProtos.Expression visitProj(ProjExpression expr, Void params) {
     ExpressionProtos.Expression.Proj.Builder builder = ExpressionProtos.Expression.Proj.newBuilder();
-    builder.setExpression(expr.getExpression().accept(this, null));
+    builder.setExpression(writeExpr(expr.getExpression()));
     builder.setField(expr.getField());
     return ExpressionProtos.Expression.newBuilder().setProj(builder).build();
   }
@@ -356,7 +364,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
         .setExpression(writeExpr(letClause.getExpression())));
       registerBinding(letClause);
     }
-    builder.setExpression(letExpression.getExpression().accept(this, null));
+    builder.setExpression(writeExpr(letExpression.getExpression()));
     return ExpressionProtos.Expression.newBuilder().setLet(builder).build();
   }
 
@@ -421,7 +429,7 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
     builder.setFieldRef(myCallTargetIndexProvider.getDefIndex(expr.getDefinition()));
     builder.setPLevel(writeLevel(expr.getSortArgument().getPLevel()));
     builder.setHLevel(writeLevel(expr.getSortArgument().getHLevel()));
-    builder.setExpression(expr.getArgument().accept(this, null));
+    builder.setExpression(writeExpr(expr.getArgument()));
     return ExpressionProtos.Expression.newBuilder().setFieldCall(builder).build();
   }
 }
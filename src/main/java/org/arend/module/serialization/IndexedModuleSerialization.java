@@ -0,0 +1,133 @@
+package org.arend.module.serialization;
+
+import com.google.protobuf.CodedInputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The indexed binary format of modules.
+ * A file consists of a magic number, the length of the header, the header, and the data section.
+ * The header is a {@link ModuleProtos.Module} in which every definition is replaced with its skeleton,
+ * that is, with the data required to build the group of the module.
+ * Full definitions are stored uncompressed in the data section, so that they can be decoded only when they are needed.
+ */
+public class IndexedModuleSerialization {
+  private static final int MAGIC = 0x41524349;
+  private static final int HEADER_START = 8;
+
+  /**
+   * The number of bytes at the beginning of a file which are enough to check if it is indexed.
+   */
+  public static final int PREFIX_LENGTH = HEADER_START;
+
+  private IndexedModuleSerialization() {}
+
+  public static boolean isIndexed(ByteBuffer buffer) {
+    return buffer.remaining() >= HEADER_START && buffer.getInt(buffer.position()) == MAGIC;
+  }
+
+  public static void write(ModuleProtos.Module module, OutputStream outputStream) throws IOException {
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    ModuleProtos.Module.Builder header = module.toBuilder();
+    header.setGroup(writeGroup(module.getGroup(), data));
+    byte[] headerBytes = header.build().toByteArray();
+
+    DataOutputStream out = new DataOutputStream(outputStream);
+    out.writeInt(MAGIC);
+    out.writeInt(headerBytes.length);
+    out.write(headerBytes);
+    data.writeTo(out);
+    out.flush();
+  }
+
+  private static ModuleProtos.Group writeGroup(ModuleProtos.Group group, ByteArrayOutputStream data) throws IOException {
+    ModuleProtos.Group.Builder builder = group.toBuilder();
+    if (group.hasDefinition()) {
+      int offset = data.size();
+      group.getDefinition().writeTo(data);
+      builder.setDefinition(skeleton(group.getDefinition()));
+      builder.setDefinitionOffset(offset);
+      builder.setDefinitionLength(data.size() - offset);
+    }
+
+    builder.clearSubgroup();
+    for (ModuleProtos.Group subgroup : group.getSubgroupList()) {
+      builder.addSubgroup(writeGroup(subgroup, data));
+    }
+    builder.clearDynamicSubgroup();
+    for (ModuleProtos.Group subgroup : group.getDynamicSubgroupList()) {
+      builder.addDynamicSubgroup(writeGroup(subgroup, data));
+    }
+    return builder.build();
+  }
+
+  private static DefinitionProtos.Definition skeleton(DefinitionProtos.Definition definition) {
+    DefinitionProtos.Definition.Builder builder = DefinitionProtos.Definition.newBuilder();
+    switch (definition.getDefinitionDataCase()) {
+      case CLASS: {
+        DefinitionProtos.Definition.ClassData.Builder classBuilder = DefinitionProtos.Definition.ClassData.newBuilder();
+        classBuilder.setIsRecord(definition.getClass_().getIsRecord());
+        for (DefinitionProtos.Definition.ClassData.Field field : definition.getClass_().getPersonalFieldList()) {
+          classBuilder.addPersonalField(DefinitionProtos.Definition.ClassData.Field.newBuilder()
+            .setReferable(field.getReferable())
+            .setIsExplicit(field.getIsExplicit())
+            .setIsParameter(field.getIsParameter()));
+        }
+        builder.setClass_(classBuilder);
+        break;
+      }
+      case DATA: {
+        DefinitionProtos.Definition.DataData.Builder dataBuilder = DefinitionProtos.Definition.DataData.newBuilder();
+        for (DefinitionProtos.Definition.DataData.Constructor constructor : definition.getData().getConstructorList()) {
+          dataBuilder.addConstructor(DefinitionProtos.Definition.DataData.Constructor.newBuilder().setReferable(constructor.getReferable()));
+        }
+        builder.setData(dataBuilder);
+        break;
+      }
+      case FUNCTION:
+        builder.setFunction(DefinitionProtos.Definition.FunctionData.getDefaultInstance());
+        break;
+      default:
+        return definition;
+    }
+    return builder.build();
+  }
+
+  public static ModuleProtos.Module readHeader(ByteBuffer buffer) throws IOException, DeserializationException {
+    if (!isIndexed(buffer)) {
+      throw new DeserializationException("Not an indexed module");
+    }
+    int headerLength = buffer.getInt(buffer.position() + 4);
+    return ModuleProtos.Module.parseFrom(newInputStream(buffer, HEADER_START, headerLength));
+  }
+
+  /**
+   * Creates a loader that decodes full definitions from the data section of {@code buffer}.
+   */
+  public static ModuleDeserialization.DefinitionLoader definitionLoader(ByteBuffer buffer) {
+    int dataStart = HEADER_START + buffer.getInt(buffer.position() + 4);
+    return groupProto -> {
+      if (groupProto.getDefinitionLength() == 0) {
+        return groupProto.getDefinition();
+      }
+      try {
+        return DefinitionProtos.Definition.parseFrom(newInputStream(buffer, dataStart + groupProto.getDefinitionOffset(), groupProto.getDefinitionLength()));
+      } catch (IOException | IndexOutOfBoundsException | IllegalArgumentException e) {
+        throw new DeserializationException("Cannot read definition '" + groupProto.getReferable().getName() + "': " + e.getMessage());
+      }
+    };
+  }
+
+  private static CodedInputStream newInputStream(ByteBuffer buffer, int offset, int length) {
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(buffer.position() + offset);
+    slice.limit(buffer.position() + offset + length);
+    CodedInputStream codedInputStream = CodedInputStream.newInstance(slice.slice());
+    codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+    return codedInputStream;
+  }
+}
@@ -20,12 +20,25 @@ public class ModuleDeserialization {
   private final SimpleCallTargetProvider myCallTargetProvider = new SimpleCallTargetProvider();
   private final TypecheckerState myState;
   private final ReferableConverter myReferableConverter;
-  private final List<Pair<DefinitionProtos.Definition, Definition>> myDefinitions = new ArrayList<>();
+  private final DefinitionLoader myDefinitionLoader;
+  private final List<Pair<ModuleProtos.Group, Definition>> myDefinitions = new ArrayList<>();
+
+  /**
+   * Reads full definitions of groups when the groups contain only their skeletons.
+   */
+  public interface DefinitionLoader {
+    DefinitionProtos.Definition load(ModuleProtos.Group groupProto) throws DeserializationException;
+  }
 
-  public ModuleDeserialization(ModuleProtos.Module moduleProto, TypecheckerState state, ReferableConverter referableConverter) {
+  public ModuleDeserialization(ModuleProtos.Module moduleProto, TypecheckerState state, ReferableConverter referableConverter, DefinitionLoader definitionLoader) {
     myModuleProto = moduleProto;
     myState = state;
     myReferableConverter = referableConverter;
+    myDefinitionLoader = definitionLoader;
+  }
+
+  public ModuleDeserialization(ModuleProtos.Module moduleProto, TypecheckerState state, ReferableConverter referableConverter) {
+    this(moduleProto, state, referableConverter, null);
   }
 
   public ModuleProtos.Module getModuleProto() {
@@ -49,13 +62,34 @@ public class ModuleDeserialization {
       }
     }
 
-    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener);
-    for (Pair<DefinitionProtos.Definition, Definition> pair : myDefinitions) {
-      defDeserialization.fillInDefinition(pair.proj1, pair.proj2, typecheckDefinitionsWithErrors);
+    SharedExpressionReader sharedExpressions = new SharedExpressionReader(myModuleProto.getSharedExpressionList(), myCallTargetProvider);
+    DefinitionDeserialization defDeserialization = new DefinitionDeserialization(myCallTargetProvider, dependencyListener, sharedExpressions);
+    for (Pair<ModuleProtos.Group, Definition> pair : myDefinitions) {
+      defDeserialization.fillInDefinition(myDefinitionLoader == null ? pair.proj1.getDefinition() : myDefinitionLoader.load(pair.proj1), pair.proj2, typecheckDefinitionsWithErrors);
     }
     myDefinitions.clear();
   }
 
+  /**
+   * @return referables of definitions that will be filled in by {@link #readModule}, including constructors and fields.
+   */
+  public List<TCReferable> getDefinedReferables() {
+    List<TCReferable> result = new ArrayList<>();
+    for (Pair<ModuleProtos.Group, Definition> pair : myDefinitions) {
+      result.add(pair.proj2.getReferable());
+      if (pair.proj2 instanceof DataDefinition) {
+        for (Constructor constructor : ((DataDefinition) pair.proj2).getConstructors()) {
+          result.add(constructor.getReferable());
+        }
+      } else if (pair.proj2 instanceof ClassDefinition) {
+        for (ClassField field : ((ClassDefinition) pair.proj2).getPersonalFields()) {
+          result.add(field.getReferable());
+        }
+      }
+    }
+    return result;
+  }
+
   private void fillInCallTargetTree(ModuleProtos.CallTargetTree callTargetTree, Scope scope, ModulePath module) throws DeserializationException {
     if (callTargetTree.getIndex() > 0) {
       Referable referable1 = scope.resolveName(callTargetTree.getName());
@@ -100,7 +134,7 @@ public class ModuleDeserialization {
       Definition def = readDefinition(groupProto.getDefinition(), tcReferable, false);
       myState.record(tcReferable, def);
       myCallTargetProvider.putCallTarget(groupProto.getReferable().getIndex(), def);
-      myDefinitions.add(new Pair<>(groupProto.getDefinition(), def));
+      myDefinitions.add(new Pair<>(groupProto, def));
 
       Collection<? extends Group.InternalReferable> fields = group.getFields();
       if (!fields.isEmpty()) {
@@ -210,7 +244,7 @@ public class ModuleDeserialization {
       def = readDefinition(groupProto.getDefinition(), (TCReferable) referable, true);
       myState.record((TCReferable) referable, def);
       myCallTargetProvider.putCallTarget(referableProto.getIndex(), def);
-      myDefinitions.add(new Pair<>(groupProto.getDefinition(), def));
+      myDefinitions.add(new Pair<>(groupProto, def));
     } else {
       def = null;
     }
@@ -20,11 +20,12 @@ public class ModuleSerialization {
   private final TypecheckerState myState;
   private final ErrorReporter myErrorReporter;
   private final SimpleCallTargetIndexProvider myCallTargetIndexProvider = new SimpleCallTargetIndexProvider();
-  private final DefinitionSerialization myDefinitionSerialization = new DefinitionSerialization(myCallTargetIndexProvider);
+  private final SharedExpressionWriter mySharedExpressions = new SharedExpressionWriter();
+  private final DefinitionSerialization myDefinitionSerialization = new DefinitionSerialization(myCallTargetIndexProvider, mySharedExpressions);
   private final Set<Integer> myCurrentDefinitions = new HashSet<>();
   private boolean myComplete;
 
-  static final int VERSION = 0;
+  public static final int VERSION = 1;
 
   public ModuleSerialization(TypecheckerState state, ErrorReporter errorReporter) {
     myState = state;
@@ -34,11 +35,16 @@ public class ModuleSerialization {
   public ModuleProtos.Module writeModule(Group group, ModulePath modulePath, ReferableConverter referableConverter) {
     ModuleProtos.Module.Builder out = ModuleProtos.Module.newBuilder();
 
+    // The first pass only finds repeated subexpressions
+    writeGroup(group, referableConverter);
+    mySharedExpressions.startWriting();
+
     // Serialize the group structure first in order to populate the call target tree
     myComplete = true;
     out.setVersion(VERSION);
     out.setGroup(writeGroup(group, referableConverter));
     out.setComplete(myComplete);
+    out.addAllSharedExpression(mySharedExpressions.getExpressions());
 
     // Now write the call target tree
     Map<ModulePath, Map<String, CallTargetTree>> moduleCallTargets = new HashMap<>();
@@ -0,0 +1,62 @@
+package org.arend.module.serialization;
+
+import org.arend.core.expr.Expression;
+import org.arend.naming.reference.TCReferable;
+import org.arend.typechecking.order.dependency.DependencyListener;
+
+import java.util.*;
+
+/**
+ * Reads expressions written by {@link SharedExpressionWriter}.
+ * Every shared expression is read when it is referred to for the first time,
+ * and the same instance is returned for all of its occurrences.
+ */
+class SharedExpressionReader {
+  private final List<ExpressionProtos.Expression> myProtos;
+  private final CallTargetProvider myCallTargetProvider;
+  private final Expression[] myExpressions;
+  private final List<Set<TCReferable>> myDependencies;
+
+  SharedExpressionReader(List<ExpressionProtos.Expression> protos, CallTargetProvider callTargetProvider) {
+    myProtos = protos;
+    myCallTargetProvider = callTargetProvider;
+    myExpressions = new Expression[protos.size()];
+    myDependencies = new ArrayList<>(Collections.nCopies(protos.size(), null));
+  }
+
+  /**
+   * Reads a shared expression and reports dependencies of {@code definition} on definitions that occur in it.
+   */
+  Expression read(int index, DependencyListener dependencyListener, TCReferable definition, boolean isHeader) throws DeserializationException {
+    if (index < 0 || index >= myExpressions.length) {
+      throw new DeserializationException("Unknown shared expression: " + index);
+    }
+
+    if (myExpressions[index] == null) {
+      if (myDependencies.get(index) != null) {
+        throw new DeserializationException("Shared expression " + index + " refers to itself");
+      }
+
+      Set<TCReferable> dependencies = new LinkedHashSet<>();
+      myDependencies.set(index, dependencies);
+      DependencyListener collector = new DependencyListener() {
+        @Override
+        public void dependsOn(TCReferable def1, boolean header, TCReferable def2) {
+          dependencies.add(def2);
+        }
+
+        @Override
+        public Set<? extends TCReferable> update(TCReferable def) {
+          return Collections.emptySet();
+        }
+      };
+      // Shared expressions are closed, so they are read in the empty context
+      myExpressions[index] = new ExpressionDeserialization(myCallTargetProvider, collector, null, this).readExpr(myProtos.get(index));
+    }
+
+    for (TCReferable dependency : myDependencies.get(index)) {
+      dependencyListener.dependsOn(definition, isHeader, dependency);
+    }
+    return myExpressions[index];
+  }
+}
@@ -0,0 +1,70 @@
+package org.arend.module.serialization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects closed subexpressions which occur several times in a module, so that each of them is serialized only once.
+ * A module is written twice.
+ * The first pass only counts occurrences of closed subexpressions in their original form.
+ * The second pass makes the same sequence of calls to {@link #share};
+ * every occurrence of a repeated expression, including the first one, is replaced with a reference to the table.
+ * Since expressions are looked up by their original form, a repeated expression is shared even if its repeated subexpressions were already replaced with references.
+ * Expressions are compared by their serialized form, which does not depend on names of bound variables.
+ */
+class SharedExpressionWriter {
+  /**
+   * Smaller expressions are not shared since a reference would not be much shorter than the expression itself.
+   */
+  static final int MIN_SIZE = 16;
+
+  private final Map<ExpressionProtos.Expression, Integer> myCounts = new HashMap<>();
+  private final List<ExpressionProtos.Expression> myOriginals = new ArrayList<>();
+  private int myPosition = -1;
+
+  private final Map<ExpressionProtos.Expression, Integer> myIndices = new HashMap<>();
+  private final List<ExpressionProtos.Expression> myExpressions = new ArrayList<>();
+
+  /**
+   * Finishes the first pass.
+   */
+  void startWriting() {
+    myPosition = 0;
+  }
+
+  /**
+   * @param expr  a serialized closed expression.
+   * @return either {@code expr} itself or a reference to a shared expression equal to it.
+   */
+  ExpressionProtos.Expression share(ExpressionProtos.Expression expr) {
+    if (myPosition < 0) {
+      if (expr.getSerializedSize() < MIN_SIZE) {
+        myOriginals.add(null);
+      } else {
+        myOriginals.add(expr);
+        myCounts.merge(expr, 1, Integer::sum);
+      }
+      return expr;
+    }
+
+    ExpressionProtos.Expression original = myOriginals.get(myPosition++);
+    if (original == null || myCounts.get(original) < 2) {
+      return expr;
+    }
+
+    Integer index = myIndices.get(original);
+    if (index == null) {
+      // Subexpressions are shared before the expressions containing them, so shared expressions refer only to previously shared ones
+      index = myExpressions.size();
+      myExpressions.add(expr);
+      myIndices.put(original, index);
+    }
+    return ExpressionProtos.Expression.newBuilder().setShared(ExpressionProtos.Expression.Shared.newBuilder().setIndex(index)).build();
+  }
+
+  List<ExpressionProtos.Expression> getExpressions() {
+    return myExpressions;
+  }
+}
@@ -467,11 +467,13 @@ public class DefinitionResolveNameVisitor implements ConcreteDefinitionVisitor<S
       myLocalErrorReporter = new ProxyErrorReporter(groupRef, myErrorReporter);
     }
 
+    // Scopes of subgroups extend the caching scope, so they do not copy its index
+    Scope subgroupParentScope = referableConverter == null ? convertedScope : scope;
     for (Group subgroup : subgroups) {
-      resolveGroup(subgroup, referableConverter, makeScope(subgroup, scope));
+      resolveGroup(subgroup, referableConverter, makeScope(subgroup, subgroupParentScope));
     }
     for (Group subgroup : dynamicSubgroups) {
-      resolveGroup(subgroup, referableConverter, makeScope(subgroup, scope));
+      resolveGroup(subgroup, referableConverter, makeScope(subgroup, subgroupParentScope));
     }
 
     if (myResolveTypeClassReferences) {
@@ -5,28 +5,66 @@ import org.arend.naming.reference.Referable;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 
+/**
+ * A scope that indexes elements of another scope by their names.
+ * If the underlying scope extends a caching scope (that is, it is either a lexical scope whose parent is a caching scope
+ * or a merge scope whose last component is a caching scope), then only its own elements are indexed
+ * and the rest of names are resolved in the parent, so nested scopes do not copy the indices of their parents.
+ */
 public class CachingScope implements Scope {
   private final Map<String, Referable> myElements = new LinkedHashMap<>();
   private final Map<String, Scope> myNamespaces = new HashMap<>();
   private final Map<String, Scope> myOnlyInternalNamespaces = new HashMap<>();
   private final Scope myScope;
+  private final CachingScope myParent;
+  private Collection<Referable> myAllElements;
   private final static Scope EMPTY_SCOPE = new Scope() {};
   private final boolean myWithModules;
 
   private CachingScope(Scope scope, boolean withModules) {
     myScope = scope;
     myWithModules = withModules;
-    scope.find(ref -> {
-      if (withModules || !(ref instanceof ModuleReferable)) {
-        myElements.putIfAbsent(ref instanceof ModuleReferable ? ((ModuleReferable) ref).path.getLastName() : ref.textRepresentation(), ref);
+
+    Collection<? extends Referable> elements = null;
+    CachingScope parent = null;
+    if (scope instanceof LexicalScope) {
+      Scope lexicalParent = ((LexicalScope) scope).getParent();
+      if (lexicalParent instanceof CachingScope && ((CachingScope) lexicalParent).myWithModules == withModules) {
+        parent = (CachingScope) lexicalParent;
+        elements = ((LexicalScope) scope).getLocalElements();
+      }
+    } else if (scope instanceof MergeScope) {
+      List<Scope> scopes = new ArrayList<>(((MergeScope) scope).getScopes());
+      Scope last = scopes.isEmpty() ? null : scopes.get(scopes.size() - 1);
+      if (last instanceof CachingScope && ((CachingScope) last).myWithModules == withModules) {
+        parent = (CachingScope) last;
+        elements = new MergeScope(scopes.subList(0, scopes.size() - 1)).getElements();
+      }
+    }
+    myParent = parent;
+
+    if (elements != null) {
+      for (Referable ref : elements) {
+        addElement(ref);
       }
-      return false;
-    });
+    } else {
+      scope.find(ref -> {
+        addElement(ref);
+        return false;
+      });
+    }
+  }
+
+  private void addElement(Referable ref) {
+    if (myWithModules || !(ref instanceof ModuleReferable)) {
+      myElements.putIfAbsent(getName(ref), ref);
+    }
+  }
+
+  private static String getName(Referable ref) {
+    return ref instanceof ModuleReferable ? ((ModuleReferable) ref).path.getLastName() : ref.textRepresentation();
   }
 
   public static Scope make(Scope scope) {
@@ -40,13 +78,25 @@ public class CachingScope implements Scope {
   @Nonnull
   @Override
   public Collection<? extends Referable> getElements() {
-    return myElements.values();
+    if (myParent == null) {
+      return myElements.values();
+    }
+
+    if (myAllElements == null) {
+      Map<String, Referable> elements = new LinkedHashMap<>(myElements);
+      for (Referable ref : myParent.getElements()) {
+        elements.putIfAbsent(getName(ref), ref);
+      }
+      myAllElements = elements.values();
+    }
+    return myAllElements;
   }
 
   @Nullable
   @Override
   public Referable resolveName(String name) {
-    return myElements.get(name);
+    Referable ref = myElements.get(name);
+    return ref != null || myParent == null ? ref : myParent.resolveName(name);
   }
 
   @Nullable
@@ -9,9 +9,7 @@ import org.arend.term.group.Group;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 @SuppressWarnings("Duplicates")
 public class LexicalScope implements Scope {
@@ -20,6 +18,12 @@ public class LexicalScope implements Scope {
   private final ModulePath myModule;
   private final Kind myKind;
 
+  // Lazily computed indices of the group; they do not include the parent scope
+  private Map<String, GlobalReferable> myInternalReferables;
+  private Map<String, Referable> mySubgroupReferables;
+  private Map<String, Group> mySubgroups;
+  private List<Scope> myNamespaceCommandScopes;
+
   private enum Kind { INSIDE, OPENED, OPENED_INTERNAL }
 
   private LexicalScope(Scope parent, Group group, ModulePath module, Kind kind) {
@@ -63,9 +67,14 @@ public class LexicalScope implements Scope {
     }
   }
 
-  @Nonnull
-  @Override
-  public List<Referable> getElements() {
+  Scope getParent() {
+    return myParent;
+  }
+
+  /**
+   * @return elements of this scope without elements of the parent scope.
+   */
+  List<Referable> getLocalElements() {
     List<Referable> elements = new ArrayList<>();
     for (Group.InternalReferable constructor : myGroup.getConstructors()) {
       addReferable(constructor.getReferable(), elements);
@@ -82,6 +91,29 @@ public class LexicalScope implements Scope {
     addSubgroups(myGroup.getSubgroups(), elements);
     addSubgroups(myGroup.getDynamicSubgroups(), elements);
 
+    for (Scope scope : getNamespaceCommandScopes()) {
+      elements.addAll(scope.getElements());
+    }
+    return elements;
+  }
+
+  @Nonnull
+  @Override
+  public List<Referable> getElements() {
+    List<Referable> elements = getLocalElements();
+    elements.addAll(myParent.getElements());
+    return elements;
+  }
+
+  /**
+   * @return namespaces of namespace commands of the group which are not ignored by this scope.
+   */
+  private List<Scope> getNamespaceCommandScopes() {
+    if (myNamespaceCommandScopes != null) {
+      return myNamespaceCommandScopes;
+    }
+
+    List<Scope> scopes = new ArrayList<>();
     Scope cachingScope = null;
     for (NamespaceCommand cmd : myGroup.getNamespaceCommands()) {
       if (ignoreOpens() && cmd.getKind() == NamespaceCommand.Kind.OPEN) {
@@ -100,103 +132,87 @@ public class LexicalScope implements Scope {
         }
         scope = cachingScope;
       }
-      elements.addAll(NamespaceCommandNamespace.resolveNamespace(scope, cmd).getElements());
+      scopes.add(NamespaceCommandNamespace.resolveNamespace(scope, cmd));
     }
-
-    elements.addAll(myParent.getElements());
-    return elements;
+    myNamespaceCommandScopes = scopes;
+    return scopes;
   }
 
-  private static GlobalReferable resolveInternal(Group group, String name, boolean onlyInternal) {
-    for (Group.InternalReferable internalReferable : group.getConstructors()) {
+  private enum ResolveType { REF, SCOPE, INTERNAL_SCOPE }
+
+  private static void putInternal(Collection<? extends Group.InternalReferable> internalReferables, boolean onlyInternal, Map<String, GlobalReferable> map) {
+    for (Group.InternalReferable internalReferable : internalReferables) {
       if (!onlyInternal || internalReferable.isVisible()) {
-        GlobalReferable constructor = internalReferable.getReferable();
-        if (constructor.textRepresentation().equals(name)) {
-          return constructor;
-        }
+        GlobalReferable referable = internalReferable.getReferable();
+        map.putIfAbsent(referable.textRepresentation(), referable);
       }
     }
+  }
 
-    if (onlyInternal || !(group.getReferable() instanceof ClassReferable)) {
-      for (Group.InternalReferable internalReferable : group.getFields()) {
-        if (!onlyInternal || internalReferable.isVisible()) {
-          GlobalReferable field = internalReferable.getReferable();
-          if (field.textRepresentation().equals(name)) {
-            return field;
-          }
+  private void putSubgroups(Collection<? extends Group> subgroups) {
+    for (Group subgroup : subgroups) {
+      GlobalReferable ref = subgroup.getReferable();
+      mySubgroups.putIfAbsent(ref.textRepresentation(), subgroup);
+      mySubgroupReferables.putIfAbsent(ref.textRepresentation(), ref);
+      for (Group.InternalReferable internalReferable : subgroup.getConstructors()) {
+        if (internalReferable.isVisible()) {
+          mySubgroupReferables.putIfAbsent(internalReferable.getReferable().textRepresentation(), internalReferable.getReferable());
+        }
+      }
+      for (Group.InternalReferable internalReferable : subgroup.getFields()) {
+        if (internalReferable.isVisible()) {
+          mySubgroupReferables.putIfAbsent(internalReferable.getReferable().textRepresentation(), internalReferable.getReferable());
         }
       }
-    } else {
-      Referable referable = new ClassFieldImplScope((ClassReferable) group.getReferable(), false).resolveName(name);
-      return referable instanceof GlobalReferable ? (GlobalReferable) referable : null;
     }
-
-    return null;
   }
 
-  private static Object resolveSubgroup(Group group, String name, ResolveType resolveType) {
-    Referable ref = group.getReferable();
-    if (ref.textRepresentation().equals(name)) {
-      return resolveType == ResolveType.REF ? ref : LexicalScope.opened(group, resolveType == ResolveType.INTERNAL_SCOPE);
+  private void buildIndex() {
+    if (mySubgroups != null) {
+      return;
     }
 
-    if (resolveType == ResolveType.REF) {
-      GlobalReferable result = resolveInternal(group, name, true);
-      if (result != null) {
-        return result;
-      }
+    boolean onlyInternal = myKind == Kind.OPENED_INTERNAL;
+    myInternalReferables = new HashMap<>();
+    putInternal(myGroup.getConstructors(), onlyInternal, myInternalReferables);
+    if (onlyInternal || !(myGroup.getReferable() instanceof ClassReferable)) {
+      putInternal(myGroup.getFields(), onlyInternal, myInternalReferables);
     }
 
-    return null;
+    mySubgroupReferables = new HashMap<>();
+    mySubgroups = new HashMap<>();
+    putSubgroups(myGroup.getSubgroups());
+    putSubgroups(myGroup.getDynamicSubgroups());
   }
 
-  private enum ResolveType { REF, SCOPE, INTERNAL_SCOPE }
-
   private Object resolve(String name, ResolveType resolveType) {
     if (name == null || name.isEmpty() || "_".equals(name)) {
       return null;
     }
 
+    buildIndex();
     if (resolveType == ResolveType.REF) {
-      Object result = resolveInternal(myGroup, name, myKind == Kind.OPENED_INTERNAL);
-      if (result != null) {
-        return result;
+      Referable result = myInternalReferables.get(name);
+      if (result == null && myKind != Kind.OPENED_INTERNAL && myGroup.getReferable() instanceof ClassReferable) {
+        result = new ClassFieldImplScope((ClassReferable) myGroup.getReferable(), false).resolveName(name);
+        if (!(result instanceof GlobalReferable)) {
+          result = null;
+        }
       }
-    }
-
-    for (Group subgroup : myGroup.getSubgroups()) {
-      Object result = resolveSubgroup(subgroup, name, resolveType);
-      if (result != null) {
-        return result;
+      if (result == null) {
+        result = mySubgroupReferables.get(name);
       }
-    }
-    for (Group subgroup : myGroup.getDynamicSubgroups()) {
-      Object result = resolveSubgroup(subgroup, name, resolveType);
       if (result != null) {
         return result;
       }
-    }
-
-    Scope cachingScope = null;
-    for (NamespaceCommand cmd : myGroup.getNamespaceCommands()) {
-      if (ignoreOpens() && cmd.getKind() == NamespaceCommand.Kind.OPEN) {
-        continue;
-      }
-
-      Scope scope;
-      if (cmd.getKind() == NamespaceCommand.Kind.IMPORT) {
-        if (myModule != null && cmd.getPath().equals(myModule.toList())) {
-          continue;
-        }
-        scope = getImportedSubscope();
-      } else {
-        if (cachingScope == null) {
-          cachingScope = CachingScope.make(new LexicalScope(myParent, myGroup, null, Kind.OPENED));
-        }
-        scope = cachingScope;
+    } else {
+      Group subgroup = mySubgroups.get(name);
+      if (subgroup != null) {
+        return LexicalScope.opened(subgroup, resolveType == ResolveType.INTERNAL_SCOPE);
       }
+    }
 
-      scope = NamespaceCommandNamespace.resolveNamespace(scope, cmd);
+    for (Scope scope : getNamespaceCommandScopes()) {
       Object result = resolveType == ResolveType.REF ? scope.resolveName(name) : scope.resolveNamespace(name, resolveType == ResolveType.INTERNAL_SCOPE);
       if (result != null) {
         return result;
@@ -21,6 +21,10 @@ public class MergeScope implements Scope {
     myScopes = Arrays.asList(scopes);
   }
 
+  Collection<Scope> getScopes() {
+    return myScopes;
+  }
+
   @Nonnull
   @Override
   public List<Referable> getElements() {
@@ -0,0 +1,289 @@
+package org.arend.source;
+
+import org.arend.error.ErrorReporter;
+import org.arend.library.SourceLibrary;
+import org.arend.library.error.LibraryError;
+import org.arend.library.error.PartialModuleError;
+import org.arend.module.ModulePath;
+import org.arend.module.error.DeserializationError;
+import org.arend.module.error.ExceptionError;
+import org.arend.module.serialization.DeserializationException;
+import org.arend.module.serialization.IndexedModuleSerialization;
+import org.arend.module.serialization.ModuleDeserialization;
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.module.serialization.ModuleSerialization;
+import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.naming.reference.converter.ReferableConverter;
+import org.arend.source.error.LocationError;
+import org.arend.term.group.ChildGroup;
+import org.arend.term.group.Group;
+import org.arend.typechecking.LazyTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.util.FileUtils;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Represents a binary file which may be stored in the indexed format (see {@link IndexedModuleSerialization}).
+ * Such files are read into memory, or memory-mapped if requested, and definitions are decoded only when they are needed.
+ * Note that mapped files may stay locked on Windows until they are garbage collected.
+ * If the typechecker state of the library is a {@link LazyTypecheckerState},
+ * definitions of a module are filled in when one of them is requested for the first time.
+ * Files in the ordinary gzipped format are loaded as usual.
+ */
+public class MappedFileBinarySource implements BinarySource {
+  private final Path myFile;
+  private final ModulePath myModulePath;
+  private final StreamBinarySource myStreamSource;
+  private final boolean myPersistIndexed;
+  private final boolean myMapFile;
+  private ModuleDeserialization myModuleDeserialization;
+  private boolean myStream;
+  private boolean myDecoded;
+  private ByteBuffer myBuffer;
+  private ModuleProtos.Module myHeader;
+  private Exception myDecodingException;
+
+  /**
+   * Creates a new {@code MappedFileBinarySource} from a path to the base directory and a path to the source.
+   *
+   * @param basePath        a path to the base directory.
+   * @param modulePath      a path to the source.
+   * @param persistIndexed  true if the source should be persisted in the indexed format, false if it should be persisted in the gzipped format.
+   * @param mapFile         true if the file should be memory-mapped, false if it should be read into memory.
+   */
+  public MappedFileBinarySource(Path basePath, ModulePath modulePath, boolean persistIndexed, boolean mapFile) {
+    myFile = FileUtils.binaryFile(basePath, modulePath);
+    myModulePath = modulePath;
+    myStreamSource = new GZIPStreamBinarySource(new FileBinarySource(basePath, modulePath));
+    myPersistIndexed = persistIndexed;
+    myMapFile = mapFile;
+  }
+
+  @Nonnull
+  @Override
+  public ModulePath getModulePath() {
+    return myModulePath;
+  }
+
+  private ByteBuffer read() throws IOException {
+    try (FileChannel channel = FileChannel.open(myFile, StandardOpenOption.READ)) {
+      if (myMapFile) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+
+      // Files in the gzipped format are decoded by the stream source, so only their beginning is read
+      ByteBuffer buffer = read(channel, Math.min(channel.size(), IndexedModuleSerialization.PREFIX_LENGTH));
+      return IndexedModuleSerialization.isIndexed(buffer) ? read(channel, channel.size()) : buffer;
+    }
+  }
+
+  private static ByteBuffer read(FileChannel channel, long size) throws IOException {
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("File is too large");
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate((int) size);
+    channel.position(0);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new IOException("Unexpected end of file");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  @Override
+  public void decode() {
+    myDecoded = true;
+    try {
+      ByteBuffer buffer = read();
+      myStream = !IndexedModuleSerialization.isIndexed(buffer);
+      if (myStream) {
+        myStreamSource.decode();
+      } else {
+        myHeader = IndexedModuleSerialization.readHeader(buffer);
+        myBuffer = buffer;
+      }
+    } catch (IOException | DeserializationException e) {
+      myDecodingException = e;
+    }
+  }
+
+  @Override
+  public boolean preload(SourceLoader sourceLoader) {
+    SourceLibrary library = sourceLoader.getLibrary();
+    ChildGroup group = null;
+    try {
+      ByteBuffer buffer;
+      ModuleProtos.Module moduleProto;
+      if (myDecoded) {
+        Exception decodingException = myDecodingException;
+        buffer = myBuffer;
+        moduleProto = myHeader;
+        myDecoded = false;
+        myDecodingException = null;
+        myBuffer = null;
+        myHeader = null;
+        if (decodingException != null) {
+          loadingFailed(sourceLoader, null, decodingException);
+          return false;
+        }
+      } else {
+        buffer = read();
+        myStream = !IndexedModuleSerialization.isIndexed(buffer);
+        moduleProto = myStream ? null : IndexedModuleSerialization.readHeader(buffer);
+      }
+      if (myStream) {
+        return myStreamSource.preload(sourceLoader);
+      }
+
+      if (!moduleProto.getComplete() && !library.hasRawSources()) {
+        sourceLoader.getLibraryErrorReporter().report(new PartialModuleError(myModulePath));
+        return false;
+      }
+
+      for (ModuleProtos.ModuleCallTargets moduleCallTargets : moduleProto.getModuleCallTargetsList()) {
+        ModulePath module = new ModulePath(moduleCallTargets.getNameList());
+        if (library.containsModule(module) && !sourceLoader.preloadBinary(module)) {
+          return false;
+        }
+      }
+
+      ReferableConverter referableConverter = sourceLoader.getReferableConverter();
+      myModuleDeserialization = new ModuleDeserialization(moduleProto, library.getTypecheckerState(), referableConverter, IndexedModuleSerialization.definitionLoader(buffer));
+
+      if (referableConverter == null) {
+        group = myModuleDeserialization.readGroup(myModulePath);
+        library.onGroupLoaded(myModulePath, group, false);
+      } else {
+        group = library.getModuleGroup(myModulePath);
+        if (group == null) {
+          sourceLoader.getLibraryErrorReporter().report(LibraryError.moduleNotFound(myModulePath, library.getName()));
+          library.onGroupLoaded(myModulePath, null, false);
+          return false;
+        }
+        myModuleDeserialization.readDefinitions(group);
+      }
+
+      return true;
+    } catch (IOException | DeserializationException e) {
+      loadingFailed(sourceLoader, group, e);
+      return false;
+    }
+  }
+
+  @Override
+  public LoadResult load(SourceLoader sourceLoader) {
+    if (myStream) {
+      return myStreamSource.load(sourceLoader);
+    }
+
+    SourceLibrary library = sourceLoader.getLibrary();
+    ModuleDeserialization moduleDeserialization = myModuleDeserialization;
+    myModuleDeserialization = null;
+    try {
+      for (ModuleProtos.ModuleCallTargets moduleCallTargets : moduleDeserialization.getModuleProto().getModuleCallTargetsList()) {
+        ModulePath module = new ModulePath(moduleCallTargets.getNameList());
+        if (library.containsModule(module) && !sourceLoader.fillInBinary(module)) {
+          ChildGroup group = library.getModuleGroup(myModulePath);
+          if (group != null) {
+            library.resetGroup(group);
+          }
+          return LoadResult.FAIL;
+        }
+      }
+
+      ModuleScopeProvider moduleScopeProvider = sourceLoader.getModuleScopeProvider();
+      DependencyListener dependencyListener = library.getDependencyListener();
+      boolean typecheckDefinitionsWithErrors = library.supportsTypechecking();
+      TypecheckerState state = library.getTypecheckerState();
+      if (state instanceof LazyTypecheckerState) {
+        ErrorReporter errorReporter = sourceLoader.getLibraryErrorReporter();
+        ((LazyTypecheckerState) state).defer(moduleDeserialization.getDefinedReferables(), () -> {
+          try {
+            moduleDeserialization.readModule(moduleScopeProvider, dependencyListener, typecheckDefinitionsWithErrors);
+          } catch (DeserializationException e) {
+            // The module was already reported as loaded, so the library should know that it has to be typechecked again
+            loadingFailed(library, errorReporter, library.getModuleGroup(myModulePath), e);
+            library.onBinaryLoadingFailed(myModulePath);
+          }
+        });
+      } else {
+        moduleDeserialization.readModule(moduleScopeProvider, dependencyListener, typecheckDefinitionsWithErrors);
+      }
+      library.onBinaryLoaded(myModulePath, moduleDeserialization.getModuleProto().getComplete());
+      return LoadResult.SUCCESS;
+    } catch (DeserializationException e) {
+      loadingFailed(sourceLoader, library.getModuleGroup(myModulePath), e);
+      return LoadResult.FAIL;
+    }
+  }
+
+  private void loadingFailed(SourceLoader sourceLoader, Group group, Exception e) {
+    loadingFailed(sourceLoader.getLibrary(), sourceLoader.getLibraryErrorReporter(), group, e);
+  }
+
+  private void loadingFailed(SourceLibrary library, ErrorReporter errorReporter, Group group, Exception e) {
+    errorReporter.report(new DeserializationError(myModulePath, e));
+    if (!library.hasRawSources()) {
+      library.onGroupLoaded(myModulePath, null, false);
+    }
+    if (group != null) {
+      library.resetGroup(group);
+    }
+  }
+
+  @Override
+  public boolean persist(SourceLibrary library, ReferableConverter referableConverter, ErrorReporter errorReporter) {
+    if (!myPersistIndexed) {
+      return myStreamSource.persist(library, referableConverter, errorReporter);
+    }
+
+    Group group = library.getModuleGroup(myModulePath);
+    if (group == null) {
+      errorReporter.report(LocationError.module(myModulePath));
+      return false;
+    }
+
+    try {
+      ModuleProtos.Module module = new ModuleSerialization(library.getTypecheckerState(), errorReporter).writeModule(group, myModulePath, referableConverter);
+      if (module == null) {
+        return false;
+      }
+
+      Files.createDirectories(myFile.getParent());
+      try (OutputStream outputStream = Files.newOutputStream(myFile)) {
+        IndexedModuleSerialization.write(module, outputStream);
+      }
+      return true;
+    } catch (Exception e) {
+      errorReporter.report(new ExceptionError(e, "persisting", myModulePath));
+      return false;
+    }
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return myStreamSource.getTimeStamp();
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return myStreamSource.isAvailable();
+  }
+
+  @Override
+  public boolean delete(SourceLibrary library) {
+    return myStreamSource.delete(library);
+  }
+}
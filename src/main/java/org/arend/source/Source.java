@@ -28,6 +28,13 @@ public interface Source {
    */
   boolean preload(SourceLoader sourceLoader);
 
+  /**
+   * Reads the source in advance, so that {@link #preload} does not need to do it.
+   * This method may be invoked concurrently for different sources, so it should not access the library.
+   * Errors that occur during decoding should be reported by {@link #preload}.
+   */
+  default void decode() {}
+
   /**
    * This method is called after all dependencies of the source were preloaded.
    *
@@ -9,9 +9,10 @@ import org.arend.module.scopeprovider.ModuleScopeProvider;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Contains all necessary information for source loading.
@@ -23,6 +24,8 @@ public final class SourceLoader {
   private final Map<ModulePath, SourceType> myLoadedModules = new HashMap<>();
   private final Map<ModulePath, BinarySource> myLoadingBinaryModules = new HashMap<>();
   private final Map<ModulePath, Source> myLoadingRawModules = new HashMap<>();
+  private final Map<ModulePath, Source> myDecodedRawModules = new HashMap<>();
+  private final Map<ModulePath, BinarySource> myDecodedBinaryModules = new HashMap<>();
   private ModuleScopeProvider myModuleScopeProvider;
 
   private enum SourceType { RAW, BINARY, BINARY_FAIL }
@@ -74,7 +77,10 @@ public final class SourceLoader {
       return true;
     }
 
-    Source rawSource = myLibrary.getRawSource(modulePath);
+    Source rawSource = myDecodedRawModules.remove(modulePath);
+    if (rawSource == null) {
+      rawSource = myLibrary.getRawSource(modulePath);
+    }
     boolean rawSourceIsAvailable = rawSource != null && rawSource.isAvailable();
 
     if (!rawSourceIsAvailable) {
@@ -83,6 +89,7 @@ public final class SourceLoader {
     }
 
     myLoadedModules.put(modulePath, SourceType.RAW);
+    myLibraryManager.resetModuleScope(myLibrary, modulePath);
     myLoadingRawModules.put(modulePath, rawSource);
     if (!rawSource.preload(this)) {
       myLoadingRawModules.remove(modulePath);
@@ -92,6 +99,30 @@ public final class SourceLoader {
     return true;
   }
 
+  /**
+   * Loads raw sources of given modules of a loaded library again.
+   * Other modules of the library are considered to be loaded, so they are not loaded again even if the given modules import them.
+   *
+   * @param modules modules to reload.
+   * @return true if all modules were successfully loaded, false otherwise.
+   */
+  public boolean reloadRaw(Collection<? extends ModulePath> modules) {
+    for (ModulePath module : myLibrary.getLoadedModules()) {
+      if (!modules.contains(module)) {
+        myLoadedModules.put(module, SourceType.RAW);
+      }
+    }
+
+    boolean ok = true;
+    for (ModulePath module : modules) {
+      if (!preloadRaw(module)) {
+        ok = false;
+      }
+    }
+    loadRawSources();
+    return ok;
+  }
+
   /**
    * Loads raw sources that were preloaded.
    */
@@ -152,19 +183,16 @@ public final class SourceLoader {
       return true;
     }
 
-    BinarySource binarySource = myLibrary.getBinarySource(modulePath);
-    if (binarySource == null || !binarySource.isAvailable()) {
-      return false;
-    }
-
-    if (myLibrary.hasRawSources()) {
-      Source rawSource = myLibrary.getRawSource(modulePath);
-      if (rawSource != null && rawSource.isAvailable() && binarySource.getTimeStamp() < rawSource.getTimeStamp()) {
+    BinarySource binarySource = myDecodedBinaryModules.remove(modulePath);
+    if (binarySource == null) {
+      binarySource = getUpToDateBinarySource(modulePath);
+      if (binarySource == null) {
         return false;
       }
     }
 
     myLoadedModules.put(modulePath, SourceType.BINARY);
+    myLibraryManager.resetModuleScope(myLibrary, modulePath);
     myLoadingBinaryModules.put(modulePath, binarySource);
     if (!binarySource.preload(this)) {
       myLoadedModules.put(modulePath, SourceType.BINARY_FAIL);
@@ -174,4 +202,111 @@ public final class SourceLoader {
 
     return true;
   }
+
+  private BinarySource getUpToDateBinarySource(ModulePath modulePath) {
+    BinarySource binarySource = myLibrary.getBinarySource(modulePath);
+    if (binarySource == null || !binarySource.isAvailable()) {
+      return null;
+    }
+
+    if (myLibrary.hasRawSources()) {
+      Source rawSource = myLibrary.getRawSource(modulePath);
+      if (rawSource != null && rawSource.isAvailable() && binarySource.getTimeStamp() < rawSource.getTimeStamp()) {
+        return null;
+      }
+    }
+
+    return binarySource;
+  }
+
+  /**
+   * Parses raw sources of given modules on a pool of threads (see {@link Source#decode}).
+   * Parsed sources are registered later by {@link #preloadRaw} which still processes modules sequentially,
+   * so the order in which groups are registered and errors are reported does not depend on the number of threads.
+   *
+   * @param modules         modules to parse.
+   * @param numberOfThreads the number of threads; if it is at most 1, this method does nothing.
+   */
+  public void decodeRawSources(Collection<? extends ModulePath> modules, int numberOfThreads) {
+    if (numberOfThreads <= 1) {
+      return;
+    }
+
+    List<Source> sources = new ArrayList<>();
+    for (ModulePath module : modules) {
+      if (myDecodedRawModules.containsKey(module) || myLoadedModules.containsKey(module) || myLoadingRawModules.containsKey(module)) {
+        continue;
+      }
+
+      Source rawSource = myLibrary.getRawSource(module);
+      if (rawSource != null && rawSource.isAvailable()) {
+        myDecodedRawModules.put(module, rawSource);
+        sources.add(rawSource);
+      }
+    }
+
+    if (!decode(sources, numberOfThreads)) {
+      myDecodedRawModules.clear();
+    }
+  }
+
+  /**
+   * Decodes binary sources of given modules on a pool of threads (see {@link Source#decode}).
+   * Decoded sources are registered later by {@link #loadBinary} which still processes modules sequentially in the order of their dependencies,
+   * so the result of loading and reported errors do not depend on the number of threads.
+   *
+   * @param modules         modules to decode.
+   * @param numberOfThreads the number of threads; if it is at most 1, this method does nothing.
+   */
+  public void decodeBinaries(Collection<? extends ModulePath> modules, int numberOfThreads) {
+    if (numberOfThreads <= 1) {
+      return;
+    }
+
+    List<Source> sources = new ArrayList<>();
+    for (ModulePath module : modules) {
+      SourceType sourceType = myLoadedModules.get(module);
+      if (myDecodedBinaryModules.containsKey(module) || myLoadingBinaryModules.containsKey(module) || (myLibrary.hasRawSources() ? sourceType != SourceType.RAW : sourceType != null)) {
+        continue;
+      }
+
+      BinarySource binarySource = getUpToDateBinarySource(module);
+      if (binarySource != null) {
+        myDecodedBinaryModules.put(module, binarySource);
+        sources.add(binarySource);
+      }
+    }
+
+    if (!decode(sources, numberOfThreads)) {
+      myDecodedBinaryModules.clear();
+    }
+  }
+
+  /**
+   * @return false if decoding was interrupted; in this case, some sources might be still in use, so decoded sources should not be used at all.
+   */
+  private static boolean decode(List<? extends Source> sources, int numberOfThreads) {
+    if (sources.size() <= 1) {
+      return true;
+    }
+
+    List<Callable<Void>> tasks = new ArrayList<>(sources.size());
+    for (Source source : sources) {
+      tasks.add(() -> {
+        source.decode();
+        return null;
+      });
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(numberOfThreads, sources.size()));
+    try {
+      executor.invokeAll(tasks);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
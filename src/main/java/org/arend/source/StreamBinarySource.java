@@ -29,6 +29,8 @@ import java.io.OutputStream;
  */
 public abstract class StreamBinarySource implements BinarySource {
   private ModuleDeserialization myModuleDeserialization;
+  private ModuleProtos.Module myDecodedModule;
+  private IOException myDecodingException;
 
   @Nonnull
   @Override
@@ -50,19 +52,48 @@ public abstract class StreamBinarySource implements BinarySource {
   @Nullable
   protected abstract OutputStream getOutputStream() throws IOException;
 
+  @Nullable
+  private ModuleProtos.Module readModuleProto() throws IOException {
+    try (InputStream inputStream = getInputStream()) {
+      if (inputStream == null) {
+        return null;
+      }
+
+      CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
+      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+      return ModuleProtos.Module.parseFrom(codedInputStream);
+    }
+  }
+
+  @Override
+  public void decode() {
+    try {
+      myDecodedModule = readModuleProto();
+    } catch (IOException e) {
+      myDecodingException = e;
+    }
+  }
+
   @Override
   public boolean preload(SourceLoader sourceLoader) {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
     ChildGroup group = null;
-    try (InputStream inputStream = getInputStream()) {
-      if (inputStream == null) {
-        return false;
+    try {
+      ModuleProtos.Module moduleProto = myDecodedModule;
+      IOException decodingException = myDecodingException;
+      myDecodedModule = null;
+      myDecodingException = null;
+      if (decodingException != null) {
+        throw decodingException;
+      }
+      if (moduleProto == null) {
+        moduleProto = readModuleProto();
+        if (moduleProto == null) {
+          return false;
+        }
       }
 
-      CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
-      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
-      ModuleProtos.Module moduleProto = ModuleProtos.Module.parseFrom(codedInputStream);
       boolean isComplete = moduleProto.getComplete();
       if (!isComplete && !library.hasRawSources()) {
         sourceLoader.getLibraryErrorReporter().report(new PartialModuleError(modulePath));
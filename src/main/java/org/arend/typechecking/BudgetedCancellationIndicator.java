@@ -0,0 +1,31 @@
+package org.arend.typechecking;
+
+import org.arend.util.ComputationLimitExceededException;
+
+/**
+ * A cancellation indicator which stops a computation after a given number of steps.
+ * A step is a single call of {@link #checkCanceled}, that is, an unfolding of a definition, a comparison of expressions, and so on.
+ */
+public class BudgetedCancellationIndicator implements CancellationIndicator {
+  private final CancellationIndicator myIndicator;
+  private final long myLimit;
+  private long mySteps;
+
+  public BudgetedCancellationIndicator(CancellationIndicator indicator, long limit) {
+    myIndicator = indicator;
+    myLimit = limit;
+  }
+
+  @Override
+  public boolean isCanceled() {
+    return myIndicator.isCanceled();
+  }
+
+  @Override
+  public void checkCanceled() {
+    if (++mySteps > myLimit) {
+      throw new ComputationLimitExceededException(myLimit);
+    }
+    myIndicator.checkCanceled();
+  }
+}
@@ -0,0 +1,45 @@
+package org.arend.typechecking;
+
+import org.arend.util.ComputationInterruptedException;
+
+/**
+ * Keeps track of the cancellation indicator of the typechecking session running on the current thread.
+ * Normalization, comparison of expressions, solving of equations and the termination checker poll it with {@link #check}.
+ * If no indicator is active, the computation is stopped when the current thread is interrupted.
+ */
+public final class Cancellation {
+  private static final ThreadLocal<CancellationIndicator> CURRENT = new ThreadLocal<>();
+
+  private Cancellation() { }
+
+  public static CancellationIndicator getCurrent() {
+    CancellationIndicator indicator = CURRENT.get();
+    return indicator == null ? ThreadCancellationIndicator.INSTANCE : indicator;
+  }
+
+  /**
+   * Makes an indicator active on the current thread.
+   *
+   * @return the previously active indicator which should be restored with {@link #deactivate}.
+   */
+  public static CancellationIndicator activate(CancellationIndicator indicator) {
+    CancellationIndicator previous = CURRENT.get();
+    CURRENT.set(indicator);
+    return previous;
+  }
+
+  public static void deactivate(CancellationIndicator previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+
+  /**
+   * @throws ComputationInterruptedException if the current computation should be stopped.
+   */
+  public static void check() {
+    getCurrent().checkCanceled();
+  }
+}
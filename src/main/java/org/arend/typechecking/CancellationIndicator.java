@@ -1,5 +1,18 @@
 package org.arend.typechecking;
 
+import org.arend.util.ComputationInterruptedException;
+
 public interface CancellationIndicator {
   boolean isCanceled();
+
+  /**
+   * Invoked by long-running computations at safe points.
+   *
+   * @throws ComputationInterruptedException if the computation should be stopped.
+   */
+  default void checkCanceled() {
+    if (isCanceled()) {
+      throw new ComputationInterruptedException();
+    }
+  }
 }
@@ -0,0 +1,122 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.TCReferable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe implementation of {@link TypecheckerState}.
+ * Lookups never block; modifications are guarded by lock stripes,
+ * so that {@link #resetAll} and {@link #reset()} are atomic with respect to other modifications.
+ */
+public class ConcurrentTypecheckerState implements TypecheckerState {
+  private static final int DEFAULT_NUMBER_OF_STRIPES = 32;
+
+  private final Map<GlobalReferable, Definition> myTypechecked = new ConcurrentHashMap<>();
+  private final ReentrantLock[] myLocks;
+
+  public ConcurrentTypecheckerState(int numberOfStripes) {
+    myLocks = new ReentrantLock[Math.max(numberOfStripes, 1)];
+    for (int i = 0; i < myLocks.length; i++) {
+      myLocks[i] = new ReentrantLock();
+    }
+  }
+
+  public ConcurrentTypecheckerState() {
+    this(DEFAULT_NUMBER_OF_STRIPES);
+  }
+
+  private int getStripe(TCReferable def) {
+    int hash = def.hashCode();
+    return ((hash ^ (hash >>> 16)) & 0x7fffffff) % myLocks.length;
+  }
+
+  @Override
+  public Definition record(TCReferable def, Definition res) {
+    ReentrantLock lock = myLocks[getStripe(def)];
+    lock.lock();
+    try {
+      return myTypechecked.putIfAbsent(def, res);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void rewrite(TCReferable def, Definition res) {
+    ReentrantLock lock = myLocks[getStripe(def)];
+    lock.lock();
+    try {
+      myTypechecked.put(def, res);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Definition getTypechecked(TCReferable def) {
+    assert def != null;
+    return myTypechecked.get(def);
+  }
+
+  @Override
+  public Definition reset(TCReferable def) {
+    ReentrantLock lock = myLocks[getStripe(def)];
+    lock.lock();
+    try {
+      return myTypechecked.remove(def);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void resetAll(Collection<? extends TCReferable> definitions) {
+    boolean[] stripes = new boolean[myLocks.length];
+    for (TCReferable def : definitions) {
+      stripes[getStripe(def)] = true;
+    }
+
+    // Locks are always acquired in the same order, so this cannot deadlock
+    for (int i = 0; i < stripes.length; i++) {
+      if (stripes[i]) {
+        myLocks[i].lock();
+      }
+    }
+    try {
+      for (TCReferable def : definitions) {
+        myTypechecked.remove(def);
+      }
+    } finally {
+      for (int i = stripes.length - 1; i >= 0; i--) {
+        if (stripes[i]) {
+          myLocks[i].unlock();
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return true;
+  }
+
+  @Override
+  public void reset() {
+    for (ReentrantLock lock : myLocks) {
+      lock.lock();
+    }
+    try {
+      myTypechecked.clear();
+    } finally {
+      for (int i = myLocks.length - 1; i >= 0; i--) {
+        myLocks[i].unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.naming.reference.TCReferable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A typechecker state that allows to postpone filling in of definitions until they are requested.
+ * Definitions are recorded as usual, but the first call of {@link #getTypechecked} for any of them runs the loader registered with {@link #defer}.
+ */
+public class LazyTypecheckerState implements TypecheckerState {
+  private final TypecheckerState myState;
+  private final Map<TCReferable, Loader> myLoaders = new ConcurrentHashMap<>();
+
+  private class Loader {
+    private final Collection<? extends TCReferable> myDefinitions;
+    private Runnable myLoader;
+
+    Loader(Collection<? extends TCReferable> definitions, Runnable loader) {
+      myDefinitions = definitions;
+      myLoader = loader;
+    }
+
+    void load() {
+      // Loaders are run one at a time since they report dependencies to listeners that are not thread-safe
+      synchronized (LazyTypecheckerState.this) {
+        if (myLoader != null) {
+          Runnable loader = myLoader;
+          myLoader = null;
+          try {
+            loader.run();
+          } finally {
+            for (TCReferable definition : myDefinitions) {
+              myLoaders.remove(definition, this);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  public LazyTypecheckerState(TypecheckerState state) {
+    myState = state;
+  }
+
+  /**
+   * Registers a loader which fills in given definitions.
+   * It will be invoked at most once, when one of the definitions is requested for the first time.
+   */
+  public void defer(Collection<? extends TCReferable> definitions, Runnable loader) {
+    Loader deferred = new Loader(definitions, loader);
+    for (TCReferable definition : definitions) {
+      myLoaders.put(definition, deferred);
+    }
+  }
+
+  /**
+   * Runs all pending loaders.
+   */
+  public void loadAll() {
+    for (Loader loader : myLoaders.values()) {
+      loader.load();
+    }
+  }
+
+  public boolean hasDeferred() {
+    return !myLoaders.isEmpty();
+  }
+
+  @Override
+  public Definition record(TCReferable def, Definition res) {
+    return myState.record(def, res);
+  }
+
+  @Override
+  public void rewrite(TCReferable def, Definition res) {
+    myLoaders.remove(def);
+    myState.rewrite(def, res);
+  }
+
+  @Override
+  public Definition getTypechecked(TCReferable def) {
+    if (!myLoaders.isEmpty()) {
+      Loader loader = myLoaders.get(def);
+      if (loader != null) {
+        loader.load();
+      }
+    }
+    return myState.getTypechecked(def);
+  }
+
+  @Override
+  public Definition reset(TCReferable def) {
+    myLoaders.remove(def);
+    return myState.reset(def);
+  }
+
+  @Override
+  public void resetAll(Collection<? extends TCReferable> definitions) {
+    for (TCReferable definition : definitions) {
+      myLoaders.remove(definition);
+    }
+    myState.resetAll(definitions);
+  }
+
+  @Override
+  public boolean isThreadSafe() {
+    return myState.isThreadSafe();
+  }
+
+  @Override
+  public void reset() {
+    myLoaders.clear();
+    myState.reset();
+  }
+}
@@ -3,10 +3,26 @@ package org.arend.typechecking;
 import org.arend.core.definition.Definition;
 import org.arend.naming.reference.TCReferable;
 
+import java.util.Collection;
+
 public interface TypecheckerState {
   Definition record(TCReferable def, Definition res);
   void rewrite(TCReferable def, Definition res);
   Definition getTypechecked(TCReferable def);
   Definition reset(TCReferable def);
+
+  default void resetAll(Collection<? extends TCReferable> definitions) {
+    for (TCReferable definition : definitions) {
+      reset(definition);
+    }
+  }
+
   void reset();
+
+  /**
+   * @return true if the state can be shared by threads which typecheck independent definitions in parallel.
+   */
+  default boolean isThreadSafe() {
+    return false;
+  }
 }
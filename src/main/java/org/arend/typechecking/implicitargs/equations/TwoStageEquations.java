@@ -18,7 +18,9 @@ import org.arend.core.sort.Sort;
 import org.arend.core.subst.LevelSubstitution;
 import org.arend.core.subst.SimpleLevelSubstitution;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.Cancellation;
 import org.arend.typechecking.error.local.*;
+import org.arend.typechecking.profile.TypecheckingProfiler;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 import org.arend.typechecking.visitor.ProcessDefCallsVisitor;
 import org.arend.util.Pair;
@@ -187,6 +189,7 @@ public class TwoStageEquations implements Equations {
 
     Equation equation = new Equation(expr1, expr2, origCmp, sourceNode);
     myEquations.add(equation);
+    TypecheckingProfiler.countEquation();
     if (inf1 != null && inf2 != null) {
       inf1.addListener(equation);
       inf2.addListener(equation);
@@ -557,6 +560,7 @@ public class TwoStageEquations implements Equations {
   @Override
   public LevelSubstitution solve(Concrete.SourceNode sourceNode) {
     while (!myProps.isEmpty()) {
+      Cancellation.check();
       InferenceVariable var = myProps.pop();
       if (!var.isSolved()) {
         var.solve(this, new UniverseExpression(Sort.PROP));
@@ -615,6 +619,7 @@ public class TwoStageEquations implements Equations {
   }
 
   private void solveClassCalls() {
+    Cancellation.check();
     boolean updated = false;
     Map<InferenceVariable,Set<Wrapper>> lowerBounds = new HashMap<>();
     for (Iterator<Equation> iterator = myEquations.iterator(); iterator.hasNext(); ) {
@@ -17,18 +17,51 @@ import org.arend.typechecking.instance.provider.InstanceProvider;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Predicate;
 
 public class GlobalInstancePool implements InstancePool {
   private final TypecheckerState myTypecheckerState;
   private final InstanceProvider myInstanceProvider;
   private final CheckTypeVisitor myCheckTypeVisitor;
+  private final InstanceIndex myInstanceIndex;
   private InstancePool myInstancePool;
 
-  public GlobalInstancePool(TypecheckerState typecheckerState, InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor) {
+  public GlobalInstancePool(TypecheckerState typecheckerState, InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor, @Nullable InstanceIndex instanceIndex) {
     myTypecheckerState = typecheckerState;
     myInstanceProvider = instanceProvider;
     myCheckTypeVisitor = checkTypeVisitor;
+    myInstanceIndex = instanceIndex;
+  }
+
+  public GlobalInstancePool(TypecheckerState typecheckerState, InstanceProvider instanceProvider, CheckTypeVisitor checkTypeVisitor) {
+    this(typecheckerState, instanceProvider, checkTypeVisitor, null);
+  }
+
+  /**
+   * @return the implementation of {@code classifyingField} in {@code classCall} in WHNF without leading lambdas.
+   */
+  @Nullable
+  static Expression getClassifyingExpression(ClassCallExpression classCall, ClassField classifyingField) {
+    Expression result = classCall.getImplementationHere(classifyingField);
+    if (result != null) {
+      result = result.normalize(NormalizeVisitor.Mode.WHNF);
+    }
+    while (result instanceof LamExpression) {
+      result = ((LamExpression) result).getBody();
+    }
+    return result;
+  }
+
+  static boolean compareClassifyingExpressions(Expression instanceClassifyingExpr, Expression classifyingExpr) {
+    return
+      instanceClassifyingExpr instanceof UniverseExpression && classifyingExpr.isInstance(UniverseExpression.class) ||
+      instanceClassifyingExpr instanceof SigmaExpression && classifyingExpr.isInstance(SigmaExpression.class) ||
+      instanceClassifyingExpr instanceof IntegerExpression && (classifyingExpr.isInstance(IntegerExpression.class) && ((IntegerExpression) instanceClassifyingExpr).isEqual(classifyingExpr.cast(IntegerExpression.class)) ||
+        classifyingExpr.isInstance(ConCallExpression.class) && ((IntegerExpression) instanceClassifyingExpr).match(classifyingExpr.cast(ConCallExpression.class).getDefinition())) ||
+      instanceClassifyingExpr instanceof DefCallExpression && classifyingExpr.isInstance(DefCallExpression.class) && ((DefCallExpression) instanceClassifyingExpr).getDefinition() == classifyingExpr.cast(DefCallExpression.class).getDefinition();
   }
 
   public InstancePool getInstancePool() {
@@ -79,51 +112,53 @@ public class GlobalInstancePool implements InstancePool {
       classifyingField = null;
     }
 
-    Expression normClassifyingExpression = classifyingExpression;
-    class MyPredicate implements Predicate<Concrete.FunctionDefinition> {
-      private FunctionDefinition instanceDef = null;
-
-      @Override
-      public boolean test(Concrete.FunctionDefinition instance) {
-        instanceDef = (FunctionDefinition) myTypecheckerState.getTypechecked(instance.getData());
-        if (instanceDef == null || !instanceDef.status().headerIsOK() || !(instanceDef.getResultType() instanceof ClassCallExpression)) {
-          return false;
-        }
-
-        if (normClassifyingExpression == null) {
-          return true;
-        }
-
-        Expression instanceClassifyingExpr = ((ClassCallExpression) instanceDef.getResultType()).getImplementationHere(classifyingField);
-        if (instanceClassifyingExpr != null) {
-          instanceClassifyingExpr = instanceClassifyingExpr.normalize(NormalizeVisitor.Mode.WHNF);
-        }
-        while (instanceClassifyingExpr instanceof LamExpression) {
-          instanceClassifyingExpr = ((LamExpression) instanceClassifyingExpr).getBody();
+    Concrete.FunctionDefinition instance;
+    FunctionDefinition instanceDef;
+    Map<Object, List<InstanceIndex.Entry>> entries = myInstanceIndex == null || classifyingField == null ? null : myInstanceIndex.getEntries(myInstanceProvider, classRef, classifyingField, myTypecheckerState);
+    if (entries != null) {
+      InstanceIndex.Entry entry = InstanceIndex.find(entries, classifyingExpression);
+      if (entry == null) {
+        return null;
+      }
+      instance = entry.instance;
+      instanceDef = entry.definition;
+    } else {
+      Expression normClassifyingExpression = classifyingExpression;
+      class MyPredicate implements Predicate<Concrete.FunctionDefinition> {
+        private FunctionDefinition instanceDef = null;
+
+        @Override
+        public boolean test(Concrete.FunctionDefinition instance) {
+          instanceDef = (FunctionDefinition) myTypecheckerState.getTypechecked(instance.getData());
+          if (instanceDef == null || !instanceDef.status().headerIsOK() || !(instanceDef.getResultType() instanceof ClassCallExpression)) {
+            return false;
+          }
+
+          if (normClassifyingExpression == null) {
+            return true;
+          }
+
+          Expression instanceClassifyingExpr = getClassifyingExpression((ClassCallExpression) instanceDef.getResultType(), classifyingField);
+          return instanceClassifyingExpr != null && compareClassifyingExpressions(instanceClassifyingExpr, normClassifyingExpression);
         }
-        return
-          instanceClassifyingExpr instanceof UniverseExpression && normClassifyingExpression.isInstance(UniverseExpression.class) ||
-          instanceClassifyingExpr instanceof SigmaExpression && normClassifyingExpression.isInstance(SigmaExpression.class) ||
-          instanceClassifyingExpr instanceof IntegerExpression && (normClassifyingExpression.isInstance(IntegerExpression.class) && ((IntegerExpression) instanceClassifyingExpr).isEqual(normClassifyingExpression.cast(IntegerExpression.class)) ||
-            normClassifyingExpression.isInstance(ConCallExpression.class) && ((IntegerExpression) instanceClassifyingExpr).match(normClassifyingExpression.cast(ConCallExpression.class).getDefinition())) ||
-          instanceClassifyingExpr instanceof DefCallExpression && normClassifyingExpression.isInstance(DefCallExpression.class) && ((DefCallExpression) instanceClassifyingExpr).getDefinition() == normClassifyingExpression.cast(DefCallExpression.class).getDefinition();
       }
-    }
 
-    MyPredicate predicate = new MyPredicate();
-    Concrete.FunctionDefinition instance = myInstanceProvider.findInstance(classRef, predicate);
-    if (instance == null || predicate.instanceDef == null) {
-      return null;
+      MyPredicate predicate = new MyPredicate();
+      instance = myInstanceProvider.findInstance(classRef, predicate);
+      instanceDef = predicate.instanceDef;
+      if (instance == null || instanceDef == null) {
+        return null;
+      }
     }
 
     Concrete.Expression instanceExpr = new Concrete.ReferenceExpression(sourceNode.getData(), instance.getData());
-    for (DependentLink link = predicate.instanceDef.getParameters(); link.hasNext(); link = link.getNext()) {
+    for (DependentLink link = instanceDef.getParameters(); link.hasNext(); link = link.getNext()) {
       if (link.isExplicit()) {
         instanceExpr = Concrete.AppExpression.make(sourceNode.getData(), instanceExpr, new Concrete.HoleExpression(sourceNode.getData()), true);
       }
     }
 
-    ClassDefinition classDef = ((ClassCallExpression) predicate.instanceDef.getResultType()).getDefinition();
+    ClassDefinition classDef = ((ClassCallExpression) instanceDef.getResultType()).getDefinition();
     Expression expectedType = classifyingField == null ? null : myCheckTypeVisitor.fixClassExtSort(new ClassCallExpression(classDef, Sort.generateInferVars(myCheckTypeVisitor.getEquations(), classDef.hasUniverses(), sourceNode)), sourceNode);
     TypecheckingResult result = myCheckTypeVisitor.checkExpr(instanceExpr, expectedType);
     return result == null ? new ErrorExpression(null, null) : result.expression;
@@ -132,7 +167,7 @@ public class GlobalInstancePool implements InstancePool {
   @Override
   public GlobalInstancePool subst(ExprSubstitution substitution) {
     if (myInstancePool != null) {
-      GlobalInstancePool result = new GlobalInstancePool(myTypecheckerState, myInstanceProvider, myCheckTypeVisitor);
+      GlobalInstancePool result = new GlobalInstancePool(myTypecheckerState, myInstanceProvider, myCheckTypeVisitor, myInstanceIndex);
       result.setInstancePool(myInstancePool.subst(substitution));
       return result;
     } else {
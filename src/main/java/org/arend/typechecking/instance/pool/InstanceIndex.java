@@ -0,0 +1,200 @@
+package org.arend.typechecking.instance.pool;
+
+import org.arend.core.definition.ClassField;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.*;
+import org.arend.naming.reference.ClassReferable;
+import org.arend.prelude.Prelude;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.instance.provider.InstanceProvider;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instances of classes grouped by the head of the implementation of the classifying field,
+ * that is, by its definition, or by its kind if it is a universe, a sigma type or an integer.
+ * The index of a class in an instance provider is built when it is requested for the first time,
+ * but only if all instances of the class are typechecked.
+ * It is rebuilt if some of its instances were typechecked again since it was built.
+ */
+public class InstanceIndex {
+  private final Map<Key, Instances> myIndex = new ConcurrentHashMap<>();
+
+  private static class Instances {
+    final List<Concrete.FunctionDefinition> instances;
+    final List<Definition> definitions;
+    final Map<Object, List<Entry>> entries;
+
+    Instances(List<Concrete.FunctionDefinition> instances, List<Definition> definitions, Map<Object, List<Entry>> entries) {
+      this.instances = instances;
+      this.definitions = definitions;
+      this.entries = entries;
+    }
+
+    // The index is invalid if some instance was typechecked again, including those which were not indexed
+    boolean isUpToDate(TypecheckerState state) {
+      for (int i = 0; i < instances.size(); i++) {
+        if (state.getTypechecked(instances.get(i).getData()) != definitions.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  static class Entry {
+    final int index;
+    final Concrete.FunctionDefinition instance;
+    final FunctionDefinition definition;
+    final Expression classifyingExpression;
+
+    Entry(int index, Concrete.FunctionDefinition instance, FunctionDefinition definition, Expression classifyingExpression) {
+      this.index = index;
+      this.instance = instance;
+      this.definition = definition;
+      this.classifyingExpression = classifyingExpression;
+    }
+  }
+
+  private static class Key {
+    final InstanceProvider provider;
+    final ClassReferable classRef;
+    final ClassField classifyingField;
+
+    Key(InstanceProvider provider, ClassReferable classRef, ClassField classifyingField) {
+      this.provider = provider;
+      this.classRef = classRef;
+      this.classifyingField = classifyingField;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key key = (Key) o;
+      return provider == key.provider && classRef == key.classRef && classifyingField == key.classifyingField;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(System.identityHashCode(provider), classRef, classifyingField);
+    }
+  }
+
+  public void clear() {
+    myIndex.clear();
+  }
+
+  private static Object getHead(Expression expr) {
+    if (expr.isInstance(DefCallExpression.class)) {
+      return expr.cast(DefCallExpression.class).getDefinition();
+    }
+    if (expr.isInstance(UniverseExpression.class)) {
+      return UniverseExpression.class;
+    }
+    if (expr.isInstance(SigmaExpression.class)) {
+      return SigmaExpression.class;
+    }
+    if (expr.isInstance(IntegerExpression.class)) {
+      return IntegerExpression.class;
+    }
+    return null;
+  }
+
+  /**
+   * @return instances of {@code classRef} grouped by heads of their classifying expressions or null if some of them are not typechecked yet.
+   */
+  @Nullable
+  Map<Object, List<Entry>> getEntries(InstanceProvider provider, ClassReferable classRef, ClassField classifyingField, TypecheckerState state) {
+    Key key = new Key(provider, classRef, classifyingField);
+    Instances indexed = myIndex.get(key);
+    if (indexed != null) {
+      if (indexed.isUpToDate(state)) {
+        return indexed.entries;
+      }
+      myIndex.remove(key, indexed);
+    }
+
+    List<Concrete.FunctionDefinition> instances = new ArrayList<>();
+    provider.findInstance(classRef, instance -> {
+      instances.add(instance);
+      return false;
+    });
+
+    List<Definition> definitions = new ArrayList<>(instances.size());
+    Map<Object, List<Entry>> entries = new HashMap<>();
+    for (int i = 0; i < instances.size(); i++) {
+      Definition definition = state.getTypechecked(instances.get(i).getData());
+      if (definition == null || !definition.status().isTypeChecked()) {
+        return null;
+      }
+      definitions.add(definition);
+      if (!(definition instanceof FunctionDefinition) || !definition.status().headerIsOK() || !(((FunctionDefinition) definition).getResultType() instanceof ClassCallExpression)) {
+        continue;
+      }
+
+      Expression classifyingExpr = GlobalInstancePool.getClassifyingExpression((ClassCallExpression) ((FunctionDefinition) definition).getResultType(), classifyingField);
+      Object head = classifyingExpr == null ? null : getHead(classifyingExpr);
+      if (head != null) {
+        entries.computeIfAbsent(head, k -> new ArrayList<>()).add(new Entry(i, instances.get(i), (FunctionDefinition) definition, classifyingExpr));
+      }
+    }
+
+    indexed = new Instances(instances, definitions, entries);
+    Instances oldIndexed = myIndex.putIfAbsent(key, indexed);
+    return oldIndexed != null ? oldIndexed.entries : entries;
+  }
+
+  /**
+   * @return true if instances of {@code classRef} from {@code provider} are indexed and none of them was typechecked again since then.
+   */
+  public boolean isIndexed(InstanceProvider provider, ClassReferable classRef, TypecheckerState state) {
+    for (Map.Entry<Key, Instances> entry : myIndex.entrySet()) {
+      if (entry.getKey().provider == provider && entry.getKey().classRef == classRef) {
+        return entry.getValue().isUpToDate(state);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the first instance that matches {@code classifyingExpr}.
+   *
+   * @param classifyingExpr a classifying expression in WHNF without leading lambdas.
+   */
+  @Nullable
+  static Entry find(Map<Object, List<Entry>> entries, Expression classifyingExpr) {
+    Object head = getHead(classifyingExpr);
+    if (head == null) {
+      return null;
+    }
+
+    Entry result = findFirst(entries.get(head), classifyingExpr, null);
+    if (head == Prelude.ZERO || head == Prelude.SUC) {
+      result = findFirst(entries.get(IntegerExpression.class), classifyingExpr, result);
+    }
+    return result;
+  }
+
+  private static Entry findFirst(List<Entry> entries, Expression classifyingExpr, Entry found) {
+    if (entries != null) {
+      for (Entry entry : entries) {
+        if (found != null && entry.index > found.index) {
+          break;
+        }
+        if (GlobalInstancePool.compareClassifyingExpressions(entry.classifyingExpression, classifyingExpr)) {
+          return entry;
+        }
+      }
+    }
+    return found;
+  }
+}
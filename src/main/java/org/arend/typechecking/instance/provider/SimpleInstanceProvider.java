@@ -2,14 +2,18 @@ package org.arend.typechecking.instance.provider;
 
 import org.arend.naming.reference.ClassReferable;
 import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.UnresolvedReference;
 import org.arend.term.concrete.Concrete;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 public class SimpleInstanceProvider implements InstanceProvider {
   private List<Concrete.FunctionDefinition> myInstances;
+  private final Map<ClassReferable, List<Concrete.FunctionDefinition>> myInstancesByClass = new ConcurrentHashMap<>();
 
   public SimpleInstanceProvider() {
     myInstances = new ArrayList<>();
@@ -21,14 +25,40 @@ public class SimpleInstanceProvider implements InstanceProvider {
 
   public void put(Concrete.FunctionDefinition instance) {
     myInstances.add(instance);
+    myInstancesByClass.clear();
   }
 
-  @Override
-  public Concrete.FunctionDefinition findInstance(ClassReferable classRef, Predicate<Concrete.FunctionDefinition> pred) {
+  /**
+   * @return instances of subclasses of {@code classRef} in the order in which they were added.
+   */
+  public List<Concrete.FunctionDefinition> getInstances(ClassReferable classRef) {
+    List<Concrete.FunctionDefinition> instances = myInstancesByClass.get(classRef);
+    if (instances != null) {
+      return instances;
+    }
+
+    instances = new ArrayList<>();
+    boolean resolved = true;
     for (Concrete.FunctionDefinition instance : myInstances) {
       Concrete.Expression type = instance.getResultType();
       Referable ref = type == null ? null : type.getUnderlyingReferable();
-      if (ref instanceof ClassReferable && ((ClassReferable) ref).isSubClassOf(classRef) && pred.test(instance)) {
+      if (ref instanceof ClassReferable && ((ClassReferable) ref).isSubClassOf(classRef)) {
+        instances.add(instance);
+      } else if (ref instanceof UnresolvedReference) {
+        resolved = false;
+      }
+    }
+    // The list is cached only when it cannot change after the instances are resolved
+    if (resolved) {
+      myInstancesByClass.put(classRef, instances);
+    }
+    return instances;
+  }
+
+  @Override
+  public Concrete.FunctionDefinition findInstance(ClassReferable classRef, Predicate<Concrete.FunctionDefinition> pred) {
+    for (Concrete.FunctionDefinition instance : getInstances(classRef)) {
+      if (pred.test(instance)) {
         return instance;
       }
     }
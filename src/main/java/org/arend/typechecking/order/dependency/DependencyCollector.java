@@ -1,8 +1,13 @@
 package org.arend.typechecking.order.dependency;
 
 import org.arend.core.definition.*;
+import org.arend.core.elimtree.Body;
+import org.arend.core.elimtree.ElimTree;
+import org.arend.module.serialization.CallTargetIndexProvider;
+import org.arend.module.serialization.DefinitionFingerprint;
 import org.arend.naming.reference.TCReferable;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.visitor.FindDefCallVisitor;
 
 import java.util.*;
 
@@ -10,9 +15,22 @@ public class DependencyCollector implements DependencyListener {
   private final Map<TCReferable, Set<TCReferable>> myDependencies = new HashMap<>();
   private final Map<TCReferable, Set<TCReferable>> myReverseDependencies = new HashMap<>();
   private final TypecheckerState myState;
+  private final boolean myIncremental;
+  private final Map<TCReferable, UpdatedDefinition> myUpdatedDefinitions = new HashMap<>();
+  private final Map<TCReferable, Integer> myCallTargetIndices = new HashMap<>();
+  private final CallTargetIndexProvider myCallTargetIndexProvider = definition -> myCallTargetIndices.computeIfAbsent(definition.getReferable(), k -> myCallTargetIndices.size() + 1);
 
   public DependencyCollector(TypecheckerState state) {
+    this(state, false);
+  }
+
+  /**
+   * @param incremental if true, then {@link #update} resets only the given definition and
+   *                    its dependents are reset by {@link #rechecked} only if the old definition cannot be kept.
+   */
+  public DependencyCollector(TypecheckerState state, boolean incremental) {
     myState = state;
+    myIncremental = incremental;
   }
 
   @Override
@@ -27,6 +45,10 @@ public class DependencyCollector implements DependencyListener {
       return Collections.emptySet();
     }
 
+    if (myIncremental) {
+      return updateIncrementally(definition);
+    }
+
     Set<TCReferable> updated = new HashSet<>();
     Stack<TCReferable> stack = new Stack<>();
     stack.push(definition);
@@ -53,19 +75,142 @@ public class DependencyCollector implements DependencyListener {
       }
     }
 
+    reset(updated);
+    return updated;
+  }
+
+  private void reset(Collection<? extends TCReferable> updated) {
+    List<TCReferable> toReset = new ArrayList<>(updated);
     for (TCReferable updatedDef : updated) {
-      Definition def = myState.reset(updatedDef);
+      Definition def = myState.getTypechecked(updatedDef);
       if (def instanceof ClassDefinition) {
         for (ClassField field : ((ClassDefinition) def).getPersonalFields()) {
-          myState.reset(field.getReferable());
+          toReset.add(field.getReferable());
         }
       } else if (def instanceof DataDefinition) {
         for (Constructor constructor : ((DataDefinition) def).getConstructors()) {
-          myState.reset(constructor.getReferable());
+          toReset.add(constructor.getReferable());
         }
       }
     }
+    myState.resetAll(toReset);
+  }
 
-    return updated;
+  private static class UpdatedDefinition {
+    final Definition definition;
+    final DefinitionFingerprint fingerprint;
+    final Map<TCReferable, Definition> dependencies;
+
+    UpdatedDefinition(Definition definition, DefinitionFingerprint fingerprint, Map<TCReferable, Definition> dependencies) {
+      this.definition = definition;
+      this.fingerprint = fingerprint;
+      this.dependencies = dependencies;
+    }
+  }
+
+  /**
+   * Remembers the fingerprint of the definition, the definition itself and its dependencies, and resets it.
+   * Dependencies of the definition are forgotten since they are recorded again when it is typechecked,
+   * but its dependents are kept until {@link #rechecked} decides whether they should be reset.
+   */
+  private Set<? extends TCReferable> updateIncrementally(TCReferable definition) {
+    Set<TCReferable> dependencies = myDependencies.remove(definition);
+    if (!myUpdatedDefinitions.containsKey(definition)) {
+      Definition typechecked = myState.getTypechecked(definition);
+      Map<TCReferable, Definition> dependencyDefinitions = new HashMap<>();
+      if (dependencies != null) {
+        for (TCReferable dependency : dependencies) {
+          dependencyDefinitions.put(dependency, myState.getTypechecked(dependency));
+        }
+      }
+      myUpdatedDefinitions.put(definition, new UpdatedDefinition(typechecked, DefinitionFingerprint.compute(typechecked, myCallTargetIndexProvider), dependencyDefinitions));
+    }
+
+    if (dependencies != null) {
+      for (TCReferable dependency : dependencies) {
+        Set<TCReferable> definitions = myReverseDependencies.get(dependency);
+        if (definitions != null) {
+          definitions.remove(definition);
+        }
+      }
+    }
+
+    reset(Collections.singletonList(definition));
+    return Collections.singleton(definition);
+  }
+
+  /**
+   * Compares the fingerprint of a definition updated in the incremental mode with its fingerprint before the update.
+   * Since dependents refer to the old definition, it is put back into the state if nothing changed and its dependencies were not replaced.
+   * If only the body of a lemma changed, the new body is moved to the old definition.
+   * Otherwise, the new definition is kept and all dependents are reset except for those which are being updated themselves.
+   */
+  @Override
+  public Set<? extends TCReferable> rechecked(TCReferable definition) {
+    UpdatedDefinition updated = myUpdatedDefinitions.remove(definition);
+    if (updated == null) {
+      return Collections.emptySet();
+    }
+
+    Definition typechecked = myState.getTypechecked(definition);
+    if (typechecked != null && updated.definition != null && restore(updated, typechecked)) {
+      return Collections.emptySet();
+    }
+
+    Set<TCReferable> dependents = myReverseDependencies.get(definition);
+    if (dependents == null) {
+      return Collections.emptySet();
+    }
+
+    Set<TCReferable> result = new LinkedHashSet<>();
+    for (TCReferable dependent : new ArrayList<>(dependents)) {
+      if (!myUpdatedDefinitions.containsKey(dependent)) {
+        result.addAll(update(dependent));
+      }
+    }
+    return result;
+  }
+
+  private boolean restore(UpdatedDefinition updated, Definition typechecked) {
+    for (Map.Entry<TCReferable, Definition> entry : updated.dependencies.entrySet()) {
+      if (myState.getTypechecked(entry.getKey()) != entry.getValue()) {
+        return false;
+      }
+    }
+
+    DefinitionFingerprint fingerprint = DefinitionFingerprint.compute(typechecked, myCallTargetIndexProvider);
+    if (updated.fingerprint == null || fingerprint == null || !updated.fingerprint.headerEquals(fingerprint)) {
+      return false;
+    }
+
+    if (!updated.fingerprint.equals(fingerprint)) {
+      if (!(typechecked instanceof FunctionDefinition && ((FunctionDefinition) typechecked).isLemma() && updated.definition instanceof FunctionDefinition)) {
+        return false;
+      }
+      // Elimination trees bind their own parameters, so they can be moved, unless a recursive lemma refers to the new definition
+      Body body = ((FunctionDefinition) typechecked).getBody();
+      if (body != null && !(body instanceof ElimTree)) {
+        return false;
+      }
+      FindDefCallVisitor visitor = new FindDefCallVisitor(Collections.singleton(typechecked));
+      visitor.findDefinition(body);
+      if (visitor.getFoundDefinition() != null) {
+        return false;
+      }
+      ((FunctionDefinition) updated.definition).setBody(body);
+      updated.definition.setStatus(typechecked.status());
+    }
+
+    myState.rewrite(updated.definition.getReferable(), updated.definition);
+    if (updated.definition instanceof ClassDefinition) {
+      for (ClassField field : ((ClassDefinition) updated.definition).getPersonalFields()) {
+        myState.rewrite(field.getReferable(), field);
+      }
+    } else if (updated.definition instanceof DataDefinition) {
+      for (Constructor constructor : ((DataDefinition) updated.definition).getConstructors()) {
+        myState.rewrite(constructor.getReferable(), constructor);
+      }
+    }
+    return true;
   }
 }
@@ -2,9 +2,19 @@ package org.arend.typechecking.order.dependency;
 
 import org.arend.naming.reference.TCReferable;
 
+import java.util.Collections;
 import java.util.Set;
 
 public interface DependencyListener {
   void dependsOn(TCReferable def1, boolean header, TCReferable def2);
   Set<? extends TCReferable> update(TCReferable definition);
+
+  /**
+   * Is invoked after a definition returned by {@link #update} was typechecked again.
+   *
+   * @return definitions that were reset because of the change and should be typechecked again.
+   */
+  default Set<? extends TCReferable> rechecked(TCReferable definition) {
+    return Collections.emptySet();
+  }
 }
@@ -0,0 +1,31 @@
+package org.arend.typechecking.order.dependency;
+
+import org.arend.naming.reference.TCReferable;
+
+import java.util.Set;
+
+/**
+ * A wrapper that allows to use a listener which is not thread-safe, such as {@link DependencyCollector}, from several threads.
+ */
+public class SynchronizedDependencyListener implements DependencyListener {
+  private final DependencyListener myListener;
+
+  public SynchronizedDependencyListener(DependencyListener listener) {
+    myListener = listener;
+  }
+
+  @Override
+  public synchronized void dependsOn(TCReferable def1, boolean header, TCReferable def2) {
+    myListener.dependsOn(def1, header, def2);
+  }
+
+  @Override
+  public synchronized Set<? extends TCReferable> update(TCReferable definition) {
+    return myListener.update(definition);
+  }
+
+  @Override
+  public synchronized Set<? extends TCReferable> rechecked(TCReferable definition) {
+    return myListener.rechecked(definition);
+  }
+}
@@ -0,0 +1,231 @@
+package org.arend.typechecking.order.listener;
+
+import org.arend.core.definition.Definition;
+import org.arend.error.ErrorReporter;
+import org.arend.error.ListErrorReporter;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.order.SCC;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.typecheckable.TypecheckingUnit;
+import org.arend.typechecking.visitor.CheckTypeVisitor;
+import org.arend.util.Pair;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects SCCs found by an ordering and typechecks them on a pool of threads.
+ * An SCC is scheduled as soon as all SCCs it depends on are typechecked.
+ * Errors are reported in the order in which SCCs were found, that is, in the same order as in the sequential mode.
+ */
+class ParallelTypechecking implements OrderingListener, DependencyListener {
+  private final TypecheckingOrderingListener myListener;
+  private final DependencyListener myDependencyListener;
+  private final ErrorReporter myErrorReporter;
+  private final int myNumberOfThreads;
+
+  private final List<Element> myElements = new ArrayList<>();
+  private final Map<TCReferable, List<Element>> myElementsByDefinition = new HashMap<>();
+  private final Map<TCReferable, Concrete.Definition> myDefinitions = new HashMap<>();
+  private final Map<TCReferable, Set<TCReferable>> myDependencies = new HashMap<>();
+  private final Map<GlobalReferable, Pair<CheckTypeVisitor,Boolean>> mySuspensions = new ConcurrentHashMap<>();
+
+  private ForkJoinPool myPool;
+  private volatile boolean myCanceled;
+
+  private static class Element extends CollectingOrderingListener {
+    final int index;
+    final List<TypecheckingUnit> units;
+    final List<Element> dependents = new ArrayList<>();
+    final AtomicInteger dependencies = new AtomicInteger();
+    final ListErrorReporter errorReporter = new ListErrorReporter();
+    final CountDownLatch latch = new CountDownLatch(1);
+    Throwable exception;
+
+    Element(int index, List<TypecheckingUnit> units) {
+      this.index = index;
+      this.units = units;
+    }
+  }
+
+  private class Worker extends TypecheckingOrderingListener {
+    Worker(ErrorReporter errorReporter) {
+      super(myListener, mySuspensions, ParallelTypechecking.this, errorReporter);
+    }
+
+    @Override
+    public void typecheckingHeaderStarted(TCReferable definition) {
+      myListener.typecheckingHeaderStarted(definition);
+    }
+
+    @Override
+    public void typecheckingBodyStarted(TCReferable definition) {
+      myListener.typecheckingBodyStarted(definition);
+    }
+
+    @Override
+    public void typecheckingUnitStarted(TCReferable definition) {
+      myListener.typecheckingUnitStarted(definition);
+    }
+
+    @Override
+    public void typecheckingHeaderFinished(TCReferable referable, Definition definition) {
+      myListener.typecheckingHeaderFinished(referable, definition);
+    }
+
+    @Override
+    public void typecheckingBodyFinished(TCReferable referable, Definition definition) {
+      myListener.typecheckingBodyFinished(referable, definition);
+    }
+
+    @Override
+    public void typecheckingUnitFinished(TCReferable referable, Definition definition) {
+      myListener.typecheckingUnitFinished(referable, definition);
+    }
+
+    @Override
+    public void typecheckingInterrupted(TCReferable definition) {
+      myListener.typecheckingInterrupted(definition);
+    }
+  }
+
+  ParallelTypechecking(TypecheckingOrderingListener listener, DependencyListener dependencyListener, ErrorReporter errorReporter, int numberOfThreads) {
+    myListener = listener;
+    myDependencyListener = dependencyListener;
+    myErrorReporter = errorReporter;
+    myNumberOfThreads = numberOfThreads;
+  }
+
+  private Element addElement(List<TypecheckingUnit> units) {
+    Element element = new Element(myElements.size(), units);
+    myElements.add(element);
+    for (TypecheckingUnit unit : units) {
+      TCReferable referable = unit.getDefinition().getData();
+      myElementsByDefinition.computeIfAbsent(referable, k -> new ArrayList<>()).add(element);
+      myDefinitions.put(referable, unit.getDefinition());
+    }
+    return element;
+  }
+
+  @Override
+  public void unitFound(TypecheckingUnit unit, Recursion recursion) {
+    addElement(Collections.singletonList(unit)).unitFound(unit, recursion);
+  }
+
+  @Override
+  public void sccFound(SCC scc) {
+    addElement(new ArrayList<>(scc.getUnits())).sccFound(scc);
+  }
+
+  @Override
+  public synchronized void dependsOn(TCReferable def1, boolean header, TCReferable def2) {
+    if (myPool == null) {
+      myDependencies.computeIfAbsent(def1, k -> new LinkedHashSet<>()).add(def2);
+    }
+    myDependencyListener.dependsOn(def1, header, def2);
+  }
+
+  @Override
+  public synchronized Set<? extends TCReferable> update(TCReferable definition) {
+    return myDependencyListener.update(definition);
+  }
+
+  @Override
+  public synchronized Set<? extends TCReferable> rechecked(TCReferable definition) {
+    return myDependencyListener.rechecked(definition);
+  }
+
+  private void addDependencies(Element element, TCReferable definition, Set<Element> result) {
+    List<Element> elements = myElementsByDefinition.get(definition);
+    if (elements != null) {
+      for (Element dependency : elements) {
+        if (dependency.index < element.index) {
+          result.add(dependency);
+        }
+      }
+    }
+  }
+
+  private void buildGraph() {
+    for (Element element : myElements) {
+      Set<Element> dependencies = new HashSet<>();
+      for (TypecheckingUnit unit : element.units) {
+        TCReferable referable = unit.getDefinition().getData();
+        addDependencies(element, referable, dependencies);
+        for (TCReferable dependency : myDependencies.getOrDefault(referable, Collections.emptySet())) {
+          addDependencies(element, dependency, dependencies);
+          // \\use definitions are typechecked right after the definition they belong to, so they must precede its dependents
+          Concrete.Definition definition = myDefinitions.get(dependency);
+          if (definition != null) {
+            for (TCReferable usedDefinition : definition.getUsedDefinitions()) {
+              addDependencies(element, usedDefinition, dependencies);
+            }
+          }
+        }
+      }
+
+      element.dependencies.set(dependencies.size());
+      for (Element dependency : dependencies) {
+        dependency.dependents.add(element);
+      }
+    }
+  }
+
+  private void schedule(Element element) {
+    myPool.execute(() -> {
+      try {
+        if (!myCanceled && !new Worker(element.errorReporter).typecheckCollected(element)) {
+          myCanceled = true;
+        }
+      } catch (Throwable e) {
+        element.exception = e;
+        myCanceled = true;
+      } finally {
+        element.latch.countDown();
+        for (Element dependent : element.dependents) {
+          if (dependent.dependencies.decrementAndGet() == 0) {
+            schedule(dependent);
+          }
+        }
+      }
+    });
+  }
+
+  boolean typecheck() {
+    buildGraph();
+
+    myPool = new ForkJoinPool(myNumberOfThreads);
+    try {
+      for (Element element : myElements) {
+        if (element.dependencies.get() == 0) {
+          schedule(element);
+        }
+      }
+
+      for (Element element : myElements) {
+        try {
+          element.latch.await();
+        } catch (InterruptedException e) {
+          myCanceled = true;
+          return false;
+        }
+
+        element.errorReporter.reportTo(myErrorReporter);
+        if (element.exception instanceof RuntimeException) {
+          throw (RuntimeException) element.exception;
+        }
+        if (element.exception instanceof Error) {
+          throw (Error) element.exception;
+        }
+      }
+      return !myCanceled;
+    } finally {
+      myPool.shutdownNow();
+    }
+  }
+}
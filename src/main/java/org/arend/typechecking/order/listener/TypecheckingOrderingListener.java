@@ -8,6 +8,8 @@ import org.arend.core.elimtree.Clause;
 import org.arend.core.expr.ClassCallExpression;
 import org.arend.core.expr.ErrorExpression;
 import org.arend.core.expr.PiExpression;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.expr.visitor.WHNFCache;
 import org.arend.core.sort.Sort;
 import org.arend.error.CompositeErrorReporter;
 import org.arend.error.CountingErrorReporter;
@@ -19,6 +21,8 @@ import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.group.Group;
+import org.arend.typechecking.BudgetedCancellationIndicator;
+import org.arend.typechecking.Cancellation;
 import org.arend.typechecking.CancellationIndicator;
 import org.arend.typechecking.visitor.DefinitionTypechecker;
 import org.arend.typechecking.ThreadCancellationIndicator;
@@ -29,12 +33,14 @@ import org.arend.typechecking.error.TerminationCheckError;
 import org.arend.typechecking.error.local.ProxyErrorReporter;
 import org.arend.typechecking.error.local.TypecheckingError;
 import org.arend.typechecking.instance.pool.GlobalInstancePool;
+import org.arend.typechecking.instance.pool.InstanceIndex;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.arend.typechecking.order.Ordering;
 import org.arend.typechecking.order.PartialComparator;
 import org.arend.typechecking.order.SCC;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.arend.typechecking.profile.TypecheckingProfiler;
 import org.arend.typechecking.termination.DefinitionCallGraph;
 import org.arend.typechecking.termination.RecursiveBehavior;
 import org.arend.typechecking.typecheckable.TypecheckingUnit;
@@ -43,6 +49,7 @@ import org.arend.typechecking.visitor.CheckTypeVisitor;
 import org.arend.typechecking.visitor.DesugarVisitor;
 import org.arend.typechecking.visitor.FindDefCallVisitor;
 import org.arend.util.ComputationInterruptedException;
+import org.arend.util.ComputationLimitExceededException;
 import org.arend.util.Pair;
 
 import java.util.*;
@@ -50,19 +57,20 @@ import java.util.*;
 public class TypecheckingOrderingListener implements OrderingListener {
   private final TypecheckerState myState;
   private final DependencyListener myDependencyListener;
-  private final Map<GlobalReferable, Pair<CheckTypeVisitor,Boolean>> mySuspensions = new HashMap<>();
+  private final Map<GlobalReferable, Pair<CheckTypeVisitor,Boolean>> mySuspensions;
   private final ErrorReporter myErrorReporter;
   private final InstanceProviderSet myInstanceProviderSet;
   private final ConcreteProvider myConcreteProvider;
   private final PartialComparator<TCReferable> myComparator;
+  private final InstanceIndex myInstanceIndex;
+  private final Set<TCReferable> myDefinitionsToRecheck;
   private boolean myTypecheckingHeaders = false;
   private TCReferable myCurrentDefinition;
-
-  public static CancellationIndicator CANCELLATION_INDICATOR = ThreadCancellationIndicator.INSTANCE;
-
-  public static void setDefaultCancellationIndicator() {
-    CANCELLATION_INDICATOR = ThreadCancellationIndicator.INSTANCE;
-  }
+  private WHNFCache.Statistics myWHNFCacheStatistics;
+  private CancellationIndicator myCancellationIndicator = ThreadCancellationIndicator.INSTANCE;
+  private long myComputationLimit;
+  private NormalizeVisitor.Engine myNormalizationEngine = NormalizeVisitor.Engine.SUBSTITUTION;
+  private TypecheckingProfiler myProfiler;
 
   public TypecheckingOrderingListener(InstanceProviderSet instanceProviderSet, TypecheckerState state, ConcreteProvider concreteProvider, ErrorReporter errorReporter, DependencyListener dependencyListener, PartialComparator<TCReferable> comparator) {
     myState = state;
@@ -71,6 +79,9 @@ public class TypecheckingOrderingListener implements OrderingListener {
     myInstanceProviderSet = instanceProviderSet;
     myConcreteProvider = concreteProvider;
     myComparator = comparator;
+    myInstanceIndex = new InstanceIndex();
+    myDefinitionsToRecheck = new LinkedHashSet<>();
+    mySuspensions = new HashMap<>();
   }
 
   public TypecheckingOrderingListener(InstanceProviderSet instanceProviderSet, TypecheckerState state, ConcreteProvider concreteProvider, ErrorReporter errorReporter, PartialComparator<TCReferable> comparator) {
@@ -84,15 +95,93 @@ public class TypecheckingOrderingListener implements OrderingListener {
     myInstanceProviderSet = ordering.getInstanceProviderSet();
     myConcreteProvider = ordering.getConcreteProvider();
     myComparator = ordering.getComparator();
+    myInstanceIndex = new InstanceIndex();
+    myDefinitionsToRecheck = new LinkedHashSet<>();
+    mySuspensions = new HashMap<>();
+  }
+
+  TypecheckingOrderingListener(TypecheckingOrderingListener listener, Map<GlobalReferable, Pair<CheckTypeVisitor,Boolean>> suspensions, DependencyListener dependencyListener, ErrorReporter errorReporter) {
+    myState = listener.myState;
+    myErrorReporter = errorReporter;
+    myDependencyListener = dependencyListener;
+    myInstanceProviderSet = listener.myInstanceProviderSet;
+    myConcreteProvider = listener.myConcreteProvider;
+    myComparator = listener.myComparator;
+    myInstanceIndex = listener.myInstanceIndex;
+    myDefinitionsToRecheck = listener.myDefinitionsToRecheck;
+    mySuspensions = suspensions;
+    myWHNFCacheStatistics = listener.myWHNFCacheStatistics;
+    myCancellationIndicator = listener.myCancellationIndicator;
+    myComputationLimit = listener.myComputationLimit;
+    myNormalizationEngine = listener.myNormalizationEngine;
+    myProfiler = listener.myProfiler;
+  }
+
+  /**
+   * Enables caching of weak head normal forms.
+   * Every SCC is typechecked with a fresh cache of the given capacity.
+   */
+  public void enableWHNFCache(int capacity) {
+    myWHNFCacheStatistics = new WHNFCache.Statistics(capacity);
+  }
+
+  public WHNFCache.Statistics getWHNFCacheStatistics() {
+    return myWHNFCacheStatistics;
+  }
+
+  /**
+   * Sets the indicator which is polled by normalization, comparison of expressions and the like while this listener typechecks definitions.
+   */
+  public void setCancellationIndicator(CancellationIndicator indicator) {
+    myCancellationIndicator = indicator;
+  }
+
+  public CancellationIndicator getCancellationIndicator() {
+    return myCancellationIndicator;
+  }
+
+  /**
+   * Limits the number of computation steps that can be made while typechecking a single unit.
+   * If the limit is exceeded, an error is reported and the definitions of the unit are marked as having errors.
+   *
+   * @param limit the maximal number of steps or 0 if the computation is not limited.
+   */
+  public void setComputationLimit(long limit) {
+    myComputationLimit = limit;
+  }
+
+  /**
+   * Sets the engine which is used to reduce beta-redexes while this listener typechecks definitions.
+   */
+  public void setNormalizationEngine(NormalizeVisitor.Engine engine) {
+    myNormalizationEngine = engine;
+  }
+
+  /**
+   * Sets a profiler which collects statistics of every typechecked definition.
+   *
+   * @param profiler the profiler or null if definitions should not be profiled.
+   */
+  public void setProfiler(TypecheckingProfiler profiler) {
+    myProfiler = profiler;
+  }
+
+  public TypecheckingProfiler getProfiler() {
+    return myProfiler;
+  }
+
+  public InstanceIndex getInstanceIndex() {
+    return myInstanceIndex;
   }
 
   public boolean typecheckDefinitions(final Collection<? extends Concrete.Definition> definitions) {
+    myInstanceIndex.clear();
     try {
       Ordering ordering = new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, IdReferableConverter.INSTANCE, myState, myComparator, false);
       for (Concrete.Definition definition : definitions) {
         ordering.orderDefinition(definition);
       }
-      return true;
+      return recheckDependents();
     } catch (ComputationInterruptedException ignored) {
       if (myCurrentDefinition != null) {
         typecheckingInterrupted(myCurrentDefinition);
@@ -102,9 +191,10 @@ public class TypecheckingOrderingListener implements OrderingListener {
   }
 
   public boolean typecheckModules(final Collection<? extends Group> modules) {
+    myInstanceIndex.clear();
     try {
       new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, IdReferableConverter.INSTANCE, myState, myComparator, false).orderModules(modules);
-      return true;
+      return recheckDependents();
     } catch (ComputationInterruptedException ignored) {
       if (myCurrentDefinition != null) {
         typecheckingInterrupted(myCurrentDefinition);
@@ -114,8 +204,9 @@ public class TypecheckingOrderingListener implements OrderingListener {
   }
 
   public boolean typecheckLibrary(Library library) {
+    myInstanceIndex.clear();
     try {
-      return library.orderModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, IdReferableConverter.INSTANCE, myState, myComparator, false));
+      return library.orderModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, IdReferableConverter.INSTANCE, myState, myComparator, false)) && recheckDependents();
     } catch (ComputationInterruptedException ignored) {
       if (myCurrentDefinition != null) {
         typecheckingInterrupted(myCurrentDefinition);
@@ -124,6 +215,29 @@ public class TypecheckingOrderingListener implements OrderingListener {
     }
   }
 
+  /**
+   * Typechecks a library using several threads.
+   * Independent SCCs are typechecked concurrently, so the typechecker state must be thread-safe (see {@link TypecheckerState#isThreadSafe}).
+   * Errors are reported in the same order as in the sequential mode,
+   * but methods {@link #typecheckingUnitStarted} and the like may be invoked concurrently from different threads.
+   */
+  public boolean typecheckLibrary(Library library, int numberOfThreads) {
+    if (numberOfThreads <= 1) {
+      return typecheckLibrary(library);
+    }
+    if (!myState.isThreadSafe()) {
+      throw new IllegalStateException("Parallel typechecking requires a thread-safe typechecker state");
+    }
+
+    myInstanceIndex.clear();
+    ParallelTypechecking typechecking = new ParallelTypechecking(this, myDependencyListener, myErrorReporter, numberOfThreads);
+    return library.orderModules(new Ordering(myInstanceProviderSet, myConcreteProvider, typechecking, typechecking, IdReferableConverter.INSTANCE, myState, myComparator, false)) && typechecking.typecheck() && recheckDependents();
+  }
+
+  /**
+   * Typechecks collected definitions.
+   * The instance index is not cleared since it may be shared with other listeners.
+   */
   public boolean typecheckCollected(CollectingOrderingListener collector) {
     try {
       collector.feed(this);
@@ -136,6 +250,48 @@ public class TypecheckingOrderingListener implements OrderingListener {
     }
   }
 
+  /**
+   * Typechecks definitions which were reset by the dependency listener after definitions they depend on were typechecked again.
+   */
+  private boolean recheckDependents() {
+    try {
+      while (true) {
+        List<Concrete.Definition> definitions = new ArrayList<>();
+        synchronized (myDefinitionsToRecheck) {
+          if (myDefinitionsToRecheck.isEmpty()) {
+            return true;
+          }
+          for (TCReferable referable : myDefinitionsToRecheck) {
+            Concrete.ReferableDefinition definition = myConcreteProvider.getConcrete(referable);
+            if (definition instanceof Concrete.Definition) {
+              definitions.add((Concrete.Definition) definition);
+            }
+          }
+          myDefinitionsToRecheck.clear();
+        }
+
+        Ordering ordering = new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, IdReferableConverter.INSTANCE, myState, myComparator, false);
+        for (Concrete.Definition definition : definitions) {
+          ordering.orderDefinition(definition);
+        }
+      }
+    } catch (ComputationInterruptedException ignored) {
+      if (myCurrentDefinition != null) {
+        typecheckingInterrupted(myCurrentDefinition);
+      }
+      return false;
+    }
+  }
+
+  private void rechecked(TCReferable definition) {
+    Set<? extends TCReferable> dependents = myDependencyListener.rechecked(definition);
+    if (!dependents.isEmpty()) {
+      synchronized (myDefinitionsToRecheck) {
+        myDefinitionsToRecheck.addAll(dependents);
+      }
+    }
+  }
+
   public void typecheckingHeaderStarted(TCReferable definition) {
 
   }
@@ -201,8 +357,73 @@ public class TypecheckingOrderingListener implements OrderingListener {
     return typechecked;
   }
 
+  private WHNFCache startWHNFCache() {
+    return WHNFCache.activate(myWHNFCacheStatistics == null ? null : new WHNFCache(myWHNFCacheStatistics.getCapacity()));
+  }
+
+  private CancellationIndicator startCancellationIndicator() {
+    return Cancellation.activate(myComputationLimit > 0 ? new BudgetedCancellationIndicator(myCancellationIndicator, myComputationLimit) : myCancellationIndicator);
+  }
+
+  private void startProfiling(TCReferable definition) {
+    if (myProfiler != null) {
+      myProfiler.start(definition);
+    }
+  }
+
+  private void stopProfiling() {
+    if (myProfiler != null) {
+      myProfiler.stop();
+    }
+  }
+
+  private void computationLimitExceeded(Collection<? extends Concrete.Definition> definitions, ComputationLimitExceededException exception) {
+    myCurrentDefinition = null;
+    for (Concrete.Definition definition : definitions) {
+      mySuspensions.remove(definition.getData());
+
+      // Partially typechecked definitions cannot be used, so we replace them with stubs
+      myState.reset(definition.getData());
+      if (definition instanceof Concrete.DataDefinition) {
+        for (Concrete.ConstructorClause constructorClause : ((Concrete.DataDefinition) definition).getConstructorClauses()) {
+          for (Concrete.Constructor constructor : constructorClause.getConstructors()) {
+            myState.reset(constructor.getData());
+          }
+        }
+      } else if (definition instanceof Concrete.ClassDefinition) {
+        for (Concrete.ClassField field : ((Concrete.ClassDefinition) definition).getFields()) {
+          myState.reset(field.getData());
+        }
+      }
+
+      Definition typechecked = newDefinition(definition);
+      myErrorReporter.report(new ProxyError(definition.getData(), new TypecheckingError("Computation limit of " + exception.getLimit() + " steps is exceeded", definition)));
+      typecheckingUnitFinished(definition.getData(), typechecked);
+      rechecked(definition.getData());
+    }
+  }
+
   @Override
   public void sccFound(SCC scc) {
+    WHNFCache previous = startWHNFCache();
+    CancellationIndicator previousIndicator = startCancellationIndicator();
+    NormalizeVisitor previousVisitor = NormalizeVisitor.activate(myNormalizationEngine);
+    try {
+      typecheckSCC(scc);
+    } catch (ComputationLimitExceededException e) {
+      Set<Concrete.Definition> definitions = new LinkedHashSet<>();
+      for (TypecheckingUnit unit : scc.getUnits()) {
+        definitions.add(unit.getDefinition());
+      }
+      computationLimitExceeded(definitions, e);
+    } finally {
+      NormalizeVisitor.deactivate(previousVisitor);
+      Cancellation.deactivate(previousIndicator);
+      WHNFCache.deactivate(previous, myWHNFCacheStatistics);
+    }
+  }
+
+  private void typecheckSCC(SCC scc) {
     for (TypecheckingUnit unit : scc.getUnits()) {
       if (!TypecheckingUnit.hasHeader(unit.getDefinition())) {
         List<TCReferable> cycle = new ArrayList<>();
@@ -226,6 +447,7 @@ public class TypecheckingOrderingListener implements OrderingListener {
               mySuspensions.remove(definition.getData());
             }
             typecheckingUnitFinished(definition.getData(), typechecked);
+            rechecked(definition.getData());
           }
         }
         myErrorReporter.report(new CycleError(cycle));
@@ -247,10 +469,26 @@ public class TypecheckingOrderingListener implements OrderingListener {
 
   @Override
   public void unitFound(TypecheckingUnit unit, Recursion recursion) {
+    WHNFCache previous = startWHNFCache();
+    CancellationIndicator previousIndicator = startCancellationIndicator();
+    NormalizeVisitor previousVisitor = NormalizeVisitor.activate(myNormalizationEngine);
+    try {
+      typecheckUnit(unit, recursion);
+    } catch (ComputationLimitExceededException e) {
+      computationLimitExceeded(Collections.singletonList(unit.getDefinition()), e);
+    } finally {
+      NormalizeVisitor.deactivate(previousVisitor);
+      Cancellation.deactivate(previousIndicator);
+      WHNFCache.deactivate(previous, myWHNFCacheStatistics);
+    }
+  }
+
+  private void typecheckUnit(TypecheckingUnit unit, Recursion recursion) {
     if (recursion == Recursion.IN_HEADER) {
       typecheckingUnitStarted(unit.getDefinition().getData());
       myErrorReporter.report(new CycleError(Collections.singletonList(unit.getDefinition().getData())));
       typecheckingUnitFinished(unit.getDefinition().getData(), newDefinition(unit.getDefinition()));
+      rechecked(unit.getDefinition().getData());
     } else {
       unit.getDefinition().setRecursive(recursion == Recursion.IN_BODY);
       typecheck(unit);
@@ -275,20 +513,25 @@ public class TypecheckingOrderingListener implements OrderingListener {
       Concrete.Definition definition = unit.getDefinition();
       myCurrentDefinition = definition.getData();
       typecheckingHeaderStarted(myCurrentDefinition);
-
-      CountingErrorReporter countingErrorReporter = new CountingErrorReporter();
-      CheckTypeVisitor visitor = new CheckTypeVisitor(myState, new LinkedHashMap<>(), new ProxyErrorReporter(definition.getData(), new CompositeErrorReporter(myErrorReporter, countingErrorReporter)), null);
-      if (definition.hasErrors()) {
-        visitor.setHasErrors();
-      }
-      DesugarVisitor.desugar(definition, myConcreteProvider, visitor.getErrorReporter());
-      Definition oldTypechecked = visitor.getTypecheckingState().getTypechecked(definition.getData());
-      definition.setRecursive(true);
-      Definition typechecked = new DefinitionTypechecker(visitor).typecheckHeader(oldTypechecked, new GlobalInstancePool(myState, myInstanceProviderSet.get(definition.getData()), visitor), definition);
-      if (typechecked.status() == Definition.TypeCheckingStatus.BODY_NEEDS_TYPE_CHECKING) {
-        mySuspensions.put(definition.getData(), new Pair<>(visitor, oldTypechecked == null));
+      startProfiling(myCurrentDefinition);
+
+      Definition typechecked;
+      try {
+        CountingErrorReporter countingErrorReporter = new CountingErrorReporter();
+        CheckTypeVisitor visitor = new CheckTypeVisitor(myState, new LinkedHashMap<>(), new ProxyErrorReporter(definition.getData(), new CompositeErrorReporter(myErrorReporter, countingErrorReporter)), null);
+        if (definition.hasErrors()) {
+          visitor.setHasErrors();
+        }
+        DesugarVisitor.desugar(definition, myConcreteProvider, visitor.getErrorReporter());
+        Definition oldTypechecked = visitor.getTypecheckingState().getTypechecked(definition.getData());
+        definition.setRecursive(true);
+        typechecked = new DefinitionTypechecker(visitor).typecheckHeader(oldTypechecked, new GlobalInstancePool(myState, myInstanceProviderSet.get(definition.getData()), visitor, myInstanceIndex), definition);
+        if (typechecked.status() == Definition.TypeCheckingStatus.BODY_NEEDS_TYPE_CHECKING) {
+          mySuspensions.put(definition.getData(), new Pair<>(visitor, oldTypechecked == null));
+        }
+      } finally {
+        stopProfiling();
       }
-
       typecheckingHeaderFinished(definition.getData(), typechecked);
       myCurrentDefinition = null;
       return typechecked.status().headerIsOK();
@@ -345,18 +588,22 @@ public class TypecheckingOrderingListener implements OrderingListener {
     for (Concrete.Definition definition : orderedDefinitions) {
       myCurrentDefinition = definition.getData();
       typecheckingBodyStarted(myCurrentDefinition);
-
-      Definition def = myState.getTypechecked(definition.getData());
-      Pair<CheckTypeVisitor, Boolean> pair = mySuspensions.remove(definition.getData());
-      if (headersAreOK && pair != null) {
-        typechecking.setTypechecker(pair.proj1);
-        List<Clause> clauses = typechecking.typecheckBody(def, definition, dataDefinitions, pair.proj2);
-        if (clauses != null) {
-          functionDefinitions.put((FunctionDefinition) def, definition);
-          clausesMap.put((FunctionDefinition) def, clauses);
+      startProfiling(myCurrentDefinition);
+
+      try {
+        Definition def = myState.getTypechecked(definition.getData());
+        Pair<CheckTypeVisitor, Boolean> pair = mySuspensions.remove(definition.getData());
+        if (headersAreOK && pair != null) {
+          typechecking.setTypechecker(pair.proj1);
+          List<Clause> clauses = typechecking.typecheckBody(def, definition, dataDefinitions, pair.proj2);
+          if (clauses != null) {
+            functionDefinitions.put((FunctionDefinition) def, definition);
+            clausesMap.put((FunctionDefinition) def, clauses);
+          }
         }
+      } finally {
+        stopProfiling();
       }
-
       myCurrentDefinition = null;
     }
 
@@ -384,6 +631,7 @@ public class TypecheckingOrderingListener implements OrderingListener {
 
     for (Concrete.Definition definition : orderedDefinitions) {
       typecheckingBodyFinished(definition.getData(), myState.getTypechecked(definition.getData()));
+      rechecked(definition.getData());
     }
   }
 
@@ -399,26 +647,41 @@ public class TypecheckingOrderingListener implements OrderingListener {
       }
       myCurrentDefinition = definition.getData();
       typecheckingBodyStarted(myCurrentDefinition);
-      typechecked = myState.getTypechecked(myCurrentDefinition);
-      clauses = new DefinitionTypechecker(pair.proj1).typecheckBody(typechecked, definition, Collections.emptySet(), pair.proj2);
+      startProfiling(myCurrentDefinition);
+      try {
+        typechecked = myState.getTypechecked(myCurrentDefinition);
+        clauses = new DefinitionTypechecker(pair.proj1).typecheckBody(typechecked, definition, Collections.emptySet(), pair.proj2);
+      } finally {
+        stopProfiling();
+      }
     } else {
       CheckTypeVisitor checkTypeVisitor = new CheckTypeVisitor(myState, new LinkedHashMap<>(), new ProxyErrorReporter(definition.getData(), myErrorReporter), null);
-      checkTypeVisitor.setInstancePool(new GlobalInstancePool(myState, myInstanceProviderSet.get(definition.getData()), checkTypeVisitor));
+      checkTypeVisitor.setInstancePool(new GlobalInstancePool(myState, myInstanceProviderSet.get(definition.getData()), checkTypeVisitor, myInstanceIndex));
       DesugarVisitor.desugar(definition, myConcreteProvider, checkTypeVisitor.getErrorReporter());
       if (isLevel) {
         myCurrentDefinition = definition.getData();
         typecheckingHeaderStarted(myCurrentDefinition);
-        Definition oldTypechecked = myState.getTypechecked(definition.getData());
-        mySuspensions.put(definition.getData(), new Pair<>(checkTypeVisitor, oldTypechecked == null));
-        typechecked = new DefinitionTypechecker(checkTypeVisitor).typecheckHeader(oldTypechecked, checkTypeVisitor.getInstancePool(), definition);
+        startProfiling(myCurrentDefinition);
+        try {
+          Definition oldTypechecked = myState.getTypechecked(definition.getData());
+          mySuspensions.put(definition.getData(), new Pair<>(checkTypeVisitor, oldTypechecked == null));
+          typechecked = new DefinitionTypechecker(checkTypeVisitor).typecheckHeader(oldTypechecked, checkTypeVisitor.getInstancePool(), definition);
+        } finally {
+          stopProfiling();
+        }
         typecheckingHeaderFinished(definition.getData(), typechecked);
         myCurrentDefinition = null;
         return;
       } else {
         myCurrentDefinition = definition.getData();
         typecheckingUnitStarted(myCurrentDefinition);
-        clauses = definition.accept(new DefinitionTypechecker(checkTypeVisitor), null);
-        typechecked = myState.getTypechecked(myCurrentDefinition);
+        startProfiling(myCurrentDefinition);
+        try {
+          clauses = definition.accept(new DefinitionTypechecker(checkTypeVisitor), null);
+          typechecked = myState.getTypechecked(myCurrentDefinition);
+        } finally {
+          stopProfiling();
+        }
       }
     }
 
@@ -428,13 +691,16 @@ public class TypecheckingOrderingListener implements OrderingListener {
 
     if (isLevel && !unit.isHeader()) {
       typecheckingBodyFinished(definition.getData(), typechecked);
+      rechecked(definition.getData());
     } else {
       typecheckingUnitFinished(definition.getData(), typechecked);
+      rechecked(definition.getData());
     }
     myCurrentDefinition = null;
   }
 
   private void checkRecursiveFunctions(Map<FunctionDefinition,Concrete.Definition> definitions, Map<FunctionDefinition,List<Clause>> clauses) {
+    long startTime = myProfiler == null ? 0 : System.nanoTime();
     DefinitionCallGraph definitionCallGraph = new DefinitionCallGraph();
     for (Map.Entry<FunctionDefinition, Concrete.Definition> entry : definitions.entrySet()) {
       List<Clause> functionClauses = clauses.get(entry.getKey());
@@ -459,5 +725,13 @@ public class TypecheckingOrderingListener implements OrderingListener {
         myErrorReporter.report(new TerminationCheckError(entry.getKey(), entry.getValue()));
       }
     }
+
+    if (myProfiler != null) {
+      List<TCReferable> referables = new ArrayList<>(definitions.size());
+      for (FunctionDefinition definition : definitions.keySet()) {
+        referables.add(definition.getReferable());
+      }
+      myProfiler.terminationChecked(referables, System.nanoTime() - startTime);
+    }
   }
 }
@@ -213,7 +213,7 @@ public class ConditionsChecking {
     for (Pair<List<Expression>, ExprSubstitution> pair : collectPatterns(clause.patterns)) {
       Expression evaluatedExpr1;
       if (definition == null) {
-        evaluatedExpr1 = NormalizeVisitor.INSTANCE.eval(elimTree, pair.proj1, new ExprSubstitution(), LevelSubstitution.EMPTY);
+        evaluatedExpr1 = NormalizeVisitor.getCurrent().eval(elimTree, pair.proj1, new ExprSubstitution(), LevelSubstitution.EMPTY);
       } else {
         evaluatedExpr1 = definition.getDefCall(Sort.STD, pair.proj1);
       }
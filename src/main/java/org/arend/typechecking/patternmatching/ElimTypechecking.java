@@ -242,7 +242,7 @@ public class ElimTypechecking {
         }
 
         if (!missingClause.proj2) {
-          if (elimTree != null && NormalizeVisitor.INSTANCE.doesEvaluate(elimTree, expressions, false)) {
+          if (elimTree != null && NormalizeVisitor.getCurrent().doesEvaluate(elimTree, expressions, false)) {
             continue;
           }
 
@@ -393,7 +393,7 @@ public class PatternTypechecking {
           myErrorReporter.report(new TypecheckingError("Pattern matching on a constructor with interval conditions is not allowed here", conPattern));
           return null;
         }
-        if (conCall.getDefinition().getBody() instanceof ElimTree && NormalizeVisitor.INSTANCE.doesEvaluate((ElimTree) conCall.getDefinition().getBody(), conResult.proj2, true)) {
+        if (conCall.getDefinition().getBody() instanceof ElimTree && NormalizeVisitor.getCurrent().doesEvaluate((ElimTree) conCall.getDefinition().getBody(), conResult.proj2, true)) {
           myErrorReporter.report(new TypecheckingError("Pattern matching on a constructor with conditions is allowed only when patterns cannot evaluate", conPattern));
           return null;
         }
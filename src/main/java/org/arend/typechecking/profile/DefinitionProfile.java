@@ -0,0 +1,67 @@
+package org.arend.typechecking.profile;
+
+import org.arend.naming.reference.TCReferable;
+
+/**
+ * Counters collected by {@link TypecheckingProfiler} for a single definition.
+ * The time and the allocated memory do not include typechecking of other definitions started in the meantime.
+ */
+public class DefinitionProfile {
+  private final TCReferable myReferable;
+  long time;
+  long terminationTime;
+  long allocatedBytes = -1;
+  long normalizationSteps;
+  long comparisons;
+  long equations;
+
+  DefinitionProfile(TCReferable referable) {
+    myReferable = referable;
+  }
+
+  public TCReferable getReferable() {
+    return myReferable;
+  }
+
+  /**
+   * @return the time spent on typechecking of the header and the body of the definition in nanoseconds.
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * @return the time spent on the termination checking of the recursive group of the definition in nanoseconds.
+   */
+  public long getTerminationTime() {
+    return terminationTime;
+  }
+
+  /**
+   * @return the number of bytes allocated while the definition was typechecked or -1 if the JVM does not support this measurement.
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * @return the number of unfoldings of functions by {@link org.arend.core.expr.visitor.NormalizeVisitor}.
+   */
+  public long getNormalizationSteps() {
+    return normalizationSteps;
+  }
+
+  /**
+   * @return the number of comparisons of expressions by {@link org.arend.core.expr.visitor.CompareVisitor}.
+   */
+  public long getComparisons() {
+    return comparisons;
+  }
+
+  /**
+   * @return the number of equations on inference variables which were deferred to be solved later.
+   */
+  public long getEquations() {
+    return equations;
+  }
+}
@@ -0,0 +1,164 @@
+package org.arend.typechecking.profile;
+
+import org.arend.naming.reference.TCReferable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects per-definition statistics of typechecking (see {@link DefinitionProfile}).
+ * A definition is profiled between {@link #start} and {@link #stop} on the same thread.
+ * Counters are incremented by the typechecker through static methods such as {@link #countNormalizationStep},
+ * which do nothing unless some definition is being profiled.
+ */
+public class TypecheckingProfiler {
+  private static final ThreadLocal<Frame> CURRENT = new ThreadLocal<>();
+  /**
+   * The number of threads on which some definition is being profiled, so that counters are cheap if nothing is profiled.
+   */
+  private static final AtomicInteger ourActiveThreads = new AtomicInteger();
+
+  private final Map<TCReferable, DefinitionProfile> myProfiles = new ConcurrentHashMap<>();
+  private final com.sun.management.ThreadMXBean myThreadBean;
+
+  private static class Frame {
+    final DefinitionProfile profile;
+    final Frame parent;
+    long startTime;
+    long startAllocatedBytes;
+
+    Frame(DefinitionProfile profile, Frame parent) {
+      this.profile = profile;
+      this.parent = parent;
+    }
+  }
+
+  public TypecheckingProfiler() {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    myThreadBean = threadBean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported() ? (com.sun.management.ThreadMXBean) threadBean : null;
+  }
+
+  private long getAllocatedBytes() {
+    return myThreadBean == null ? -1 : myThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private void resume(Frame frame) {
+    frame.startTime = System.nanoTime();
+    frame.startAllocatedBytes = getAllocatedBytes();
+  }
+
+  private void pause(Frame frame) {
+    frame.profile.time += System.nanoTime() - frame.startTime;
+    if (frame.startAllocatedBytes >= 0) {
+      frame.profile.allocatedBytes += getAllocatedBytes() - frame.startAllocatedBytes;
+    }
+  }
+
+  private DefinitionProfile getProfile(TCReferable definition) {
+    return myProfiles.computeIfAbsent(definition, def -> {
+      DefinitionProfile profile = new DefinitionProfile(def);
+      if (myThreadBean != null) {
+        profile.allocatedBytes = 0;
+      }
+      return profile;
+    });
+  }
+
+  /**
+   * Starts profiling of a definition on the current thread.
+   * The definition that is currently profiled on this thread is paused until {@link #stop} is invoked.
+   */
+  public void start(TCReferable definition) {
+    Frame parent = CURRENT.get();
+    if (parent != null) {
+      pause(parent);
+    } else {
+      ourActiveThreads.incrementAndGet();
+    }
+    Frame frame = new Frame(getProfile(definition), parent);
+    CURRENT.set(frame);
+    resume(frame);
+  }
+
+  /**
+   * Stops profiling of the definition started last on the current thread.
+   */
+  public void stop() {
+    Frame frame = CURRENT.get();
+    if (frame == null) {
+      return;
+    }
+    pause(frame);
+    if (frame.parent == null) {
+      CURRENT.remove();
+      ourActiveThreads.decrementAndGet();
+    } else {
+      CURRENT.set(frame.parent);
+      resume(frame.parent);
+    }
+  }
+
+  /**
+   * Records the time of the termination checking of a group of mutually recursive definitions.
+   */
+  public void terminationChecked(Collection<? extends TCReferable> definitions, long time) {
+    for (TCReferable definition : definitions) {
+      getProfile(definition).terminationTime += time;
+    }
+  }
+
+  /**
+   * Removes all collected profiles, so that the profiler can be reused for another request.
+   */
+  public void clear() {
+    myProfiles.clear();
+  }
+
+  /**
+   * @return profiles of all definitions sorted by the total time in descending order.
+   */
+  public List<DefinitionProfile> getProfiles() {
+    List<DefinitionProfile> result = new ArrayList<>(myProfiles.values());
+    result.sort(Comparator.comparingLong((DefinitionProfile profile) -> profile.time + profile.terminationTime).reversed());
+    return result;
+  }
+
+  private static DefinitionProfile getCurrent() {
+    Frame frame = CURRENT.get();
+    return frame == null ? null : frame.profile;
+  }
+
+  public static void countNormalizationStep() {
+    if (ourActiveThreads.get() > 0) {
+      DefinitionProfile profile = getCurrent();
+      if (profile != null) {
+        profile.normalizationSteps++;
+      }
+    }
+  }
+
+  public static void countComparison() {
+    if (ourActiveThreads.get() > 0) {
+      DefinitionProfile profile = getCurrent();
+      if (profile != null) {
+        profile.comparisons++;
+      }
+    }
+  }
+
+  public static void countEquation() {
+    if (ourActiveThreads.get() > 0) {
+      DefinitionProfile profile = getCurrent();
+      if (profile != null) {
+        profile.equations++;
+      }
+    }
+  }
+}
@@ -2,54 +2,58 @@ package org.arend.typechecking.termination;
 
 /*Generated by MPS */
 
+import org.arend.typechecking.Cancellation;
+
 import java.util.*;
 
 public abstract class BaseCallGraph<T> {
-  private HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> myGraph = new HashMap<>();
+  private final Map<T, Map<T, List<BaseCallMatrix<T>>>> myGraph = new HashMap<>();
   private boolean isCompositionClosed = false;
 
   BaseCallGraph() {
   }
 
+  /**
+   * Computes the closure of {@code g} under composition.
+   * Only new edges of the previous round are extended by edges of {@code g},
+   * and edges subsumed by other edges with the same endpoints are dropped (see {@link #append}).
+   * The computation stops after a round which found a bad loop (see {@link BaseCallMatrix#isBadLoop}),
+   * since such a graph cannot pass the termination check anyway.
+   */
   BaseCallGraph(BaseCallGraph<T> g) {
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> newGraph;
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> oldGraph = g.myGraph;
-    int myNewEdges;
-
-    do {
-      myNewEdges = 0;
-      newGraph = new HashMap<>();
-
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = oldGraph.get(vDom);
-        for (T vCodom : outboundEdges.keySet()) {
-          for (BaseCallMatrix<T> edge : outboundEdges.get(vCodom)) {
-            append(edge, newGraph);
+    Map<T, List<BaseCallMatrix<T>>> edges = new HashMap<>();
+    List<BaseCallMatrix<T>> delta = new ArrayList<>();
+    boolean foundBadLoop = false;
+    for (Map<T, List<BaseCallMatrix<T>>> outboundEdges : g.myGraph.values()) {
+      for (List<BaseCallMatrix<T>> edgesSheaf : outboundEdges.values()) {
+        for (BaseCallMatrix<T> edge : edgesSheaf) {
+          if (append(edge, myGraph)) {
+            edges.computeIfAbsent(edge.getDomain(), k -> new ArrayList<>()).add(edge);
+            delta.add(edge);
+            foundBadLoop = foundBadLoop || edge.isBadLoop();
           }
         }
       }
+    }
 
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = oldGraph.get(vDom);
-        for (T vCodom : outboundEdges.keySet()) {
-          for (BaseCallMatrix<T> edge : outboundEdges.get(vCodom)) {
-            HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges2 = oldGraph.get(edge.getCodomain());
-            if (outboundEdges2 != null) {
-              for (HashSet<BaseCallMatrix<T>> edgesSheaf : outboundEdges2.values()) {
-                for (BaseCallMatrix<T> edge2 : edgesSheaf) {
-                  if (append(new CompositeCallMatrix<>(edge, edge2), newGraph)) {
-                    myNewEdges++;
-                  }
-                }
-              }
+    while (!delta.isEmpty() && !foundBadLoop) {
+      Cancellation.check();
+      List<BaseCallMatrix<T>> newDelta = new ArrayList<>();
+      for (BaseCallMatrix<T> edge : delta) {
+        List<BaseCallMatrix<T>> outboundEdges = edges.get(edge.getCodomain());
+        if (outboundEdges != null) {
+          for (BaseCallMatrix<T> edge2 : outboundEdges) {
+            BaseCallMatrix<T> composite = new CompositeCallMatrix<>(edge, edge2);
+            if (append(composite, myGraph)) {
+              newDelta.add(composite);
+              foundBadLoop = foundBadLoop || composite.isBadLoop();
             }
           }
         }
       }
-      oldGraph = newGraph;
-    } while (myNewEdges > 0);
+      delta = newDelta;
+    }
 
-    myGraph = newGraph;
     isCompositionClosed = true;
   }
 
@@ -77,40 +81,23 @@ public abstract class BaseCallGraph<T> {
     return result.toString();
   }
 
-  private static <T> boolean append(BaseCallMatrix<T> cm, HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> graph) {
-    HashSet<BaseCallMatrix<T>> set;
-    HashMap<T, HashSet<BaseCallMatrix<T>>> map;
-    if (!(graph.containsKey(cm.getDomain()))) {
-      map = new HashMap<>();
-      set = new HashSet<>();
-      set.add(cm);
-      map.put(cm.getCodomain(), set);
-      graph.put(cm.getDomain(), map);
-      return true;
-    } else {
-      map = graph.get(cm.getDomain());
-      if (!(map.containsKey(cm.getCodomain()))) {
-        set = new HashSet<>();
-        set.add(cm);
-        map.put(cm.getCodomain(), set);
-        return true;
-      } else {
-        set = map.get(cm.getCodomain());
-        boolean alreadyContainsEqual = false;
-
-        for (BaseCallMatrix c : set) {
-          if (cm.equals(c)) {
-            alreadyContainsEqual = true;
-          }
-        }
-
-        if (!(alreadyContainsEqual)) {
-          set.add(cm);
-        }
-
-        return !alreadyContainsEqual;
+  /**
+   * Adds an edge to the graph unless it contains an edge {@code e} with the same endpoints such that {@code e.leq(cm)}.
+   * Such an edge is at least as bad for the termination check as {@code cm} and so are its compositions.
+   * Edges which are subsumed by {@code cm} are removed.
+   *
+   * @return true if the edge was added, false otherwise.
+   */
+  private static <T> boolean append(BaseCallMatrix<T> cm, Map<T, Map<T, List<BaseCallMatrix<T>>>> graph) {
+    List<BaseCallMatrix<T>> edgesSheaf = graph.computeIfAbsent(cm.getDomain(), k -> new HashMap<>()).computeIfAbsent(cm.getCodomain(), k -> new ArrayList<>());
+    for (BaseCallMatrix<T> edge : edgesSheaf) {
+      if (edge.leq(cm)) {
+        return false;
       }
     }
+    edgesSheaf.removeIf(cm::leq);
+    edgesSheaf.add(cm);
+    return true;
   }
 
   public boolean checkTermination() {
@@ -142,7 +129,7 @@ public abstract class BaseCallGraph<T> {
       myBasepoint = v;
     }
 
-    private RecursiveBehaviors(Set<BaseCallMatrix<T>> callMatrices) {
+    private RecursiveBehaviors(Collection<BaseCallMatrix<T>> callMatrices) {
       if (callMatrices != null)
         for (BaseCallMatrix<T> m : callMatrices) myBehaviors.add(new RecursiveBehavior<>(m));
       if (!myBehaviors.isEmpty()) {
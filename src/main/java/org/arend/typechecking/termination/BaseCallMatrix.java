@@ -9,7 +9,6 @@ import org.arend.term.prettyprint.PrettyPrinterConfig;
 import org.arend.util.StringFormat;
 
 import java.util.Arrays;
-import java.util.HashMap;
 
 public abstract class BaseCallMatrix<T> {
   public enum R {
@@ -18,36 +17,6 @@ public abstract class BaseCallMatrix<T> {
     LessThan()
   }
 
-  private static BaseCallMatrix.R rmul(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    switch (a) {
-      case Equal:
-        switch (b) {
-          case Equal:
-            return BaseCallMatrix.R.Equal;
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      case LessThan:
-        switch (b) {
-          case Equal:
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      default:
-        return BaseCallMatrix.R.Unknown;
-    }
-  }
-
-  private static BaseCallMatrix.R radd(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    if (a == R.LessThan || b == R.LessThan) return R.LessThan;
-    if (a == R.Equal || b == R.Equal) return R.Equal;
-    return R.Unknown;
-  }
-
   static boolean rleq(BaseCallMatrix.R a, BaseCallMatrix.R b) {
     switch (a) {
       case LessThan:
@@ -59,58 +28,60 @@ public abstract class BaseCallMatrix<T> {
     }
   }
 
-  private HashMap<Integer, BaseCallMatrix.CallMatrixEntry> myMatrixMap = new HashMap<>();
-  private BaseCallMatrix.R[][] fallbackMatrix = null;
+  private static final R[] VALUES = R.values();
 
-  private int myWidth;
-  private int myHeight;
+  // Entries are stored row by row as ordinals of R, so that Unknown < Equal < LessThan agrees with rleq
+  private final byte[] myMatrix;
+  private final int myWidth;
+  private final int myHeight;
 
   BaseCallMatrix(int width, int height) {
     myWidth = width;
     myHeight = height;
+    myMatrix = new byte[width * height];
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m) {
-    // copy constructor 
+    // copy constructor
     myWidth = m.myWidth;
     myHeight = m.myHeight;
-    if (myMatrixMap != null) {
-      for (Integer j : m.myMatrixMap.keySet()) {
-        BaseCallMatrix.CallMatrixEntry cme = m.myMatrixMap.get(j);
-        myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(cme.myIndex, cme.myRel));
-      }
-    } else {
-      fallbackMatrix = new BaseCallMatrix.R[myHeight][myWidth];
-      for (int i = 0; i < myHeight; i++) System.arraycopy(fallbackMatrix[i], 0, fallbackMatrix[i], 0, myWidth);
-    }
+    myMatrix = m.myMatrix.clone();
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m1, BaseCallMatrix<T> m2) {
-    // multiplication constructor 
+    // multiplication constructor
+    myHeight = m1.myHeight;
+    myWidth = m2.myWidth;
+    myMatrix = multiply(m1, m2);
+  }
+
+  /**
+   * Computes the product of two matrices in the semiring in which multiplication is the maximum of nonzero entries and addition is the maximum.
+   */
+  private static byte[] multiply(BaseCallMatrix<?> m1, BaseCallMatrix<?> m2) {
     if (m1.myWidth != m2.myHeight) {
       throw new IllegalArgumentException();
     }
-    myHeight = m1.myHeight;
-    myWidth = m2.myWidth;
 
-    if (m1.myMatrixMap != null && m2.myMatrixMap != null) {
-      for (int j = 0; j < myWidth; j++) {
-        BaseCallMatrix.CallMatrixEntry cme2 = m2.myMatrixMap.get(j);
-        if (cme2 != null) {
-          BaseCallMatrix.CallMatrixEntry cme = m1.myMatrixMap.get(cme2.myIndex);
-          if (cme != null) {
-            myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(cme.myIndex, rmul(cme.myRel, cme2.myRel)));
+    byte[] result = new byte[m1.myHeight * m2.myWidth];
+    for (int i = 0; i < m1.myHeight; i++) {
+      for (int k = 0; k < m1.myWidth; k++) {
+        byte a = m1.myMatrix[i * m1.myWidth + k];
+        if (a == 0) {
+          continue;
+        }
+        for (int j = 0; j < m2.myWidth; j++) {
+          byte b = m2.myMatrix[k * m2.myWidth + j];
+          if (b != 0) {
+            byte v = a > b ? a : b;
+            if (v > result[i * m2.myWidth + j]) {
+              result[i * m2.myWidth + j] = v;
+            }
           }
         }
       }
-    } else {
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++) {
-          BaseCallMatrix.R s = R.Unknown;
-          for (int k = 0; k < m1.myWidth; k++) s = radd(s, rmul(m1.getValue(i, k), m2.getValue(k, j)));
-          set(i, j, s);
-        }
     }
+    return result;
   }
 
   int getHeight() {
@@ -128,61 +99,38 @@ public abstract class BaseCallMatrix<T> {
   public abstract int getCompositeLength();
 
   public void set(int i, int j, BaseCallMatrix.R v) {
-    if (myMatrixMap != null) {
-      BaseCallMatrix.CallMatrixEntry cm = myMatrixMap.get(j);
-      if (cm != null) {
-        if (cm.myIndex != i && v != R.Unknown) {
-          enterFallBackMode();
-          fallbackMatrix[i][j] = v;
-        } else if (cm.myIndex == i) {
-          if (v == R.Unknown) myMatrixMap.put(j, null);
-          else cm.myRel = v;
-        }
-      } else if (v != R.Unknown) {
-        myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(i, v));
-      }
-    } else {
-      fallbackMatrix[i][j] = v;
-    }
+    myMatrix[i * myWidth + j] = (byte) v.ordinal();
   }
 
   public BaseCallMatrix.R getValue(int i, int j) {
-    if (myMatrixMap != null) {
-      BaseCallMatrix.CallMatrixEntry cme = myMatrixMap.get(j);
-      BaseCallMatrix.R result2 = BaseCallMatrix.R.Unknown;
-      if (cme != null && cme.myIndex == i) {
-        result2 = cme.myRel;
-      }
-      return result2;
-    } else {
-      return fallbackMatrix[i][j];
-    }
+    return VALUES[myMatrix[i * myWidth + j]];
   }
 
-  private void enterFallBackMode() {
-    fallbackMatrix = new BaseCallMatrix.R[myHeight][myWidth];
-    for (int i = 0; i < myHeight; i++) for (int j = 0; j < myWidth; j++) fallbackMatrix[i][j] = getValue(i, j);
-    myMatrixMap = null;
+  /**
+   * A loop which is idempotent and does not decrease any parameter is a witness of nontermination:
+   * no lexicographic order can be found for any set of loops containing it.
+   */
+  boolean isBadLoop() {
+    if (getDomain() != getCodomain() || myWidth != myHeight) {
+      return false;
+    }
+    for (int i = 0; i < myHeight; i++) {
+      if (myMatrix[i * myWidth + i] == R.LessThan.ordinal()) {
+        return false;
+      }
+    }
+    return Arrays.equals(myMatrix, multiply(this, this));
   }
 
   public final boolean leq(BaseCallMatrix<T> cm) {
-    if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) {
+    if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain() || myMatrix.length != cm.myMatrix.length) {
       return false;
     }
-    if (myMatrixMap != null && cm.myMatrixMap != null) {
-      for (int k : myMatrixMap.keySet()) {
-        BaseCallMatrix.CallMatrixEntry cme = cm.myMatrixMap.get(k);
-        BaseCallMatrix.CallMatrixEntry mme = myMatrixMap.get(k);
-        if (cme == null || cme.myIndex != mme.myIndex || !(BaseCallMatrix.rleq(mme.myRel, cme.myRel))) {
-          return false;
-        }
+    for (int i = 0; i < myMatrix.length; i++) {
+      if (myMatrix[i] > cm.myMatrix[i]) {
+        return false;
       }
-    } else {
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++)
-          if (!rleq(getValue(i, j), cm.getValue(i, j))) return false;
     }
-
     return true;
   }
 
@@ -190,12 +138,7 @@ public abstract class BaseCallMatrix<T> {
   public final boolean equals(Object object) {
     if (object instanceof BaseCallMatrix) {
       BaseCallMatrix cm = (BaseCallMatrix) object;
-      if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) return false;
-      if (myMatrixMap != null && cm.myMatrixMap != null) return myMatrixMap.equals(cm.myMatrixMap);
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++)
-          if (getValue(i, j) != cm.getValue(i, j)) return false;
-      return true;
+      return getCodomain() == cm.getCodomain() && getDomain() == cm.getDomain() && myWidth == cm.myWidth && Arrays.equals(myMatrix, cm.myMatrix);
     } else {
       return false;
     }
@@ -204,7 +147,7 @@ public abstract class BaseCallMatrix<T> {
   @Override
   public final int hashCode() {
     int result = getCodomain().hashCode() * 31 + getDomain().hashCode();
-    return result * 31 + (myMatrixMap != null ? myMatrixMap.hashCode() : Arrays.deepHashCode(fallbackMatrix));
+    return result * 31 + Arrays.hashCode(myMatrix);
   }
 
   protected String[] getColumnLabels() {
@@ -266,28 +209,4 @@ public abstract class BaseCallMatrix<T> {
 
     return result.toString();
   }
-
-  private static class CallMatrixEntry {
-    int myIndex;
-    BaseCallMatrix.R myRel;
-
-    CallMatrixEntry(int index, BaseCallMatrix.R rel) {
-      myIndex = index;
-      myRel = rel;
-    }
-
-    @Override
-    public int hashCode() {
-      return myIndex * 31 + myRel.hashCode();
-    }
-
-    @Override
-    public boolean equals(Object object) {
-      if (object instanceof BaseCallMatrix.CallMatrixEntry) {
-        BaseCallMatrix.CallMatrixEntry cm = (BaseCallMatrix.CallMatrixEntry) object;
-        return cm.myIndex == myIndex && cm.myRel == myRel;
-      }
-      return false;
-    }
-  }
 }
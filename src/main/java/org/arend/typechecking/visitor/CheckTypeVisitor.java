@@ -398,6 +398,7 @@ public class CheckTypeVisitor implements ConcreteExpressionVisitor<ExpectedType,
             return null;
           }
           fieldSet.put(field, FieldCallExpression.make(field, classCallExpr.getSortArgument(), implExpr));
+          resultClassCall.invalidateClosedness();
         }
       }
     }
@@ -421,11 +422,13 @@ public class CheckTypeVisitor implements ConcreteExpressionVisitor<ExpectedType,
             }
           } else if (!resultClassCall.isImplemented(field)) {
             fieldSet.put(field, impl);
+            resultClassCall.invalidateClosedness();
           }
         } else if (pseudoImplemented != null) {
           pseudoImplemented.add(field);
         } else if (!resultClassCall.isImplemented(field)) {
           fieldSet.put(field, new ErrorExpression(null, null));
+          resultClassCall.invalidateClosedness();
         }
       } else if (pair.proj1 instanceof ClassDefinition) {
         TypecheckingResult result = checkExpr(pair.proj2.implementation, null);
@@ -450,6 +453,7 @@ public class CheckTypeVisitor implements ConcreteExpressionVisitor<ExpectedType,
                   }
                 } else if (!resultClassCall.isImplemented(field)) {
                   fieldSet.put(field, impl);
+                  resultClassCall.invalidateClosedness();
                 }
               }
             }
@@ -0,0 +1,13 @@
+package org.arend.util;
+
+public class ComputationLimitExceededException extends ComputationInterruptedException {
+  private final long myLimit;
+
+  public ComputationLimitExceededException(long limit) {
+    myLimit = limit;
+  }
+
+  public long getLimit() {
+    return myLimit;
+  }
+}
@@ -39,11 +39,18 @@ public abstract class ArendTestCase {
   protected Library preludeLibrary;
   protected ModuleScopeProvider moduleScopeProvider;
 
-  protected final TypecheckerState typecheckerState = new SimpleTypecheckerState();
+  protected final TypecheckerState typecheckerState = createTypecheckerState();
   protected final List<GeneralError> errorList = new ArrayList<>();
   protected final ListErrorReporter errorReporter = new ListErrorReporter(errorList);
   protected final TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(new InstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, PositionComparator.INSTANCE);
 
+  /**
+   * Is invoked during the construction of the test case, so it should not use fields of subclasses.
+   */
+  protected TypecheckerState createTypecheckerState() {
+    return new SimpleTypecheckerState();
+  }
+
   @Before
   public void loadPrelude() {
     libraryManager = new LibraryManager(name -> { throw new IllegalStateException(); }, new InstanceProviderSet(), errorReporter, errorReporter);
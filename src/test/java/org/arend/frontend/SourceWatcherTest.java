@@ -0,0 +1,92 @@
+package org.arend.frontend;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SourceWatcherTest {
+  private static final long TIMEOUT = 5000;
+  private static final long NO_CHANGES_TIMEOUT = 1000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path mySourceDir;
+  private SourceWatcher myWatcher;
+
+  @Before
+  public void initialize() throws IOException {
+    mySourceDir = folder.newFolder("src").toPath();
+    Files.createDirectories(mySourceDir.resolve(".bin"));
+    Files.createDirectories(mySourceDir.resolve("Data"));
+    myWatcher = new SourceWatcher();
+    myWatcher.register(mySourceDir);
+  }
+
+  @After
+  public void close() throws IOException {
+    myWatcher.close();
+  }
+
+  private void write(String file, String text) throws IOException {
+    Files.write(mySourceDir.resolve(file), text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void sourceFileCreated() throws IOException {
+    write("A.ard", "\\func a => 0");
+    assertTrue(myWatcher.waitForChanges(TIMEOUT));
+  }
+
+  @Test
+  public void sourceFileInSubdirectory() throws IOException {
+    write("Data/B.ard", "\\func b => 0");
+    assertTrue(myWatcher.waitForChanges(TIMEOUT));
+  }
+
+  @Test
+  public void burstOfWrites() throws IOException {
+    for (int i = 0; i < 10; i++) {
+      write("A.ard", "\\func a => " + i);
+    }
+    assertTrue(myWatcher.waitForChanges(TIMEOUT));
+    // All events of the burst are consumed by the first call
+    assertFalse(myWatcher.waitForChanges(NO_CHANGES_TIMEOUT));
+  }
+
+  @Test
+  public void binaryDirectoryIgnored() throws IOException {
+    write(".bin/A.ard", "\\func a => 0");
+    assertFalse(myWatcher.waitForChanges(NO_CHANGES_TIMEOUT));
+  }
+
+  @Test
+  public void otherFilesIgnored() throws IOException {
+    write("README", "readme");
+    write("notes.txt", "notes");
+    Files.delete(mySourceDir.resolve("README"));
+    assertFalse(myWatcher.waitForChanges(NO_CHANGES_TIMEOUT));
+  }
+
+  @Test
+  public void directoryCreated() throws IOException {
+    Files.createDirectory(mySourceDir.resolve("Logic"));
+    assertTrue(myWatcher.waitForChanges(TIMEOUT));
+  }
+
+  @Test
+  public void directoryDeleted() throws IOException {
+    Files.delete(mySourceDir.resolve("Data"));
+    assertTrue(myWatcher.waitForChanges(TIMEOUT));
+  }
+}
@@ -0,0 +1,150 @@
+package org.arend.frontend.library;
+
+import org.arend.ArendTestCase;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.library.LibraryDependency;
+import org.arend.library.LibraryManager;
+import org.arend.module.ModulePath;
+import org.arend.prelude.Prelude;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.arend.module.ModulePath.moduleName;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class BuildCacheTest extends ArendTestCase {
+  private static final String KEY = "0123456789abcdef";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private FileSourceLibrary myDependency;
+  private FileSourceLibrary myLibrary;
+  private BuildCache myCache;
+
+  @Before
+  @Override
+  public void loadPrelude() {
+    libraryManager = new LibraryManager(name -> name.equals("dep") ? myDependency : null, new InstanceProviderSet(), errorReporter, errorReporter);
+    preludeLibrary = new PreludeFileLibrary(null, typecheckerState);
+    moduleScopeProvider = preludeLibrary.getModuleScopeProvider();
+    libraryManager.loadLibrary(preludeLibrary);
+    new Prelude.PreludeTypechecking(new InstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, PositionComparator.INSTANCE).typecheckLibrary(preludeLibrary);
+    errorList.clear();
+  }
+
+  @Test
+  public void storeAndRestore() throws IOException {
+    BuildCache cache = new BuildCache(folder.newFolder("cache").toPath());
+    Path binaryFile = folder.getRoot().toPath().resolve("bin").resolve("A.arc");
+    Files.createDirectories(binaryFile.getParent());
+    Files.write(binaryFile, new byte[] { 1, 2, 3 });
+
+    cache.store(KEY, binaryFile);
+    Files.delete(binaryFile);
+    assertTrue(cache.restore(KEY, binaryFile));
+    assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(binaryFile));
+    assertThat(cache.getHits(), is(1L));
+  }
+
+  @Test
+  public void missingKey() throws IOException {
+    BuildCache cache = new BuildCache(folder.newFolder("cache").toPath());
+    Path binaryFile = folder.getRoot().toPath().resolve("A.arc");
+    assertFalse(cache.restore(KEY, binaryFile));
+    assertFalse(cache.restore(null, binaryFile));
+    assertFalse(Files.exists(binaryFile));
+    assertThat(cache.getMisses(), is(1L));
+  }
+
+  private void writeSource(FileSourceLibrary library, String module, String text) throws IOException {
+    Path file = FileUtils.sourceFile(library.getSourceBasePath(), moduleName(module));
+    Files.createDirectories(file.getParent());
+    Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Path binaryFile(String module) {
+    return FileUtils.binaryFile(myLibrary.getBinaryBasePath(), moduleName(module));
+  }
+
+  private void typecheck(FileSourceLibrary library) {
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+  }
+
+  /**
+   * Compiles library {@code lib} with modules A and B, where B imports A and module D from library {@code dep}.
+   * Binary modules of {@code lib} are stored in the cache and then deleted, so that they are restored from it on the next loading.
+   */
+  private void build() throws IOException {
+    myDependency = new FileSourceLibrary("dep", folder.newFolder("dep", "src").toPath(), folder.newFolder("dep", "bin").toPath(), new LinkedHashSet<>(Collections.singletonList(moduleName("D"))), true, Collections.emptyList(), typecheckerState);
+    myLibrary = new FileSourceLibrary("lib", folder.newFolder("lib", "src").toPath(), folder.newFolder("lib", "bin").toPath(), new LinkedHashSet<>(Arrays.asList(moduleName("A"), moduleName("B"))), true, Collections.singletonList(new LibraryDependency("dep")), typecheckerState);
+    myCache = new BuildCache(folder.newFolder("cache").toPath());
+    myLibrary.setBuildCache(myCache);
+
+    writeSource(myDependency, "D", "\\func d => 0");
+    writeSource(myLibrary, "A", "\\func a => 1");
+    writeSource(myLibrary, "B", "\\import A \\import D \\func b => a Nat.+ d");
+    assertTrue(libraryManager.loadLibrary(myLibrary));
+    typecheck(myDependency);
+    typecheck(myLibrary);
+    assertTrue(Files.exists(binaryFile("B")));
+
+    // Unloading the dependency unloads the library too
+    libraryManager.unloadLibrary(myDependency);
+    Files.delete(binaryFile("A"));
+    Files.delete(binaryFile("B"));
+  }
+
+  private void reload() {
+    assertTrue(libraryManager.loadLibrary(myLibrary));
+    assertThat(errorList, is(empty()));
+  }
+
+  @Test
+  public void restoreUnchanged() throws IOException {
+    build();
+    reload();
+    assertThat(myCache.getHits(), is(2L));
+    assertThat(myCache.getMisses(), is(0L));
+    assertTrue(Files.exists(binaryFile("B")));
+  }
+
+  @Test
+  public void editImportedModule() throws IOException {
+    build();
+    writeSource(myLibrary, "A", "\\func a => 2");
+    reload();
+    assertThat(myCache.getHits(), is(0L));
+    assertThat(myCache.getMisses(), is(2L));
+    assertFalse(Files.exists(binaryFile("B")));
+  }
+
+  @Test
+  public void changeDependency() throws IOException {
+    build();
+    writeSource(myDependency, "D", "\\func d => 1");
+    reload();
+    // A does not import the dependency, so only B is compiled again
+    assertThat(myCache.getHits(), is(1L));
+    assertThat(myCache.getMisses(), is(1L));
+    assertTrue(Files.exists(binaryFile("A")));
+    assertFalse(Files.exists(binaryFile("B")));
+  }
+}
@@ -1,14 +1,23 @@
 package org.arend.library;
 
 import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.module.ModulePath;
+import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.source.Source;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import static org.arend.module.ModulePath.moduleName;
 import static org.arend.typechecking.Matchers.*;
@@ -45,6 +54,49 @@ public class CachingTest extends LibraryTestCase {
     assertThat(typecheckerState.getTypechecked(get(aClass.getGroupScope(), "b2")).status(), is(equalTo(Definition.TypeCheckingStatus.MAY_BE_TYPE_CHECKED_WITH_WARNINGS)));
   }
 
+  @Test
+  public void streamingPersisting() {
+    library.addModule(moduleName("A"), "\\func a (n : Nat) : Nat | zero => zero | suc n => suc (a n)");
+    library.addModule(moduleName("B"), "\\import A \\func b (n : Nat) : Nat => a (a n)");
+    library.addModule(moduleName("C"), "\\import B \\func c : Nat => b 7");
+    assertTrue(libraryManager.loadLibrary(library));
+
+    StreamingModulePersister persister = new StreamingModulePersister(library, ConcreteReferableProvider.INSTANCE, errorReporter, false);
+    List<String> persistedBeforeC = new ArrayList<>();
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, PositionComparator.INSTANCE) {
+      @Override
+      public void typecheckingUnitStarted(TCReferable definition) {
+        if (definition.textRepresentation().equals("c")) {
+          for (String module : new String[] { "A", "B", "C" }) {
+            Source source = library.getBinarySource(moduleName(module));
+            if (source != null && source.isAvailable()) {
+              persistedBeforeC.add(module);
+            }
+          }
+        }
+      }
+
+      @Override
+      public void typecheckingUnitFinished(TCReferable referable, Definition definition) {
+        persister.definitionTypechecked(referable);
+      }
+    };
+    assertTrue(listener.typecheckLibrary(library));
+    assertThat(persistedBeforeC, contains("A", "B"));
+    assertTrue(persister.finish());
+    assertThat(persister.getNumberOfPersistedModules(), is(3));
+    assertThat(errorList, is(empty()));
+    assertThat(library.getUpdatedModules(), is(empty()));
+
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library));
+    ChildGroup group = library.getModuleGroup(moduleName("C"));
+    assertThat(group, is(notNullValue()));
+    Definition definition = typecheckerState.getTypechecked(get(group.getGroupScope(), "c"));
+    assertThat(definition, is(notNullValue()));
+    assertThat(definition.status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+  }
+
   @Test
   public void circularDependencies() {
     library.addModule(moduleName("A"), "\\import B() \\func a (n : Nat) : Nat | zero => zero | suc n => B.b n");
@@ -57,6 +109,30 @@ public class CachingTest extends LibraryTestCase {
     assertThat(errorList, is(empty()));
   }
 
+  @Test
+  public void parallelDecoding() {
+    library.addModule(moduleName("A"), "\\func a (n : Nat) : Nat | zero => zero | suc n => suc (a n)");
+    library.addModule(moduleName("B"), "\\import A \\func b (n : Nat) : Nat => a (a n)");
+    library.addModule(moduleName("C"), "\\import A \\func c : Nat => a 7");
+    library.addModule(moduleName("D"), "\\import B \\import C \\func d : Nat => b c");
+    assertTrue(libraryManager.loadLibrary(library));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+
+    libraryManager.unloadLibrary(library);
+    library.setNumberOfLoadingThreads(4);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertThat(errorList, is(empty()));
+    for (String module : new String[] { "A", "B", "C", "D" }) {
+      ChildGroup group = library.getModuleGroup(moduleName(module));
+      assertThat(group, is(notNullValue()));
+      Definition definition = typecheckerState.getTypechecked(get(group.getGroupScope(), module.toLowerCase()));
+      assertThat(definition, is(notNullValue()));
+      assertThat(definition.status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+    }
+  }
+
   @Test
   public void errorInBody() {
     library.addModule(moduleName("A"),
@@ -271,4 +347,79 @@ public class CachingTest extends LibraryTestCase {
     assertThat(sourceB, is(notNullValue()));
     assertTrue(sourceB.isAvailable());
   }
+
+  @Test
+  public void reloadModifiedModule() {
+    DependencyCollector dependencyCollector = new DependencyCollector(typecheckerState);
+    library.setDependencyListener(dependencyCollector);
+    library.addModule(moduleName("A"), "\\func a => 0");
+    library.addModule(moduleName("B"), "\\import A \\func b => a");
+    library.addModule(moduleName("C"), "\\func c => 1");
+    assertTrue(libraryManager.loadLibrary(library));
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, dependencyCollector, PositionComparator.INSTANCE);
+    assertTrue(listener.typecheckLibrary(library));
+    library.clearUpdateModules();
+    TCReferable c = get(library.getModuleGroup(moduleName("C")).getGroupScope(), "c");
+
+    library.updateModule(moduleName("A"), "\\func a => 1 \\func a' => a", true);
+    Set<ModulePath> reloaded = library.reloadModules(libraryManager, Collections.singletonList(moduleName("A")));
+    assertThat(reloaded, containsInAnyOrder(moduleName("A"), moduleName("B")));
+    assertThat(library.getUpdatedModules(), containsInAnyOrder(moduleName("A"), moduleName("B")));
+    assertThat(get(library.getModuleGroup(moduleName("C")).getGroupScope(), "c"), is(c));
+    assertThat(typecheckerState.getTypechecked(c), is(notNullValue()));
+
+    assertTrue(listener.typecheckLibrary(library));
+    assertThat(errorList, is(empty()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleGroup(moduleName("A")).getGroupScope(), "a'")), is(notNullValue()));
+  }
+
+  @Test
+  public void sharedExpressions() {
+    library.addModule(moduleName("A"),
+      "\\data D (a b c : Nat)\n" +
+      "\\func f (x : D 1000 2000 3000) : D 1000 2000 3000 => x\n" +
+      "\\func g (x : D 1000 2000 3000) : D 1000 2000 3000 => f x");
+    assertTrue(libraryManager.loadLibrary(library));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertThat(errorList, is(empty()));
+    ChildGroup aClass = library.getModuleGroup(moduleName("A"));
+    assertThat(aClass, is(notNullValue()));
+
+    // All occurrences of a repeated expression are deserialized as the same instance
+    FunctionDefinition f = (FunctionDefinition) typecheckerState.getTypechecked(get(aClass.getGroupScope(), "f"));
+    FunctionDefinition g = (FunctionDefinition) typecheckerState.getTypechecked(get(aClass.getGroupScope(), "g"));
+    assertThat(f.status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+    assertThat(g.status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+    assertSame(f.getParameters().getTypeExpr(), f.getResultType());
+    assertSame(f.getResultType(), g.getParameters().getTypeExpr());
+    assertSame(f.getResultType(), g.getResultType());
+  }
+
+  @Test
+  public void nestedSharedExpressions() {
+    library.addModule(moduleName("A"),
+      "\\data D (a b c : Nat)\n" +
+      "\\data E (A : \\Set0) (n : Nat)\n" +
+      "\\func h (x : E (D 1000 2000 3000) 4000) : E (D 1000 2000 3000) 4000 => x");
+    assertTrue(libraryManager.loadLibrary(library));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertThat(errorList, is(empty()));
+    ChildGroup aClass = library.getModuleGroup(moduleName("A"));
+    assertThat(aClass, is(notNullValue()));
+
+    // A repeated expression is shared even though its repeated subexpression is shared too
+    FunctionDefinition h = (FunctionDefinition) typecheckerState.getTypechecked(get(aClass.getGroupScope(), "h"));
+    assertThat(h.status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+    assertSame(h.getParameters().getTypeExpr(), h.getResultType());
+  }
 }
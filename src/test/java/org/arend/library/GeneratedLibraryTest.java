@@ -0,0 +1,55 @@
+package org.arend.library;
+
+import org.arend.frontend.LibraryGenerator;
+import org.arend.module.ModulePath;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class GeneratedLibraryTest extends LibraryTestCase {
+  private void typecheckGenerated(LibraryGenerator generator) {
+    for (Map.Entry<ModulePath, String> entry : generator.generateModules().entrySet()) {
+      library.addModule(entry.getKey(), entry.getValue());
+    }
+    assertTrue(libraryManager.loadLibrary(library));
+    assertTrue(typechecking.typecheckLibrary(library));
+    assertThat(errorList, is(empty()));
+  }
+
+  @Test
+  public void defaultLibrary() {
+    typecheckGenerated(new LibraryGenerator());
+  }
+
+  @Test
+  public void mutualRecursion() {
+    typecheckGenerated(new LibraryGenerator().setModules(5).setDefinitions(6).setMutualRecursion(3).setDepth(4));
+  }
+
+  @Test
+  public void classesAndInstances() {
+    typecheckGenerated(new LibraryGenerator().setModules(4).setImports(3).setClasses(3).setInstances(2));
+  }
+
+  @Test
+  public void sameSeed() {
+    assertThat(new LibraryGenerator().setSeed(1).generateModules(), is(equalTo(new LibraryGenerator().setSeed(1).generateModules())));
+  }
+
+  @Test
+  public void parameters() {
+    LibraryGenerator generator = new LibraryGenerator();
+    assertTrue(generator.setParameter("modules", "3"));
+    assertTrue(generator.setParameter("seed", "1"));
+    assertFalse(generator.setParameter("modules", "-1"));
+    assertFalse(generator.setParameter("modules", "many"));
+    assertFalse(generator.setParameter("unknown", "1"));
+    assertThat(generator.generateModules().keySet(), hasSize(3));
+    assertThat(generator.generateModules(), is(equalTo(new LibraryGenerator().setModules(3).setSeed(1).generateModules())));
+  }
+}
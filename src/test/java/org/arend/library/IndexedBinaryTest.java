@@ -0,0 +1,168 @@
+package org.arend.library;
+
+import org.arend.ArendTestCase;
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.error.GeneralError;
+import org.arend.module.ModulePath;
+import org.arend.module.error.DeserializationError;
+import org.arend.module.serialization.IndexedModuleSerialization;
+import org.arend.prelude.Prelude;
+import org.arend.prelude.PreludeLibrary;
+import org.arend.source.BinarySource;
+import org.arend.source.MappedFileBinarySource;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.LazyTypecheckerState;
+import org.arend.typechecking.SimpleTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.util.FileUtils;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.arend.module.ModulePath.moduleName;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class IndexedBinaryTest extends ArendTestCase {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path myBinaryDir;
+  private boolean myMapFiles;
+  private MemoryLibrary library;
+
+  @Override
+  protected TypecheckerState createTypecheckerState() {
+    return new LazyTypecheckerState(new SimpleTypecheckerState());
+  }
+
+  @Before
+  public void initialize() {
+    myBinaryDir = folder.getRoot().toPath();
+    library = new MemoryLibrary(typecheckerState) {
+      @Override
+      public BinarySource getBinarySource(ModulePath modulePath) {
+        return new MappedFileBinarySource(myBinaryDir, modulePath, hasFlag(Flag.PERSIST_INDEXED), myMapFiles);
+      }
+    };
+    library.addFlag(SourceLibrary.Flag.PERSIST_INDEXED);
+    moduleScopeProvider = module -> module.equals(Prelude.MODULE_PATH) ? PreludeLibrary.getPreludeScope() : library.getModuleScopeProvider().forModule(module);
+  }
+
+  private void persistAndReload() {
+    library.addModule(moduleName("A"), "\\data D | con1 | con2 \\func a (d : D) : Nat | con1 => 0 | con2 => 1");
+    library.addModule(moduleName("B"), "\\import A \\func b => a con2");
+    assertTrue(libraryManager.loadLibrary(library));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    library.clearUpdateModules();
+    assertThat(errorList, is(empty()));
+
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library));
+  }
+
+  private Definition getDefinition(String module, String name) {
+    ChildGroup group = library.getModuleGroup(moduleName(module));
+    assertThat(group, is(notNullValue()));
+    return typecheckerState.getTypechecked(get(group.getGroupScope(), name));
+  }
+
+  private byte[] readBinaryFile(String module) throws IOException {
+    return Files.readAllBytes(FileUtils.binaryFile(myBinaryDir, moduleName(module)));
+  }
+
+  private void writeBinaryFile(String module, byte[] bytes) throws IOException {
+    Files.write(FileUtils.binaryFile(myBinaryDir, moduleName(module)), bytes);
+  }
+
+  private void loadLazily() throws IOException {
+    persistAndReload();
+    assertTrue(IndexedModuleSerialization.isIndexed(ByteBuffer.wrap(readBinaryFile("A"))));
+    assertThat(library.getUpdatedModules(), is(empty()));
+    assertTrue(((LazyTypecheckerState) typecheckerState).hasDeferred());
+
+    Definition b = getDefinition("B", "b");
+    assertThat(b, is(instanceOf(FunctionDefinition.class)));
+    assertThat(b.status(), is(Definition.TypeCheckingStatus.NO_ERRORS));
+    assertThat(((FunctionDefinition) b).getBody(), is(notNullValue()));
+    assertThat(getDefinition("A", "a").status(), is(Definition.TypeCheckingStatus.NO_ERRORS));
+
+    ((LazyTypecheckerState) typecheckerState).loadAll();
+    assertFalse(((LazyTypecheckerState) typecheckerState).hasDeferred());
+    assertThat(errorList, is(empty()));
+  }
+
+  @Test
+  public void readFiles() throws IOException {
+    loadLazily();
+  }
+
+  @Test
+  public void mapFiles() throws IOException {
+    myMapFiles = true;
+    loadLazily();
+  }
+
+  @Test
+  public void gzippedFiles() {
+    library.removeFlag(SourceLibrary.Flag.PERSIST_INDEXED);
+    persistAndReload();
+    assertFalse(((LazyTypecheckerState) typecheckerState).hasDeferred());
+    assertThat(getDefinition("B", "b").status(), is(Definition.TypeCheckingStatus.NO_ERRORS));
+  }
+
+  @Test
+  public void corruptedHeader() throws IOException {
+    persistAndReload();
+    libraryManager.unloadLibrary(library);
+    byte[] bytes = readBinaryFile("A");
+    for (int i = IndexedModuleSerialization.PREFIX_LENGTH; i < bytes.length; i++) {
+      bytes[i] = (byte) 0xFF;
+    }
+    writeBinaryFile("A", bytes);
+
+    assertTrue(libraryManager.loadLibrary(library));
+    assertThat(errorList, hasItem(Matchers.<GeneralError>instanceOf(DeserializationError.class)));
+    assertTrue(library.getUpdatedModules().contains(moduleName("A")));
+    errorList.clear();
+
+    typechecking.typecheckLibrary(library);
+    assertThat(errorList, is(empty()));
+    assertThat(getDefinition("A", "a").status(), is(Definition.TypeCheckingStatus.NO_ERRORS));
+  }
+
+  @Test
+  public void corruptedDefinition() throws IOException {
+    persistAndReload();
+    libraryManager.unloadLibrary(library);
+    byte[] bytes = readBinaryFile("A");
+    int dataStart = IndexedModuleSerialization.PREFIX_LENGTH + ByteBuffer.wrap(bytes).getInt(4);
+    for (int i = dataStart; i < bytes.length; i++) {
+      bytes[i] = (byte) 0xFF;
+    }
+    writeBinaryFile("A", bytes);
+
+    // The header is intact, so the module is loaded and the error is found only when its definitions are requested
+    assertTrue(libraryManager.loadLibrary(library));
+    assertThat(errorList, is(empty()));
+    assertThat(library.getUpdatedModules(), is(empty()));
+
+    assertThat(getDefinition("A", "a"), is(nullValue()));
+    assertThat(errorList, hasItem(Matchers.<GeneralError>instanceOf(DeserializationError.class)));
+    assertTrue(library.getUpdatedModules().contains(moduleName("A")));
+    errorList.clear();
+
+    typechecking.typecheckLibrary(library);
+    assertThat(errorList, is(empty()));
+    assertThat(getDefinition("A", "a").status(), is(Definition.TypeCheckingStatus.NO_ERRORS));
+  }
+}
@@ -1,6 +1,10 @@
 package org.arend.library;
 
 import org.arend.module.ModulePath;
+import org.arend.module.scopeprovider.CachingModuleScopeProvider;
+import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.naming.scope.EmptyScope;
+import org.arend.naming.scope.Scope;
 import org.arend.source.Source;
 import org.arend.source.SourceLoader;
 import org.arend.term.group.Group;
@@ -8,6 +12,7 @@ import org.junit.Test;
 
 import static org.arend.module.ModulePath.moduleName;
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -56,6 +61,21 @@ public class LibraryLoadingTest extends LibraryTestCase {
     assertThat(library.getModuleGroup(moduleB), is(notNullValue()));
   }
 
+  @Test
+  public void parallelParsing() {
+    for (int i = 0; i < 10; i++) {
+      library.addModule(moduleName("M" + i), (i > 0 ? "\\import M" + (i - 1) + " " : "") + "\\func f" + i + " => 0");
+    }
+    library.addModule(moduleName("E"), "\\func e =>");
+    library.setNumberOfLoadingThreads(4);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertThat(errorList, containsErrors(1));
+    for (int i = 0; i < 10; i++) {
+      assertThat(library.getModuleGroup(moduleName("M" + i)), is(notNullValue()));
+    }
+    assertThat(library.getModuleGroup(moduleName("E")), is(nullValue()));
+  }
+
   @Test
   public void locateNonExistentModule() {
     Source source = library.getRawSource(moduleName("DoesNotExist"));
@@ -70,4 +90,41 @@ public class LibraryLoadingTest extends LibraryTestCase {
     assertThat(library.getModuleGroup(modulePath), is(nullValue()));
     assertThat(errorList, is(not(empty())));
   }
+
+  @Test
+  public void moduleScopeAfterReload() {
+    ModulePath modulePath = moduleName("A");
+    library.addModule(modulePath, "\\func f => 0");
+    assertTrue(libraryManager.loadLibrary(library));
+    ModuleScopeProvider provider = libraryManager.getAvailableModuleScopeProvider(library);
+    assertSame(provider, libraryManager.getAvailableModuleScopeProvider(library));
+    Scope scope = provider.forModule(modulePath);
+    assertThat(scope, is(notNullValue()));
+    assertThat(scope.resolveName("f"), is(notNullValue()));
+
+    library.addModule(modulePath, "\\func g => 0");
+    SourceLoader sourceLoader = new SourceLoader(library, libraryManager);
+    assertTrue(sourceLoader.preloadRaw(modulePath));
+    sourceLoader.loadRawSources();
+    scope = provider.forModule(modulePath);
+    assertThat(scope, is(notNullValue()));
+    assertThat(scope.resolveName("f"), is(nullValue()));
+    assertThat(scope.resolveName("g"), is(notNullValue()));
+    assertThat(errorList, containsErrors(0));
+  }
+
+  @Test
+  public void moduleScopeEviction() {
+    CachingModuleScopeProvider provider = new CachingModuleScopeProvider(module -> EmptyScope.INSTANCE, 2);
+    provider.forModule(moduleName("A"));
+    provider.forModule(moduleName("B"));
+    provider.forModule(moduleName("A"));
+    provider.forModule(moduleName("C"));
+    assertThat(provider.size(), is(2));
+    assertThat(provider.getHits(), is(1L));
+    assertThat(provider.getMisses(), is(3L));
+    assertThat(provider.getEvictions(), is(1L));
+    provider.forModule(moduleName("A"));
+    assertThat(provider.getHits(), is(2L));
+  }
 }
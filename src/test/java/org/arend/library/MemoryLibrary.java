@@ -5,6 +5,8 @@ import org.arend.module.ModulePath;
 import org.arend.source.BinarySource;
 import org.arend.source.Source;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -13,6 +15,7 @@ import java.util.*;
 public class MemoryLibrary extends UnmodifiableSourceLibrary {
   private final Map<ModulePath, MemoryRawSource> myRawSources = new LinkedHashMap<>();
   private final Map<ModulePath, BinarySource> myBinarySources = new LinkedHashMap<>();
+  private DependencyListener myDependencyListener = DummyDependencyListener.INSTANCE;
 
   protected MemoryLibrary(TypecheckerState typecheckerState) {
     super("test_library", typecheckerState);
@@ -36,6 +39,15 @@ public class MemoryLibrary extends UnmodifiableSourceLibrary {
     return new LibraryHeader(new ArrayList<>(myRawSources.keySet()), Collections.emptyList());
   }
 
+  public void setDependencyListener(DependencyListener dependencyListener) {
+    myDependencyListener = dependencyListener;
+  }
+
+  @Override
+  public DependencyListener getDependencyListener() {
+    return myDependencyListener;
+  }
+
   public void addModule(ModulePath module, String text) {
     myRawSources.put(module, new MemoryRawSource(module, text));
     myBinarySources.put(module, new MemoryBinarySource(module));
@@ -0,0 +1,73 @@
+package org.arend.library;
+
+import org.arend.core.definition.Definition;
+import org.arend.error.GeneralError;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.ConcurrentTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.arend.module.ModulePath.moduleName;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class ParallelTypecheckingTest extends LibraryTestCase {
+  @Override
+  protected TypecheckerState createTypecheckerState() {
+    return new ConcurrentTypecheckerState();
+  }
+
+  @Test
+  public void dependentModules() {
+    library.addModule(moduleName("A"), "\\func a (n : Nat) : Nat | zero => zero | suc n => a n");
+    library.addModule(moduleName("B"), "\\import A \\func b : Nat => a 7");
+    library.addModule(moduleName("C"), "\\import A \\func c : Nat => a 3");
+    library.addModule(moduleName("D"), "\\import B \\import C \\func d : b = c => idp");
+    assertTrue(libraryManager.loadLibrary(library));
+    assertTrue(typechecking.typecheckLibrary(library, 4));
+    assertThat(errorList, is(empty()));
+
+    ChildGroup dGroup = library.getModuleGroup(moduleName("D"));
+    assertThat(dGroup, is(notNullValue()));
+    assertThat(typecheckerState.getTypechecked(get(dGroup.getGroupScope(), "d")).status(), is(equalTo(Definition.TypeCheckingStatus.NO_ERRORS)));
+  }
+
+  @Test
+  public void mutualRecursion() {
+    library.addModule(moduleName("A"), "\\import B() \\func a (n : Nat) : Nat | zero => zero | suc n => B.b n");
+    library.addModule(moduleName("B"), "\\import A() \\func b (n : Nat) : Nat | zero => zero | suc n => A.a n");
+    library.addModule(moduleName("C"), "\\import A \\func c : a 2 = 0 => idp");
+    assertTrue(libraryManager.loadLibrary(library));
+    assertTrue(typechecking.typecheckLibrary(library, 4));
+    assertThat(errorList, is(empty()));
+  }
+
+  @Test
+  public void errorOrder() {
+    library.addModule(moduleName("A"),
+      "\\func a1 : Nat => {?}\n" +
+      "\\func a2 : Nat => {?}");
+    library.addModule(moduleName("B"), "\\import A \\func b : Nat => {?}");
+    library.addModule(moduleName("C"), "\\func c : Nat => {?}");
+    assertTrue(libraryManager.loadLibrary(library));
+    assertTrue(typechecking.typecheckLibrary(library));
+    List<String> expected = new ArrayList<>();
+    for (GeneralError error : errorList) {
+      expected.add(error.toString());
+    }
+    assertThat(expected, hasSize(4));
+    errorList.clear();
+
+    libraryManager.unloadLibrary(library);
+    assertTrue(libraryManager.loadLibrary(library));
+    assertTrue(typechecking.typecheckLibrary(library, 4));
+    List<String> actual = new ArrayList<>();
+    for (GeneralError error : errorList) {
+      actual.add(error.toString());
+    }
+    assertEquals(expected, actual);
+  }
+}
@@ -176,6 +176,30 @@ public class NameResolverTest extends NameResolverTestCase {
         "  \\open f(y)");
   }
 
+  @Test
+  public void whereDeeplyNested() {
+    resolveNamesModule(
+        "\\func x => 0\n" +
+        "\\func f => x \\where {\n" +
+        "  \\data D | d\n" +
+        "  \\func g => d \\where {\n" +
+        "    \\func h => x\n" +
+        "    \\func k => h \\where\n" +
+        "      \\func l => f.g.h\n" +
+        "  }\n" +
+        "}");
+  }
+
+  @Test
+  public void whereDeeplyNestedNotInScope() {
+    resolveNamesModule(
+        "\\func f => 0 \\where {\n" +
+        "  \\func g => 0 \\where\n" +
+        "    \\func h => 0\n" +
+        "}\n" +
+        "\\func k => h", 1);
+  }
+
   @Test
   public void openTest() {
     resolveNamesModule("\\class A \\where { \\func x => 0 } \\open A \\func y => x");
@@ -16,6 +16,7 @@ import java.util.List;
 
 import static org.arend.core.expr.ExpressionFactory.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class BuiltinNormalizationTest extends TypeCheckingTestCase {
   private static Expression funCall(FunctionDefinition definition, Expression arg1, Expression arg2) {
@@ -54,6 +55,29 @@ public class BuiltinNormalizationTest extends TypeCheckingTestCase {
     assertEquals(Suc(Suc(Suc(x))), plus(x, val(3)).normalize(NormalizeVisitor.Mode.NF));
   }
 
+  @Test
+  public void testVarPlusLargeConst() {
+    ReferenceExpression x = new ReferenceExpression(new TypedBinding("x", Nat()));
+    // x + 1000000000 = suc (x + 999999999)
+    assertEquals(Suc(plus(x, val(999999999))), plus(x, val(1000000000)).normalize(NormalizeVisitor.Mode.WHNF));
+    // x + 1 = suc x
+    assertEquals(Suc(x), plus(x, val(1)).normalize(NormalizeVisitor.Mode.WHNF));
+  }
+
+  @Test
+  public void testIntegerOverflow() {
+    Expression mul = funCall(Prelude.MUL, val(50000), val(50000)).normalize(NormalizeVisitor.Mode.WHNF);
+    assertTrue(mul instanceof BigIntegerExpression);
+    assertEquals(new BigIntegerExpression(new BigInteger("2500000000")), mul);
+    Expression sum = plus(val(Integer.MAX_VALUE), val(1)).normalize(NormalizeVisitor.Mode.WHNF);
+    assertTrue(sum instanceof BigIntegerExpression);
+    assertEquals(new BigIntegerExpression(BigInteger.valueOf(Integer.MAX_VALUE).add(BigInteger.ONE)), sum);
+    // 40000 * 40000 fits into an int
+    assertTrue(funCall(Prelude.MUL, val(40000), val(40000)).normalize(NormalizeVisitor.Mode.WHNF) instanceof SmallIntegerExpression);
+    // results of big integer arithmetic are demoted if they are small enough
+    assertTrue(funCall(Prelude.DIV, new BigIntegerExpression(new BigInteger("1000000000000")), val(1000000)).normalize(NormalizeVisitor.Mode.WHNF) instanceof SmallIntegerExpression);
+  }
+
   @Test
   public void testVarPlusVar() {
     ReferenceExpression x = new ReferenceExpression(new TypedBinding("x", Nat()));
@@ -8,7 +8,10 @@ import org.arend.core.definition.Definition;
 import org.arend.core.definition.FunctionDefinition;
 import org.arend.core.expr.DataCallExpression;
 import org.arend.core.expr.Expression;
+import org.arend.core.expr.ExpressionInterner;
+import org.arend.core.expr.FunCallExpression;
 import org.arend.core.expr.PiExpression;
+import org.arend.core.expr.SmallIntegerExpression;
 import org.arend.core.expr.let.LetClause;
 import org.arend.core.sort.Sort;
 import org.arend.prelude.Prelude;
@@ -17,6 +20,7 @@ import org.arend.typechecking.implicitargs.equations.Equations;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 import static org.arend.ExpressionFactory.*;
@@ -219,4 +223,65 @@ public class ComparisonTest extends TypeCheckingTestCase {
     assertEquals(result2.expression, result1.expression);
     assertEquals(result1.expression, result2.expression);
   }
+
+  @Test
+  public void structuralHashAlpha() {
+    SingleDependentLink x = singleParam("x", Nat());
+    SingleDependentLink y = singleParam("y", Nat());
+    SingleDependentLink z = singleParam("z", Nat());
+    assertEquals(Lam(x, Ref(x)).structuralHashCode(), Lam(y, Ref(y)).structuralHashCode());
+    assertEquals(Lam(x, Lam(z, Ref(x))).structuralHashCode(), Lam(y, Lam(z, Ref(y))).structuralHashCode());
+    assertNotEquals(Lam(x, Lam(z, Ref(x))).structuralHashCode(), Lam(x, Lam(z, Ref(z))).structuralHashCode());
+  }
+
+  @Test
+  public void interning() {
+    ExpressionInterner interner = new ExpressionInterner();
+    Expression nat = interner.intern(Nat());
+    assertSame(nat, interner.intern(Nat()));
+    assertSame(nat, interner.intern(Nat()));
+    Expression integer = interner.intern(Int());
+    assertNotSame(nat, integer);
+    assertEquals(2, interner.size());
+    assertEquals(2, interner.getHits());
+
+    SingleDependentLink x = singleParam("x", Nat());
+    Expression lam = Lam(x, Ref(x));
+    assertSame(lam, interner.intern(lam));
+    assertEquals(2, interner.size());
+
+    Expression left = interner.intern(Left());
+    assertSame(left, interner.intern(Left()));
+    assertEquals(3, interner.size());
+  }
+
+  private static Expression sumOfOnes(int size) {
+    Expression result = new SmallIntegerExpression(0);
+    for (int i = 0; i < size; i++) {
+      result = new FunCallExpression(Prelude.PLUS, Sort.SET0, Arrays.asList(result, new SmallIntegerExpression(1)));
+    }
+    return result;
+  }
+
+  @Test
+  public void fastEquals() {
+    assertTrue(ExpressionInterner.fastEquals(sumOfOnes(3), sumOfOnes(3)));
+    assertFalse(ExpressionInterner.fastEquals(sumOfOnes(3), sumOfOnes(4)));
+    // the check gives up on large expressions and the full comparison is used
+    assertFalse(ExpressionInterner.fastEquals(sumOfOnes(ExpressionInterner.FAST_EQUALS_BUDGET), sumOfOnes(ExpressionInterner.FAST_EQUALS_BUDGET)));
+    assertTrue(compare(sumOfOnes(ExpressionInterner.FAST_EQUALS_BUDGET), sumOfOnes(ExpressionInterner.FAST_EQUALS_BUDGET), Equations.CMP.EQ));
+    // expressions with variables are not internable
+    Binding x = new TypedBinding("x", Nat());
+    assertFalse(ExpressionInterner.fastEquals(Ref(x), Ref(x)));
+    assertTrue(compare(Ref(x), Ref(x), Equations.CMP.EQ));
+  }
+
+  @Test
+  public void minusOfPlusConst() {
+    typeCheckModule(
+      "\\func f (x : Nat) : 5 Nat.- (x Nat.+ 3) = 2 Nat.- x => idp\n" +
+      "\\func g (x : Nat) : (x Nat.+ 3) Nat.- 5 = x Nat.- 2 => idp\n" +
+      "\\func h (x y : Nat) : (x Nat.+ 5) Nat.- (y Nat.+ 3) = (x Nat.+ 2) Nat.- y => idp\n" +
+      "\\func k (x y : Nat) : x Nat.+ (y Nat.+ 3) = suc (suc (suc (x Nat.+ y))) => idp");
+  }
 }
@@ -15,6 +15,7 @@ import org.arend.core.elimtree.LeafElimTree;
 import org.arend.core.expr.*;
 import org.arend.core.expr.let.LetClause;
 import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.expr.visitor.WHNFCache;
 import org.arend.core.sort.Level;
 import org.arend.core.sort.Sort;
 import org.arend.naming.reference.LocalReferable;
@@ -34,6 +35,8 @@ import static org.arend.ExpressionFactory.*;
 import static org.arend.core.expr.ExpressionFactory.*;
 import static org.arend.term.concrete.ConcreteExpressionFactory.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class NormalizationTest extends TypeCheckingTestCase {
   // \func + (x y : Nat) : Nat => \elim x | zero => y | suc x' => suc (x' + y)
@@ -430,4 +433,91 @@ public class NormalizationTest extends TypeCheckingTestCase {
     assertEquals(1, conCall.getDefCallArguments().size());
     assertEquals(f.getParameters().getNext(), conCall.getDefCallArguments().get(0).cast(ReferenceExpression.class).getBinding());
   }
+
+  @Test
+  public void whnfCacheHit() {
+    WHNFCache cache = new WHNFCache(16);
+    WHNFCache previous = WHNFCache.activate(cache);
+    try {
+      Expression expr = FunCall(plus, Sort.SET0, Suc(Zero()), Suc(Zero()));
+      Expression result = expr.normalize(NormalizeVisitor.Mode.WHNF);
+      assertEquals(Suc(Suc(Zero())), result.normalize(NormalizeVisitor.Mode.NF));
+      assertSame(result, expr.normalize(NormalizeVisitor.Mode.WHNF));
+    } finally {
+      WHNFCache.deactivate(previous, null);
+    }
+  }
+
+  @Test
+  public void whnfCacheInvalidation() {
+    WHNFCache cache = new WHNFCache(16);
+    WHNFCache previous = WHNFCache.activate(cache);
+    try {
+      Expression expr = FunCall(plus, Sort.SET0, Suc(Zero()), Zero());
+      expr.normalize(NormalizeVisitor.Mode.WHNF);
+      plus.setStatus(Definition.TypeCheckingStatus.NO_ERRORS);
+      expr.normalize(NormalizeVisitor.Mode.WHNF);
+      assertEquals(0, cache.getHits());
+    } finally {
+      WHNFCache.deactivate(previous, null);
+    }
+  }
+
+  private Expression normalizeWithClosures(Expression expr, NormalizeVisitor.Mode mode) {
+    NormalizeVisitor previous = NormalizeVisitor.activate(NormalizeVisitor.Engine.CLOSURE);
+    try {
+      return expr.normalize(mode);
+    } finally {
+      NormalizeVisitor.deactivate(previous);
+    }
+  }
+
+  private static void assertSameStructure(Expression expected, Expression actual) {
+    // assertEquals would compare expressions up to definitional equality
+    assertEquals(expected.toString(), actual.toString());
+    assertEquals(expected.structuralHashCode(), actual.structuralHashCode());
+  }
+
+  private void testClosureEngine(String definition) {
+    Expression expr = ((LeafElimTree) ((FunctionDefinition) getDefinition(definition)).getBody()).getExpression();
+    assertSameStructure(expr.normalize(NormalizeVisitor.Mode.WHNF), normalizeWithClosures(expr, NormalizeVisitor.Mode.WHNF));
+    assertSameStructure(expr.normalize(NormalizeVisitor.Mode.NF), normalizeWithClosures(expr, NormalizeVisitor.Mode.NF));
+  }
+
+  @Test
+  public void closureEngine() {
+    typeCheckModule(
+      "\\func twice (f : Nat -> Nat) : Nat -> Nat => \\lam x => f (f x)\n" +
+      "\\func const (x : Nat) : Nat -> Nat -> Nat => \\lam y z => x\n" +
+      "\\func f1 => twice (twice suc) 0\n" +
+      "\\func f2 => const 1 2\n" +
+      "\\func f3 (n : Nat) => twice (const n n) (suc n)\n" +
+      "\\func f4 (g : Nat -> Nat) => twice (\\lam x => g (twice g x))");
+    testClosureEngine("f1");
+    testClosureEngine("f2");
+    testClosureEngine("f3");
+    testClosureEngine("f4");
+    Expression result = normalizeWithClosures(((LeafElimTree) ((FunctionDefinition) getDefinition("f1")).getBody()).getExpression(), NormalizeVisitor.Mode.NF);
+    assertTrue(result instanceof IntegerExpression && ((IntegerExpression) result).isEqual(new SmallIntegerExpression(4)));
+  }
+
+  @Test
+  public void jumpTableDispatch() {
+    typeCheckModule(
+      "\\data Color | red | green | blue\n" +
+      "\\func next (c : Color) : Color | red => green | green => blue | blue => red\n" +
+      "\\func iter (n : Nat) (c : Color) : Color | 0, c => c | suc n, c => iter n (next c)\n" +
+      "\\func test => iter 100 green");
+    Expression expr = ((LeafElimTree) ((FunctionDefinition) getDefinition("test")).getBody()).getExpression();
+    Expression result;
+    NormalizeVisitor previous = NormalizeVisitor.activate(NormalizeVisitor.Engine.SUBSTITUTION);
+    try {
+      result = expr.normalize(NormalizeVisitor.Mode.NF);
+    } finally {
+      NormalizeVisitor.deactivate(previous);
+    }
+    // next has period 3 and 100 = 3 * 33 + 1
+    assertSame(getDefinition("blue"), result.cast(ConCallExpression.class).getDefinition());
+    assertSameStructure(result, normalizeWithClosures(expr, NormalizeVisitor.Mode.NF));
+  }
 }
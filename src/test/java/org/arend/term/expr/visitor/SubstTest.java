@@ -4,13 +4,24 @@ import org.arend.core.context.binding.Binding;
 import org.arend.core.context.binding.TypedBinding;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+import org.arend.core.expr.AppExpression;
+import org.arend.core.expr.ClassCallExpression;
 import org.arend.core.expr.Expression;
+import org.arend.core.expr.PiExpression;
+import org.arend.core.sort.Sort;
+import org.arend.core.subst.ExprSubstitution;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.arend.ExpressionFactory.*;
 import static org.arend.core.expr.ExpressionFactory.*;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class SubstTest extends TypeCheckingTestCase {
   @Test
@@ -118,4 +129,79 @@ public class SubstTest extends TypeCheckingTestCase {
     Expression expr2 = let(lets(let("x", Lam(z, Ref(z))), let("y", Lam(w, Zero()))), Zero());
     assertEquals(expr2, expr1.subst(a, Zero()));
   }
+
+  @Test
+  public void closedSubexpressionsAreShared() {
+    // f (\lam (y : Nat) => y) x [x := zero]
+    Binding f = new TypedBinding("f", Pi(Pi(Nat(), Nat()), Pi(Nat(), Nat())));
+    Binding x = new TypedBinding("x", Nat());
+    SingleDependentLink y = singleParam("y", Nat());
+    Expression closed = Lam(y, Ref(y));
+    Expression expr = Apps(Ref(f), closed, Ref(x));
+    assertTrue(closed.isClosed());
+    assertFalse(expr.isClosed());
+
+    Expression result = expr.subst(x, Zero());
+    assertSame(closed, ((AppExpression) ((AppExpression) result).getFunction()).getArgument());
+    assertEquals(Apps(Ref(f), closed, Zero()), result);
+  }
+
+  @Test
+  public void closedSubexpressionsAreCopied() {
+    SingleDependentLink y = singleParam("y", Nat());
+    PiExpression expr = Pi(y, Pi(Nat(), Ref(y)));
+    Expression copy = expr.copy();
+    assertNotSame(expr, copy);
+    assertNotSame(expr.getCodomain(), ((PiExpression) copy).getCodomain());
+    assertEquals(expr, copy);
+  }
+
+  @Test
+  public void closednessIsInvalidated() {
+    ClassDefinition classDef = (ClassDefinition) typeCheckDef("\\class C { | x : Nat }");
+    ClassField field = classDef.getPersonalFields().get(0);
+    Map<ClassField, Expression> implementations = new HashMap<>();
+    ClassCallExpression classCall = new ClassCallExpression(classDef, Sort.STD, implementations, Sort.PROP, false);
+    assertTrue(classCall.isClosed());
+
+    Binding x = new TypedBinding("x", Nat());
+    implementations.put(field, Ref(x));
+    classCall.invalidateClosedness();
+    assertFalse(classCall.isClosed());
+    assertEquals(new ClassCallExpression(classDef, Sort.STD, Collections.singletonMap(field, Zero()), Sort.PROP, false), classCall.subst(x, Zero()));
+  }
+
+  @Test
+  public void largeSubstitution() {
+    ExprSubstitution substitution = new ExprSubstitution();
+    Binding[] bindings = new Binding[6];
+    for (int i = 0; i < bindings.length; i++) {
+      bindings[i] = new TypedBinding("x" + i, Nat());
+    }
+    for (int i = 0; i < bindings.length; i++) {
+      substitution.add(bindings[i], Ref(bindings[(i + 1) % bindings.length]));
+    }
+    substitution.remove(bindings[2]);
+    assertEquals(5, substitution.getKeys().size());
+    assertNull(substitution.get(bindings[2]));
+    assertEquals(Ref(bindings[0]), substitution.get(bindings[5]));
+
+    ExprSubstitution small = new ExprSubstitution();
+    small.add(bindings[0], Zero());
+    small.add(bindings[1], Ref(bindings[0]));
+    small.remove(bindings[0]);
+    assertNull(small.get(bindings[0]));
+    assertEquals(Ref(bindings[0]), small.get(bindings[1]));
+  }
+
+  @Test
+  public void addSubst() {
+    // [y := x] + [x := zero] = [y := zero, x := zero]
+    Binding x = new TypedBinding("x", Nat());
+    Binding y = new TypedBinding("y", Nat());
+    ExprSubstitution substitution = new ExprSubstitution(y, Ref(x));
+    substitution.addSubst(x, Zero());
+    assertEquals(Zero(), substitution.get(y));
+    assertEquals(Zero(), substitution.get(x));
+  }
 }
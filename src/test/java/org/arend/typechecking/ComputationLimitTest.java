@@ -0,0 +1,47 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.*;
+
+public class ComputationLimitTest extends TypeCheckingTestCase {
+  private static final String ACKERMANN =
+    "\\func ack (m n : Nat) : Nat\n" +
+    "  | 0, n => suc n\n" +
+    "  | suc m, 0 => ack m 1\n" +
+    "  | suc m, suc n => ack m (ack (suc m) n)\n";
+
+  private TypecheckingOrderingListener listener() {
+    return new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, localErrorReporter, PositionComparator.INSTANCE);
+  }
+
+  @Test
+  public void limitExceeded() {
+    lastGroup = resolveNamesModule(ACKERMANN +
+      "\\func slow : ack 3 8 = 2045 => idp\n" +
+      "\\func fast : ack 2 2 = 7 => idp");
+    TypecheckingOrderingListener listener = listener();
+    listener.setComputationLimit(10000);
+    assertTrue(listener.typecheckModules(Collections.singletonList(lastGroup)));
+    assertThat(errorList, containsErrors(1));
+    assertThat(errorList.get(0).message, containsString("10000 steps"));
+    assertFalse(getDefinition("slow").status().headerIsOK());
+    assertEquals(Definition.TypeCheckingStatus.NO_ERRORS, getDefinition("fast").status());
+  }
+
+  @Test
+  public void canceled() {
+    ChildGroup group = resolveNamesModule(ACKERMANN + "\\func slow : ack 3 8 = 2045 => idp");
+    TypecheckingOrderingListener listener = listener();
+    listener.setCancellationIndicator(() -> true);
+    assertFalse(listener.typecheckModules(Collections.singletonList(group)));
+  }
+}
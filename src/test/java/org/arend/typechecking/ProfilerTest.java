@@ -0,0 +1,89 @@
+package org.arend.typechecking;
+
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.TCReferable;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.arend.typechecking.profile.DefinitionProfile;
+import org.arend.typechecking.profile.TypecheckingProfiler;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ProfilerTest extends TypeCheckingTestCase {
+  private Map<TCReferable, DefinitionProfile> profile(String text) {
+    lastGroup = resolveNamesModule(text);
+    TypecheckingProfiler profiler = new TypecheckingProfiler();
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, localErrorReporter, PositionComparator.INSTANCE);
+    listener.setProfiler(profiler);
+    assertTrue(listener.typecheckModules(Collections.singletonList(lastGroup)));
+
+    Map<TCReferable, DefinitionProfile> result = new HashMap<>();
+    for (DefinitionProfile profile : profiler.getProfiles()) {
+      result.put(profile.getReferable(), profile);
+    }
+    return result;
+  }
+
+  @Test
+  public void countersTest() {
+    Map<TCReferable, DefinitionProfile> profiles = profile(
+      "\\func f (n : Nat) : Nat\n" +
+      "  | 0 => 0\n" +
+      "  | suc n => suc (f n)\n" +
+      "\\func g : f 10 = 10 => idp");
+    assertTrue(profiles.get(get("g")).getNormalizationSteps() > 0);
+    assertTrue(profiles.get(get("g")).getComparisons() > 0);
+    assertTrue(profiles.get(get("f")).getTime() > 0);
+  }
+
+  @Test
+  public void mutualRecursionTest() {
+    Map<TCReferable, DefinitionProfile> profiles = profile(
+      "\\func even (n : Nat) : Nat\n" +
+      "  | 0 => 1\n" +
+      "  | suc n => odd n\n" +
+      "\\func odd (n : Nat) : Nat\n" +
+      "  | 0 => 0\n" +
+      "  | suc n => even n");
+    assertTrue(profiles.containsKey(get("even")));
+    assertTrue(profiles.containsKey(get("odd")));
+    assertEquals(profiles.get(get("even")).getTerminationTime(), profiles.get(get("odd")).getTerminationTime());
+  }
+
+  @Test
+  public void exceptionStopsProfiling() throws InterruptedException {
+    lastGroup = resolveNamesModule("\\func f : Nat => \\Type \\func g => 0");
+    TypecheckingProfiler profiler = new TypecheckingProfiler();
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, error -> { throw new IllegalStateException(); }, PositionComparator.INSTANCE);
+    listener.setProfiler(profiler);
+    try {
+      listener.typecheckModules(Collections.singletonList(lastGroup));
+      fail();
+    } catch (IllegalStateException ignored) {
+    }
+
+    DefinitionProfile profile = profiler.getProfiles().get(0);
+    long time = profile.getTime();
+    Thread.sleep(10);
+    // If the frame of f was not popped, it would be resumed when another definition is profiled on this thread
+    profiler.start(get("g"));
+    profiler.stop();
+    assertTrue(profile.getTime() - time < 10000000);
+  }
+
+  @Test
+  public void clearTest() {
+    typeCheckModule("\\func f => 0");
+    TypecheckingProfiler profiler = new TypecheckingProfiler();
+    profiler.start(get("f"));
+    profiler.stop();
+    assertEquals(1, profiler.getProfiles().size());
+    profiler.clear();
+    assertTrue(profiler.getProfiles().isEmpty());
+  }
+}
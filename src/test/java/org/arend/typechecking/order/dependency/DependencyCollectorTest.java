@@ -0,0 +1,89 @@
+package org.arend.typechecking.order.dependency;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.LeafElimTree;
+import org.arend.core.expr.FunCallExpression;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class DependencyCollectorTest extends TypeCheckingTestCase {
+  private TypecheckingOrderingListener typechecking(DependencyCollector collector) {
+    return new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, errorReporter, collector, PositionComparator.INSTANCE);
+  }
+
+  private DependencyCollector typeCheckModuleWithCollector(String text, boolean incremental) {
+    DependencyCollector collector = new DependencyCollector(typecheckerState, incremental);
+    lastGroup = resolveNamesModule(text);
+    assertTrue(typechecking(collector).typecheckModules(Collections.singletonList(lastGroup)));
+    return collector;
+  }
+
+  /**
+   * Replaces the source of a function with the given text and typechecks it again.
+   */
+  private void edit(DependencyCollector collector, TCReferable referable, String text) {
+    Concrete.FunctionDefinition def = (Concrete.FunctionDefinition) resolveNamesDef(text).getDefinition();
+    Concrete.FunctionDefinition edited = new Concrete.FunctionDefinition(def.getKind(), referable, def.getParameters(), def.getResultType(), def.getResultTypeLevel(), def.getBody());
+    assertThat(collector.update(referable), contains(referable));
+    assertTrue(typechecking(collector).typecheckDefinitions(Collections.singletonList(edited)));
+  }
+
+  private Definition getCalledDefinition(String name) {
+    return ((FunCallExpression) ((LeafElimTree) ((FunctionDefinition) getDefinition(name)).getBody()).getExpression()).getDefinition();
+  }
+
+  @Test
+  public void resetDependents() {
+    DependencyCollector collector = typeCheckModuleWithCollector("\\func f => 0 \\func g => f \\func h => g", false);
+    assertThat(collector.update(get("f")), containsInAnyOrder(get("f"), get("g"), get("h")));
+    assertThat(getDefinition("h"), is(nullValue()));
+  }
+
+  @Test
+  public void unchangedDefinition() {
+    DependencyCollector collector = typeCheckModuleWithCollector("\\func f => 0 \\func g => f \\func h => g", true);
+    Definition f = getDefinition("f");
+    Definition g = getDefinition("g");
+    edit(collector, get("f"), "\\func f => 0");
+    assertThat(getDefinition("f"), is(sameInstance(f)));
+    assertThat(getDefinition("g"), is(sameInstance(g)));
+  }
+
+  @Test
+  public void changedBody() {
+    DependencyCollector collector = typeCheckModuleWithCollector("\\func f => 0 \\func g => f \\func h => g", true);
+    Definition f = getDefinition("f");
+    Definition g = getDefinition("g");
+    Definition h = getDefinition("h");
+    edit(collector, get("f"), "\\func f => 1");
+    assertThat(getDefinition("f"), is(not(sameInstance(f))));
+    assertThat(getDefinition("g"), is(not(sameInstance(g))));
+    assertThat(getDefinition("h"), is(not(sameInstance(h))));
+    assertThat(getCalledDefinition("g"), is(sameInstance(getDefinition("f"))));
+    assertThat(getCalledDefinition("h"), is(sameInstance(getDefinition("g"))));
+    assertThat(getDefinition("h").status(), is(Definition.TypeCheckingStatus.NO_ERRORS));
+  }
+
+  @Test
+  public void changedLemmaBody() {
+    DependencyCollector collector = typeCheckModuleWithCollector("\\lemma p (n : Nat) : n = n => path (\\lam _ => n) \\func g => p", true);
+    Definition p = getDefinition("p");
+    Definition g = getDefinition("g");
+    edit(collector, get("p"), "\\lemma p (n : Nat) : n = n \\elim n | 0 => path (\\lam _ => 0) | suc n => path (\\lam _ => suc n)");
+    assertThat(getDefinition("p"), is(sameInstance(p)));
+    assertThat(((FunctionDefinition) p).getBody(), is(not(instanceOf(LeafElimTree.class))));
+    assertThat(getDefinition("g"), is(sameInstance(g)));
+  }
+}
@@ -220,4 +220,32 @@ public class TerminationCheckTest extends TypeCheckingTestCase {
     assert !callCategory.checkTermination();
   }
 
+  @Test
+  public void idempotentBadLoop() {
+    TestVertex f = new TestVertex("f", "x", "y");
+    TestVertex g = new TestVertex("g", "x", "y");
+    Set<BaseCallMatrix<TestVertex>> cms = new HashSet<>();
+    cms.add(new TestCallMatrix("f-g", f, g, '<', 0, '=', 1));
+    cms.add(new TestCallMatrix("g-f", g, f, '?', '=', 1));
+    TestCallGraph callCategory = TestCallGraph.calculateClosure(cms);
+    assert !callCategory.checkTermination();
+    assert callCategory.myErrorInfo.containsKey(f);
+    assert callCategory.myErrorInfo.containsKey(g);
+  }
+
+  @Test
+  public void longCycle() {
+    int n = 20;
+    TestVertex[] vertices = new TestVertex[n];
+    for (int i = 0; i < n; i++) {
+      vertices[i] = new TestVertex("f" + i, "x", "y");
+    }
+    Set<BaseCallMatrix<TestVertex>> cms = new HashSet<>();
+    for (int i = 0; i < n; i++) {
+      TestVertex next = vertices[(i + 1) % n];
+      cms.add(new TestCallMatrix("f" + i + "-f" + (i + 1) % n, vertices[i], next, i == 0 ? '<' : '=', 0, '=', 1));
+      cms.add(new TestCallMatrix("f" + i + "-f" + (i + 1) % n, vertices[i], next, '=', 0, '<', 1));
+    }
+    assert TestCallGraph.calculateClosure(cms).checkTermination();
+  }
 }
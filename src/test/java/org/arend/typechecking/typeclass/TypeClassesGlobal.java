@@ -1,10 +1,23 @@
 package org.arend.typechecking.typeclass;
 
+import org.arend.core.definition.Definition;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.frontend.reference.ConcreteLocatedReferable;
+import org.arend.naming.reference.ClassReferable;
+import org.arend.term.concrete.Concrete;
 import org.arend.typechecking.TypeCheckingTestCase;
+import org.arend.typechecking.instance.provider.InstanceProvider;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.junit.Test;
 
+import java.util.Collections;
+
 import static org.arend.typechecking.Matchers.*;
-import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 public class TypeClassesGlobal extends TypeCheckingTestCase {
   @Test
@@ -365,4 +378,71 @@ public class TypeClassesGlobal extends TypeCheckingTestCase {
       "\\class D \\extends C | X => Nat -> Nat\n" +
       "\\instance ddd : D", 1);
   }
+
+  @Test
+  public void instancesWithDifferentClassifiers() {
+    typeCheckModule(
+      "\\class C (X : \\Type) | op : X -> X\n" +
+      "\\data D | d\n" +
+      "\\instance C-Type : C \\Type | op => \\lam A => A\n" +
+      "\\instance C-Nat : C Nat | op => suc\n" +
+      "\\instance C-Int : C Int | op => \\lam x => x\n" +
+      "\\instance C-D : C D | op => \\lam x => x\n" +
+      "\\func f => op {_} 1\n" +
+      "\\func g => op {_} d\n" +
+      "\\func h => op {_} (pos 1)\n" +
+      "\\func test : f = 2 => idp");
+  }
+
+  @Test
+  public void noInstanceWithClassifier() {
+    typeCheckModule(
+      "\\class C (X : \\Type) | op : X -> X\n" +
+      "\\data D | d\n" +
+      "\\instance C-Nat : C Nat | op => suc\n" +
+      "\\instance C-Int : C Int | op => \\lam x => x\n" +
+      "\\func f => op {_} d", 1);
+    assertThatErrorsAre(instanceInference(getDefinition("C")));
+  }
+
+  private TypecheckingOrderingListener typecheckModuleWithIndex(String text) {
+    lastGroup = resolveNamesModule(text);
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, localErrorReporter, PositionComparator.INSTANCE);
+    assertTrue(listener.typecheckModules(Collections.singletonList(lastGroup)));
+    assertThat(errorList, is(empty()));
+    return listener;
+  }
+
+  @Test
+  public void instanceIndexIsUsed() {
+    TypecheckingOrderingListener listener = typecheckModuleWithIndex(
+      "\\class C (X : \\Type) | op : X -> X\n" +
+      "\\data D | d\n" +
+      "\\instance C-Nat : C Nat | op => suc\n" +
+      "\\instance C-D : C D | op => \\lam x => x\n" +
+      "\\func f => op {_} d\n" +
+      "\\func test : op {_} 1 = 2 => idp");
+    InstanceProvider provider = libraryManager.getInstanceProviderSet().get(get("f"));
+    assertTrue(listener.getInstanceIndex().isIndexed(provider, (ClassReferable) get("C"), typecheckerState));
+  }
+
+  @Test
+  public void instanceIndexInvalidation() {
+    TypecheckingOrderingListener listener = typecheckModuleWithIndex(
+      "\\class C (X : \\Type) | op : X -> X\n" +
+      "\\instance C-Nat : C Nat | op => suc\n" +
+      "\\instance C-Nat2 : C Nat | op => \\lam x => x\n" +
+      "\\func test : op {_} 1 = 2 => idp");
+    InstanceProvider provider = libraryManager.getInstanceProviderSet().get(get("test"));
+    ClassReferable classRef = (ClassReferable) get("C");
+    assertTrue(listener.getInstanceIndex().isIndexed(provider, classRef, typecheckerState));
+
+    // The second instance in the bucket of Nat is typechecked again
+    Definition instance = getDefinition("C-Nat2");
+    typecheckerState.reset(get("C-Nat2"));
+    new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, localErrorReporter, PositionComparator.INSTANCE)
+      .typecheckDefinitions(Collections.singletonList((Concrete.Definition) ((ConcreteLocatedReferable) get("C-Nat2")).getDefinition()));
+    assertThat(getDefinition("C-Nat2"), is(not(sameInstance(instance))));
+    assertFalse(listener.getInstanceIndex().isIndexed(provider, classRef, typecheckerState));
+  }
 }